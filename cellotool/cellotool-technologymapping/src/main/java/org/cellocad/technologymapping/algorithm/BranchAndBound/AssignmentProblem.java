@@ -0,0 +1,469 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.BranchAndBound;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cellocad.common.CObject;
+import org.cellocad.technologymapping.common.assignment.RoadblockChecker;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.common.simulation.LogicSimulator;
+import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.data.Toxicity;
+
+/**
+ * The gate assignment of a TMNetlist compiled for branch and bound. Logic
+ * nodes are assigned in topological order, so the activity of an
+ * assigned node only depends on nodes assigned before it. The remaining
+ * nodes are bounded by activity intervals: an unassigned node lies
+ * between the lowest and highest response of any gate still available
+ * to it over the inputs it can reach, which holds as long as response
+ * functions are monotone. The responses of every gate over the inputs
+ * reachable when no node is assigned are computed once and sorted, so
+ * that a bound takes the first gate of an unused group in each row
+ * instead of evaluating every gate.
+ *
+ * Activities are kept in two arrays of lower and upper bounds with the
+ * layout of the activity matrix of the TMNetlist. Growth is the running
+ * product of the toxicity of the assigned nodes, which can only decrease
+ * as more nodes are assigned.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class AssignmentProblem extends CObject{
+
+	/**
+	 * Compile the gate assignment of a TMNetlist whose inputs and outputs
+	 * are assigned and simulated.
+	 *
+	 * @param netlist the TMNetlist.
+	 * @param gateLibrary the gates that may be assigned to logic nodes.
+	 * @param evaluator the ObjectiveEvaluator with the constraints to enforce.
+	 */
+	public AssignmentProblem(final TMNetlist netlist, final List<Gate> gateLibrary, final ObjectiveEvaluator evaluator) {
+		super();
+		TMSchedule schedule = netlist.getSchedule();
+		this.schedule = schedule;
+		this.rows = netlist.getNumRows();
+		this.numNodes = schedule.getNumNodes();
+
+		// logic nodes in topological order
+		this.position = new int[numNodes];
+		List<Integer> logic = new ArrayList<>();
+		for (int p = 0; p < numNodes; p++) {
+			int idx = schedule.getNodeAt(p);
+			position[idx] = -1;
+			if (netlist.getVertexAtIdx(idx).getRole() == NodeRole.LOGIC) {
+				position[idx] = logic.size();
+				logic.add(idx);
+			}
+		}
+		this.logicNodes = new int[logic.size()];
+		for (int i = 0; i < logicNodes.length; i++) {
+			logicNodes[i] = logic.get(i);
+		}
+
+		// outputs and the rows in which they are on
+		this.outputs = netlist.getOutputIdx();
+		this.outputGates = new Gate[outputs.length];
+		this.on = new boolean[outputs.length][rows];
+		for (int k = 0; k < outputs.length; k++) {
+			TMNode node = netlist.getVertexAtIdx(outputs[k]);
+			outputGates[k] = node.getGate();
+			for (int i = 0; i < rows; i++) {
+				on[k][i] = LogicSimulator.getLogicBit(node.getLogicMask(),i);
+			}
+		}
+
+		// gates and their groups, a gate without a group is its own group
+		this.gates = gateLibrary.toArray(new Gate[gateLibrary.size()]);
+		this.groups = new int[gates.length];
+		Map<String,Integer> groupIds = new HashMap<>();
+		for (int g = 0; g < gates.length; g++) {
+			String group = gates[g].getGroup();
+			if (group == null) {
+				groups[g] = groupIds.size();
+				groupIds.put("\0" + g,groups[g]);
+			} else {
+				Integer id = groupIds.get(group);
+				if (id == null) {
+					id = groupIds.size();
+					groupIds.put(group,id);
+				}
+				groups[g] = id;
+			}
+		}
+		this.numGroups = groupIds.size();
+
+		// input activities are fixed
+		this.inputActivity = netlist.getActivityMatrix().clone();
+
+		// constraints
+		this.checkToxicity = evaluator.getCheckToxicity();
+		this.toxicityThreshold = evaluator.getToxicityThreshold();
+		this.checkRoadblocks = evaluator.getCheckRoadblocks();
+		if (checkRoadblocks) {
+			this.compileRoadblocks(netlist,evaluator.getRoadblockChecker());
+		}
+
+		this.compileResponses();
+	}
+
+	/**
+	 * Compute the lowest and highest response of every gate at every
+	 * unassigned position and row, over the input interval reachable when
+	 * no node is assigned, and sort the gates by each of them. Assigning
+	 * nodes and using up groups only narrows the reachable intervals, so
+	 * these responses bound those of any partial assignment.
+	 */
+	private void compileResponses() {
+		int num = gates.length;
+		double[] lo = new double[inputActivity.length];
+		double[] hi = new double[inputActivity.length];
+		this.initActivity(lo,hi);
+		this.lowGates = new int[logicNodes.length * rows * num];
+		this.lowResponses = new double[logicNodes.length * rows * num];
+		this.highGates = new int[logicNodes.length * rows * num];
+		this.highResponses = new double[logicNodes.length * rows * num];
+		double[] low = new double[num];
+		double[] high = new double[num];
+		Integer[] order = new Integer[num];
+		for (int p = 0; p < logicNodes.length; p++) {
+			int offset = logicNodes[p] * rows;
+			for (int i = 0; i < rows; i++) {
+				double sumLo = this.sumInputs(logicNodes[p],i,lo);
+				double sumHi = this.sumInputs(logicNodes[p],i,hi);
+				for (int g = 0; g < num; g++) {
+					double a = gates[g].getResponseFunction().applyAsDouble(sumLo);
+					double b = gates[g].getResponseFunction().applyAsDouble(sumHi);
+					low[g] = Math.min(a,b);
+					high[g] = Math.max(a,b);
+					order[g] = g;
+				}
+				int base = (p * rows + i) * num;
+				Arrays.sort(order,(x,y) -> Double.compare(low[x],low[y]));
+				for (int k = 0; k < num; k++) {
+					lowGates[base + k] = order[k];
+					lowResponses[base + k] = low[order[k]];
+				}
+				Arrays.sort(order,(x,y) -> Double.compare(high[y],high[x]));
+				for (int k = 0; k < num; k++) {
+					highGates[base + k] = order[k];
+					highResponses[base + k] = high[order[k]];
+				}
+				lo[offset + i] = lowResponses[base];
+				hi[offset + i] = highResponses[base];
+			}
+		}
+	}
+
+	/**
+	 * Compile roadblock flags, and the nodes whose roadblock status is
+	 * known once the logic node at each position is assigned.
+	 *
+	 * @param netlist the TMNetlist.
+	 * @param checker the RoadblockChecker with the roadblock sets.
+	 */
+	private void compileRoadblocks(final TMNetlist netlist, final RoadblockChecker checker) {
+		this.gateFlags = new int[gates.length];
+		for (int g = 0; g < gates.length; g++) {
+			gateFlags[g] = checker.getFlags(gates[g]);
+		}
+		this.nodeFlags = new int[numNodes];
+		List<List<Integer>> checks = new ArrayList<>();
+		for (int p = 0; p < logicNodes.length; p++) {
+			checks.add(new ArrayList<>());
+		}
+		for (int idx = 0; idx < numNodes; idx++) {
+			TMNode node = netlist.getVertexAtIdx(idx);
+			if (node.getRole() == NodeRole.INPUT) {
+				nodeFlags[idx] = checker.getFlags(node.getGate());
+				continue;
+			}
+			int last = -1;
+			for (int j = 0; j < schedule.getNumIn(idx); j++) {
+				last = Math.max(last,position[schedule.getIn(idx,j)]);
+			}
+			if (last >= 0) {
+				checks.get(last).add(idx);
+			}
+		}
+		for (int idx = 0; idx < numNodes; idx++) {
+			if (netlist.getVertexAtIdx(idx).getRole() != NodeRole.INPUT && this.isRoadblock(idx,null)) {
+				throw new RuntimeException("Roadblock at node " + netlist.getVertexAtIdx(idx).getName()
+						+ " does not depend on the gate assignment.");
+			}
+		}
+		this.checks = new int[logicNodes.length][];
+		for (int p = 0; p < logicNodes.length; p++) {
+			this.checks[p] = new int[checks.get(p).size()];
+			for (int i = 0; i < this.checks[p].length; i++) {
+				this.checks[p][i] = checks.get(p).get(i);
+			}
+		}
+	}
+
+	/**
+	 * Whether a node is a roadblock, given the gates of the logic nodes
+	 * that drive it.
+	 *
+	 * @param idx the index of the node.
+	 * @param assignment the gate at each position, null if none are assigned.
+	 * @return true if the node is a roadblock.
+	 */
+	private boolean isRoadblock(final int idx, final int[] assignment) {
+		int numInputRoadblocks = 0;
+		int numLogicRoadblocks = 0;
+		for (int j = 0; j < schedule.getNumIn(idx); j++) {
+			int src = schedule.getIn(idx,j);
+			int flags = nodeFlags[src];
+			if (position[src] >= 0) {
+				flags = (assignment == null) ? 0 : gateFlags[assignment[position[src]]];
+			}
+			numInputRoadblocks += flags & RoadblockChecker.INPUT_ROADBLOCK;
+			numLogicRoadblocks += (flags & RoadblockChecker.LOGIC_ROADBLOCK) >>> 1;
+		}
+		return RoadblockChecker.isRoadblock(numInputRoadblocks,numLogicRoadblocks);
+	}
+
+	/**
+	 * Initialize activity bounds with the fixed input activities.
+	 *
+	 * @param lo the lower activity bounds.
+	 * @param hi the upper activity bounds.
+	 */
+	public void initActivity(final double[] lo, final double[] hi) {
+		System.arraycopy(inputActivity,0,lo,0,inputActivity.length);
+		System.arraycopy(inputActivity,0,hi,0,inputActivity.length);
+	}
+
+	/**
+	 * Assign a gate at a position whose predecessors are assigned, and
+	 * compute the exact activity of its node and the growth so far.
+	 *
+	 * @param p the position.
+	 * @param g the index of the gate.
+	 * @param assignment the gate at each position.
+	 * @param lo the lower activity bounds.
+	 * @param hi the upper activity bounds.
+	 * @param growth the growth of the first p positions, rows wide.
+	 * @param growthOffset the offset of growth.
+	 * @param dst the destination of the growth of the first p+1 positions.
+	 * @param dstOffset the offset of dst.
+	 * @return false if the assignment violates a constraint.
+	 */
+	public boolean assign(final int p, final int g, final int[] assignment, final double[] lo, final double[] hi,
+			final double[] growth, final int growthOffset, final double[] dst, final int dstOffset) {
+		assignment[p] = g;
+		int idx = logicNodes[p];
+		int offset = idx * rows;
+		Gate gate = gates[g];
+		Toxicity toxicity = gate.getToxicity();
+		double minGrowth = 1.0;
+		for (int i = 0; i < rows; i++) {
+			double sum = this.sumInputs(idx,i,lo);
+			double a = gate.getResponseFunction().applyAsDouble(sum);
+			lo[offset + i] = a;
+			hi[offset + i] = a;
+			double t = 1.0;
+			if (toxicity != null) {
+				t = ToxicitySimulator.clampGrowth(toxicity.getGrowth(sum));
+			}
+			dst[dstOffset + i] = growth[growthOffset + i] * t;
+			minGrowth = Math.min(minGrowth,dst[dstOffset + i]);
+		}
+		if (checkToxicity && Math.max(minGrowth,ToxicitySimulator.MIN_TOXICITY) <= toxicityThreshold) {
+			return false;
+		}
+		if (checkRoadblocks) {
+			for (int node : checks[p]) {
+				if (this.isRoadblock(node,assignment)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Bound the score of any completion of the first n positions. Once
+	 * every position is assigned the bound is the score.
+	 *
+	 * @param n the number of assigned positions.
+	 * @param groupUsed whether each group is used by the first n positions.
+	 * @param numGroupsUsed the number of groups used.
+	 * @param lo the lower activity bounds, updated for unassigned nodes and outputs.
+	 * @param hi the upper activity bounds, updated for unassigned nodes and outputs.
+	 * @return an upper bound of the score, or negative infinity if there
+	 * are not enough groups left to complete the assignment.
+	 */
+	public double getBound(final int n, final boolean[] groupUsed, final int numGroupsUsed,
+			final double[] lo, final double[] hi) {
+		if (numGroups - numGroupsUsed < logicNodes.length - n) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		// the first gates of unused groups in the sorted responses, which
+		// exist since there are enough groups left
+		for (int p = n; p < logicNodes.length; p++) {
+			int offset = logicNodes[p] * rows;
+			for (int i = 0; i < rows; i++) {
+				int base = (p * rows + i) * gates.length;
+				int k = base;
+				while (groupUsed[groups[lowGates[k]]]) {
+					k++;
+				}
+				lo[offset + i] = lowResponses[k];
+				k = base;
+				while (groupUsed[groups[highGates[k]]]) {
+					k++;
+				}
+				hi[offset + i] = highResponses[k];
+			}
+		}
+		double rtn = Double.MAX_VALUE;
+		for (int k = 0; k < outputs.length; k++) {
+			int idx = outputs[k];
+			double lowestOn = Double.MAX_VALUE;
+			double highestOff = Double.MIN_VALUE;
+			for (int i = 0; i < rows; i++) {
+				double a = outputGates[k].getResponseFunction().applyAsDouble(this.sumInputs(idx,i,lo));
+				double b = outputGates[k].getResponseFunction().applyAsDouble(this.sumInputs(idx,i,hi));
+				if (on[k][i]) {
+					lowestOn = Math.min(lowestOn,Math.max(a,b));
+				} else {
+					highestOff = Math.max(highestOff,Math.min(a,b));
+				}
+			}
+			rtn = Math.min(rtn,lowestOn / highestOff);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Sum the activities of the inputs of a node in one row, in the same
+	 * order as the ActivitySimulator.
+	 */
+	private double sumInputs(final int idx, final int row, final double[] activity) {
+		double rtn = activity[schedule.getIn(idx,0) * rows + row];
+		for (int j = 1; j < schedule.getNumIn(idx); j++) {
+			rtn += activity[schedule.getIn(idx,j) * rows + row];
+		}
+		return rtn;
+	}
+
+	/**
+	 * @return the number of logic nodes to assign
+	 */
+	public int getNumPositions() {
+		return logicNodes.length;
+	}
+
+	/**
+	 * @param p the position.
+	 * @return the index of the logic node at a position
+	 */
+	public int getNodeAt(final int p) {
+		return logicNodes[p];
+	}
+
+	/**
+	 * @return the number of gates
+	 */
+	public int getNumGates() {
+		return gates.length;
+	}
+
+	/**
+	 * @param g the index of the gate.
+	 * @return the gate
+	 */
+	public Gate getGate(final int g) {
+		return gates[g];
+	}
+
+	/**
+	 * @param g the index of the gate.
+	 * @return the group of the gate
+	 */
+	public int getGroup(final int g) {
+		return groups[g];
+	}
+
+	/**
+	 * @return the number of groups
+	 */
+	public int getNumGroups() {
+		return numGroups;
+	}
+
+	/**
+	 * @return the number of nodes
+	 */
+	public int getNumNodes() {
+		return numNodes;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int getNumRows() {
+		return rows;
+	}
+
+	private TMSchedule schedule;
+	private int rows;
+	private int numNodes;
+	private int[] position;
+	private int[] logicNodes;
+	private int[] outputs;
+	private Gate[] outputGates;
+	private boolean[][] on;
+	private Gate[] gates;
+	private int[] groups;
+	private int numGroups;
+	private double[] inputActivity;
+
+	private boolean checkToxicity;
+	private double toxicityThreshold;
+	private boolean checkRoadblocks;
+	private int[] gateFlags;
+	private int[] nodeFlags;
+	private int[][] checks;
+
+	// responses over the reachable inputs, by position, row and rank
+	private int[] lowGates;
+	private double[] lowResponses;
+	private int[] highGates;
+	private double[] highResponses;
+
+}
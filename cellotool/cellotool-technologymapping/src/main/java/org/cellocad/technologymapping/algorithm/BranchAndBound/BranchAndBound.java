@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.BranchAndBound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cellocad.common.Pair;
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.SimulatedAnnealing;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+
+/**
+ * Exact branch-and-bound gate assignment for small circuits. Logic nodes
+ * are assigned in topological order, and a partial assignment is pruned
+ * as soon as it violates group exclusivity, roadblocks or the toxicity
+ * threshold, or its score bound from activity intervals does not exceed
+ * the best score found so far. Subtrees are searched in parallel and
+ * share the best score. Circuits with more than max_logic_gates logic
+ * nodes are mapped with SimulatedAnnealing instead.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class BranchAndBound extends SimulatedAnnealing{
+
+	@Override
+	protected void setDefaultParameterValues() {
+		super.setDefaultParameterValues();
+		this.setMaxLogicGates(10);
+	}
+
+	@Override
+	protected void setParameterValues() {
+		super.setParameterValues();
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("max_logic_gates");
+			if (param.getFirst()) {this.setMaxLogicGates(param.getSecond());}
+		} catch (NullPointerException e) {}
+	}
+
+	@Override
+	protected void validateParameterValues() {
+		super.validateParameterValues();
+		if (this.getMaxLogicGates() < 0) {
+			throw new RuntimeException("Invalid maximum number of logic gates.");
+		}
+		if (this.getScoring().equalsIgnoreCase(SCORING_CYTOMETRY)) {
+			throw new RuntimeException("Cytometry scoring is not supported by BranchAndBound.");
+		}
+		if (this.getRowSampleSize() > 0) {
+			throw new RuntimeException("Row sampling is not supported by BranchAndBound.");
+		}
+	}
+
+	@Override
+	protected void run() {
+		int numLogic = this.getTMNetlist().getLogicIdx().length;
+		if (numLogic > this.getMaxLogicGates()) {
+			logInfo(numLogic + " logic gates is more than " + this.getMaxLogicGates()
+					+ ", falling back to simulated annealing");
+			super.run();
+			return;
+		}
+		logInfo("begin branch and bound");
+		logInfo("threads: " + this.getNumThreads().toString());
+
+		this.setDeadline(this.getTimeBudget() > 0
+				? System.nanoTime() + this.getTimeBudget() * 1000000L
+				: Long.MAX_VALUE);
+		this.bestScore = Double.NEGATIVE_INFINITY;
+		this.bestAssignment = null;
+
+		TMNetlist netlist = new TMNetlist(this.getTMNetlist());
+		ObjectiveEvaluator evaluator = this.createObjectiveEvaluator(netlist);
+		AssignmentProblem problem = new AssignmentProblem(netlist,this.getGateLibrary(),evaluator);
+
+		// split the tree into enough subtrees to keep every thread busy
+		SubtreeSearch root = new SubtreeSearch(problem,this,new int[0]);
+		List<int[]> prefixes = root.getPrefixes(0);
+		for (int k = 1; k <= problem.getNumPositions() && prefixes.size() < SUBTREES_PER_THREAD * this.getNumThreads(); k++) {
+			prefixes = root.getPrefixes(k);
+		}
+
+		long numVisited = 0;
+		long numPruned = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(this.getNumThreads());
+		try {
+			List<Future<SubtreeSearch>> futures = new ArrayList<>();
+			for (int[] prefix : prefixes) {
+				futures.add(executor.submit(() -> {
+					SubtreeSearch search = new SubtreeSearch(problem,this,prefix);
+					search.run();
+					return search;
+				}));
+			}
+			for (Future<SubtreeSearch> future : futures) {
+				SubtreeSearch search = future.get();
+				numVisited += search.getNumVisited();
+				numPruned += search.getNumPruned();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Branch and bound was interrupted.");
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Error in branch and bound subtree.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		logInfo("subtrees: " + prefixes.size() + ", nodes visited: " + numVisited + ", children pruned: " + numPruned);
+		if (this.bestAssignment == null) {
+			throw new RuntimeException("No valid assignment was found.");
+		}
+		if (this.isExpired()) {
+			logInfo("time budget expired, the assignment may not be optimal");
+		}
+
+		for (int p = 0; p < problem.getNumPositions(); p++) {
+			netlist.getVertexAtIdx(problem.getNodeAt(p)).setGate(problem.getGate(this.bestAssignment[p]));
+		}
+		evaluator.simulate();
+		Objective objective = evaluator.evaluate();
+
+		this.setTMNetlist(netlist);
+		logInfo("top score: " + objective.getScore());
+	}
+
+	/**
+	 * Record a complete assignment if it is better than the best so far.
+	 *
+	 * @param score the score of the assignment.
+	 * @param assignment the gate at each position.
+	 */
+	synchronized void offer(final double score, final int[] assignment) {
+		if (score > this.bestScore) {
+			this.bestScore = score;
+			this.bestAssignment = assignment.clone();
+		}
+	}
+
+	/**
+	 * @return the best score found so far by any subtree
+	 */
+	double getBestScore() {
+		return this.bestScore;
+	}
+
+	/* Getter & Setter */
+
+	/**
+	 * @return the largest number of logic gates searched exactly
+	 */
+	protected Integer getMaxLogicGates() {
+		return maxLogicGates;
+	}
+
+	/**
+	 * @param maxLogicGates the largest number of logic gates searched exactly
+	 */
+	protected void setMaxLogicGates(final Integer maxLogicGates) {
+		this.maxLogicGates = maxLogicGates;
+	}
+
+	private static final int SUBTREES_PER_THREAD = 4;
+
+	private Integer maxLogicGates;
+	private volatile double bestScore;
+	private int[] bestAssignment;
+
+}
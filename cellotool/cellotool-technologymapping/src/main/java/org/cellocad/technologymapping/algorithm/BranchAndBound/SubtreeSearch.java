@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.BranchAndBound;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cellocad.common.CObject;
+
+/**
+ * Depth-first search of the assignments that extend a prefix. Children
+ * are visited in order of decreasing bound, and a child is pruned once
+ * its bound does not exceed the best score found by any search.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class SubtreeSearch extends CObject{
+
+	/**
+	 * Create a new SubtreeSearch.
+	 *
+	 * @param problem the compiled assignment problem.
+	 * @param algorithm the BranchAndBound algorithm holding the best score so far.
+	 * @param prefix the gates assigned at the first positions, which must satisfy the constraints.
+	 */
+	public SubtreeSearch(final AssignmentProblem problem, final BranchAndBound algorithm, final int[] prefix) {
+		super();
+		this.problem = problem;
+		this.algorithm = algorithm;
+		int n = problem.getNumPositions();
+		int rows = problem.getNumRows();
+		this.assignment = new int[n];
+		Arrays.fill(assignment,-1);
+		this.groupUsed = new boolean[problem.getNumGroups()];
+		this.lo = new double[problem.getNumNodes() * rows];
+		this.hi = new double[problem.getNumNodes() * rows];
+		this.growth = new double[(n + 1) * rows];
+		this.children = new int[n][problem.getNumGates()];
+		this.bounds = new double[n][problem.getNumGates()];
+		Arrays.fill(growth,0,rows,1.0);
+		problem.initActivity(lo,hi);
+		for (int p = 0; p < prefix.length; p++) {
+			problem.assign(p,prefix[p],assignment,lo,hi,growth,p * rows,growth,(p + 1) * rows);
+			this.use(prefix[p],true);
+		}
+		this.depth = prefix.length;
+	}
+
+	/**
+	 * Collect the prefixes of a given length that extend the prefix of
+	 * this search and satisfy the constraints.
+	 *
+	 * @param length the length of the prefixes.
+	 * @return the prefixes.
+	 */
+	public List<int[]> getPrefixes(final int length) {
+		List<int[]> rtn = new ArrayList<>();
+		this.collectPrefixes(this.depth,length,rtn);
+		return rtn;
+	}
+
+	private void collectPrefixes(final int p, final int length, final List<int[]> rtn) {
+		if (p == length) {
+			rtn.add(Arrays.copyOf(assignment,length));
+			return;
+		}
+		int rows = problem.getNumRows();
+		for (int g = 0; g < problem.getNumGates(); g++) {
+			if (groupUsed[problem.getGroup(g)]) {
+				continue;
+			}
+			if (problem.assign(p,g,assignment,lo,hi,growth,p * rows,growth,(p + 1) * rows)) {
+				this.use(g,true);
+				this.collectPrefixes(p + 1,length,rtn);
+				this.use(g,false);
+			}
+			assignment[p] = -1;
+		}
+	}
+
+	/**
+	 * Search the subtree, offering complete assignments to the algorithm.
+	 */
+	public void run() {
+		this.search(this.depth);
+	}
+
+	private void search(final int p) {
+		int n = problem.getNumPositions();
+		int rows = problem.getNumRows();
+		numVisited++;
+		if (p == n) {
+			double score = problem.getBound(n,groupUsed,numGroupsUsed,lo,hi);
+			algorithm.offer(score,assignment);
+			return;
+		}
+		if (algorithm.isExpired()) {
+			return;
+		}
+
+		// bound every feasible child before descending into the best ones
+		int num = 0;
+		int[] children = this.children[p];
+		double[] bounds = this.bounds[p];
+		for (int g = 0; g < problem.getNumGates(); g++) {
+			if (groupUsed[problem.getGroup(g)]) {
+				continue;
+			}
+			if (problem.assign(p,g,assignment,lo,hi,growth,p * rows,growth,(p + 1) * rows)) {
+				this.use(g,true);
+				double bound = problem.getBound(p + 1,groupUsed,numGroupsUsed,lo,hi);
+				this.use(g,false);
+				if (bound > algorithm.getBestScore()) {
+					children[num] = g;
+					bounds[num] = bound;
+					num++;
+				} else {
+					numPruned++;
+				}
+			} else {
+				numPruned++;
+			}
+		}
+		assignment[p] = -1;
+
+		// insertion sort by decreasing bound, there are few children
+		for (int i = 1; i < num; i++) {
+			int g = children[i];
+			double bound = bounds[i];
+			int j = i - 1;
+			for (; j >= 0 && bounds[j] < bound; j--) {
+				children[j + 1] = children[j];
+				bounds[j + 1] = bounds[j];
+			}
+			children[j + 1] = g;
+			bounds[j + 1] = bound;
+		}
+
+		for (int i = 0; i < num; i++) {
+			if (bounds[i] <= algorithm.getBestScore()) {
+				numPruned += num - i;
+				break;
+			}
+			int g = children[i];
+			problem.assign(p,g,assignment,lo,hi,growth,p * rows,growth,(p + 1) * rows);
+			this.use(g,true);
+			this.search(p + 1);
+			this.use(g,false);
+		}
+		assignment[p] = -1;
+	}
+
+	private void use(final int g, final boolean used) {
+		groupUsed[problem.getGroup(g)] = used;
+		numGroupsUsed += used ? 1 : -1;
+	}
+
+	/**
+	 * @return the number of search nodes visited
+	 */
+	public long getNumVisited() {
+		return numVisited;
+	}
+
+	/**
+	 * @return the number of children pruned
+	 */
+	public long getNumPruned() {
+		return numPruned;
+	}
+
+	private AssignmentProblem problem;
+	private BranchAndBound algorithm;
+	private int depth;
+	private int[] assignment;
+	private boolean[] groupUsed;
+	private int numGroupsUsed;
+	private double[] lo;
+	private double[] hi;
+	private double[] growth;
+	// children of the node at each depth, and their bounds
+	private int[][] children;
+	private double[][] bounds;
+	private long numVisited;
+	private long numPruned;
+
+}
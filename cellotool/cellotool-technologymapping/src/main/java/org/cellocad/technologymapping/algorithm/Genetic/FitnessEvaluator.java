@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.Genetic;
+
+import java.util.List;
+
+import org.cellocad.common.CObject;
+import org.cellocad.technologymapping.common.score.BatchEvaluator;
+import org.cellocad.technologymapping.common.score.Objective;
+
+/**
+ * Evaluates the individuals of a population owned by one thread with a
+ * BatchEvaluator. Individuals are evaluated in chunks, and the time
+ * budget of the algorithm is checked before each chunk, so a thread
+ * stops within one chunk of the deadline.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class FitnessEvaluator extends CObject{
+
+	/**
+	 * Create a new FitnessEvaluator.
+	 *
+	 * @param evaluator the BatchEvaluator of the netlist.
+	 * @param algorithm the Genetic algorithm holding the time budget.
+	 */
+	public FitnessEvaluator(final BatchEvaluator evaluator, final Genetic algorithm) {
+		super();
+		this.evaluator = evaluator;
+		this.algorithm = algorithm;
+	}
+
+	/**
+	 * Evaluate individuals that do not have an Objective yet.
+	 *
+	 * @param individuals the individuals.
+	 * @param checkExpired whether to stop once the time budget has been used up.
+	 * @return false if the time budget ran out before every individual was evaluated.
+	 */
+	public boolean evaluate(final List<Individual> individuals, final boolean checkExpired) {
+		int num = 0;
+		int[][] candidates = new int[CHUNK_SIZE][];
+		Individual[] pending = new Individual[CHUNK_SIZE];
+		for (int i = 0; i <= individuals.size(); i++) {
+			if (num == CHUNK_SIZE || (i == individuals.size() && num > 0)) {
+				if (checkExpired && algorithm.isExpired()) {
+					return false;
+				}
+				Objective[] objectives = evaluator.evaluate(candidates,num);
+				for (int c = 0; c < num; c++) {
+					pending[c].setObjective(objectives[c]);
+				}
+				num = 0;
+			}
+			if (i < individuals.size() && individuals.get(i).getObjective() == null) {
+				candidates[num] = individuals.get(i).getGenes();
+				pending[num] = individuals.get(i);
+				num++;
+			}
+		}
+		return true;
+	}
+
+	private static final int CHUNK_SIZE = 16;
+
+	private BatchEvaluator evaluator;
+	private Genetic algorithm;
+
+}
@@ -0,0 +1,464 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.Genetic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cellocad.common.Pair;
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.SimulatedAnnealing;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.ZobristTable;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.BatchEvaluator;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveCache;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.data.Gate;
+
+/**
+ * Population-based genetic technology mapping. An assignment is a vector
+ * of gate library indices over the logic nodes. Crossover and mutation
+ * keep at most one gate of each group in a vector, like the moves of
+ * the Assigner, and the population of each generation is evaluated in
+ * parallel with one BatchEvaluator per thread. Objectives are looked up
+ * in and stored to the cache by the main thread in population order,
+ * so the result of a seed does not depend on the number of threads. A
+ * generation that runs out of time is dropped. The parameters, the
+ * constraints and the pre- and postprocessing are those of
+ * SimulatedAnnealing.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class Genetic extends SimulatedAnnealing{
+
+	@Override
+	protected void setDefaultParameterValues() {
+		super.setDefaultParameterValues();
+		this.setPopulationSize(100);
+		this.setNumGenerations(50);
+		this.setNumElites(2);
+		this.setMutationRate(0.1);
+	}
+
+	@Override
+	protected void setParameterValues() {
+		super.setParameterValues();
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("population");
+			if (param.getFirst()) {this.setPopulationSize(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("generations");
+			if (param.getFirst()) {this.setNumGenerations(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("elitism");
+			if (param.getFirst()) {this.setNumElites(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Double> param = this.getAlgorithmProfile().getDoubleParameter("mutation_rate");
+			if (param.getFirst()) {this.setMutationRate(param.getSecond());}
+		} catch (NullPointerException e) {}
+	}
+
+	@Override
+	protected void validateParameterValues() {
+		super.validateParameterValues();
+		if (this.getPopulationSize() < 2) {
+			throw new RuntimeException("Invalid population size.");
+		}
+		if (this.getNumGenerations() < 0) {
+			throw new RuntimeException("Invalid number of generations.");
+		}
+		if (this.getNumElites() < 0 || this.getNumElites() >= this.getPopulationSize()) {
+			throw new RuntimeException("Invalid number of elites.");
+		}
+		if (this.getMutationRate() < 0 || this.getMutationRate() > 1) {
+			throw new RuntimeException("Invalid mutation rate.");
+		}
+		if (this.getScoring().equalsIgnoreCase(SCORING_CYTOMETRY)) {
+			throw new RuntimeException("Cytometry scoring is not supported by Genetic.");
+		}
+		if (this.getRowSampleSize() > 0) {
+			throw new RuntimeException("Row sampling is not supported by Genetic.");
+		}
+	}
+
+	@Override
+	protected void run() {
+		logInfo("begin genetic algorithm");
+		logInfo("seed: " + this.getSeed().toString() + ", threads: " + this.getNumThreads().toString());
+
+		this.setDeadline(this.getTimeBudget() > 0
+				? System.nanoTime() + this.getTimeBudget() * 1000000L
+				: Long.MAX_VALUE);
+		this.setZobristTable(new ZobristTable(this.getTMNetlist(),this.getGateLibrary()));
+		this.setObjectiveCache(new ObjectiveCache(this.getCacheSize()));
+
+		// genes index the gate library, groups are numbered in order of appearance
+		this.gates = this.getGateLibrary().toArray(new Gate[this.getGateLibrary().size()]);
+		this.groups = new int[gates.length];
+		this.gateNums = new HashMap<>();
+		Map<String,Integer> groupIds = new HashMap<>();
+		for (int g = 0; g < gates.length; g++) {
+			gateNums.put(gates[g].getName(),g);
+			String group = gates[g].getGroup() == null ? "\0" + g : gates[g].getGroup();
+			groupIds.putIfAbsent(group,groupIds.size());
+			groups[g] = groupIds.get(group);
+		}
+		this.numGroups = groupIds.size();
+		this.logicIdx = this.getTMNetlist().getLogicIdx();
+
+		Random random = new Random(this.getSeed());
+		List<Individual> population = new ArrayList<>();
+		for (int i = 0; i < this.getPopulationSize(); i++) {
+			population.add(this.createRandomIndividual(random));
+		}
+
+		// one batch evaluator per thread, each evaluating a slice of the population
+		List<FitnessEvaluator> evaluators = new ArrayList<>();
+		for (int k = 0; k < this.getNumThreads(); k++) {
+			BatchEvaluator evaluator = this.createBatchEvaluator(this.getTMNetlist());
+			evaluators.add(new FitnessEvaluator(evaluator,this));
+		}
+
+		int generation = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(this.getNumThreads());
+		try {
+			this.evaluate(executor,evaluators,population,false);
+			this.sort(population);
+			for (; generation < this.getNumGenerations(); generation++) {
+				List<Individual> next = new ArrayList<>(population.subList(0,this.getNumElites()));
+				while (next.size() < this.getPopulationSize()) {
+					Individual a = this.select(population,random);
+					Individual b = this.select(population,random);
+					int[] genes = this.crossover(a.getGenes(),b.getGenes(),random);
+					this.mutate(genes,random);
+					next.add(new Individual(genes));
+				}
+				if (!this.evaluate(executor,evaluators,next,true)) {
+					break;
+				}
+				this.sort(next);
+				population = next;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Genetic algorithm was interrupted.");
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Error in genetic algorithm evaluation.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		logInfo("completed " + generation + " of " + this.getNumGenerations() + " generations");
+		logInfo("cache hits: " + this.getObjectiveCache().getNumHits()
+				+ ", misses: " + this.getObjectiveCache().getNumMisses());
+
+		// the fittest individual, simulated on a fresh netlist
+		TMNetlist netlist = this.createTMNetlist(population.get(0).getGenes());
+		ObjectiveEvaluator evaluator = this.createObjectiveEvaluator(netlist);
+		evaluator.simulate();
+		Objective objective = evaluator.evaluate();
+		if (!evaluator.isValid(objective)) {
+			logInfo("no valid assignment was found");
+		}
+
+		this.setTMNetlist(netlist);
+		logInfo("top score: " + objective.getScore());
+	}
+
+	/**
+	 * Create a BatchEvaluator for a netlist, with the roadblock and
+	 * toxicity checks of this algorithm.
+	 *
+	 * @param netlist the netlist to evaluate.
+	 * @return the BatchEvaluator.
+	 */
+	protected BatchEvaluator createBatchEvaluator(final TMNetlist netlist) {
+		BatchEvaluator rtn = new BatchEvaluator(netlist,this.getGateLibrary());
+		rtn.setCheckToxicity(this.getCheckToxicity());
+		rtn.setCheckRoadblocks(this.getCheckRoadblocks());
+		rtn.getRoadblockChecker().setInputRoadblocks(this.getInputRoadblocks());
+		rtn.getRoadblockChecker().setLogicRoadblocks(this.getLogicRoadblocks());
+		return rtn;
+	}
+
+	/**
+	 * Create an individual from an initial assignment made by an Assigner.
+	 *
+	 * @param random the random number generator.
+	 * @return the individual.
+	 */
+	public Individual createRandomIndividual(final Random random) {
+		TMNetlist netlist = new TMNetlist(this.getTMNetlist());
+		Assigner assigner = new Assigner(netlist);
+		assigner.setGateLibrary(this.getGateLibrary());
+		assigner.setRandom(random);
+		this.doInitialAssignment(assigner);
+		int[] genes = new int[logicIdx.length];
+		for (int p = 0; p < logicIdx.length; p++) {
+			genes[p] = gateNums.get(netlist.getVertexAtIdx(logicIdx[p]).getGate().getName());
+		}
+		return new Individual(genes);
+	}
+
+	/**
+	 * Create a netlist with the gates of a vector of genes assigned to its
+	 * logic nodes. The netlist must be simulated afterwards.
+	 *
+	 * @param genes the genes.
+	 * @return the netlist.
+	 */
+	public TMNetlist createTMNetlist(final int[] genes) {
+		TMNetlist rtn = new TMNetlist(this.getTMNetlist());
+		for (int p = 0; p < logicIdx.length; p++) {
+			rtn.getVertexAtIdx(logicIdx[p]).setGate(gates[genes[p]]);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Evaluate a population in parallel, one slice per evaluator. The
+	 * cache is only used here, before and after the parallel part, so
+	 * that its contents do not depend on the order in which threads run.
+	 *
+	 * @param checkExpired whether to stop once the time budget has been used up.
+	 * @return false if the time budget ran out before every individual was evaluated.
+	 */
+	private boolean evaluate(final ExecutorService executor, final List<FitnessEvaluator> evaluators,
+			final List<Individual> population, final boolean checkExpired) throws InterruptedException, ExecutionException {
+		TMNetlist netlist = this.getTMNetlist();
+		List<Individual> pending = new ArrayList<>();
+		List<Long> hashes = new ArrayList<>();
+		for (Individual individual : population) {
+			if (individual.getObjective() != null) {
+				continue;
+			}
+			int[] genes = individual.getGenes();
+			long hash = 0;
+			for (int p = 0; p < genes.length; p++) {
+				hash ^= this.getZobristTable().getKey(netlist.getVertexAtIdx(logicIdx[p]),gates[genes[p]]);
+			}
+			Objective objective = this.getObjectiveCache().get(hash);
+			if (objective != null) {
+				individual.setObjective(objective);
+			} else {
+				pending.add(individual);
+				hashes.add(hash);
+			}
+		}
+
+		List<Future<Boolean>> futures = new ArrayList<>();
+		int num = evaluators.size();
+		for (int k = 0; k < num; k++) {
+			List<Individual> slice = pending.subList(k * pending.size() / num, (k + 1) * pending.size() / num);
+			FitnessEvaluator evaluator = evaluators.get(k);
+			futures.add(executor.submit(() -> evaluator.evaluate(slice,checkExpired)));
+		}
+		boolean rtn = true;
+		for (Future<Boolean> future : futures) {
+			rtn &= future.get();
+		}
+		if (!rtn) {
+			return rtn;
+		}
+
+		for (int i = 0; i < pending.size(); i++) {
+			this.getObjectiveCache().put(hashes.get(i),pending.get(i).getObjective());
+		}
+		return rtn;
+	}
+
+	/**
+	 * Sort a population from the fittest individual to the least fit.
+	 */
+	private void sort(final List<Individual> population) {
+		population.sort((a,b) -> this.compare(b.getObjective(),a.getObjective()));
+	}
+
+	/**
+	 * Select the fittest of a few random individuals.
+	 */
+	private Individual select(final List<Individual> population, final Random random) {
+		Individual rtn = population.get(random.nextInt(population.size()));
+		for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+			Individual other = population.get(random.nextInt(population.size()));
+			if (this.compare(other.getObjective(),rtn.getObjective()) > 0) {
+				rtn = other;
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Uniform crossover that takes the gene of either parent at each logic
+	 * node, unless its group is already used, and fills the logic nodes
+	 * left without a gene from unused groups.
+	 *
+	 * @param a the genes of the first parent.
+	 * @param b the genes of the second parent.
+	 * @param random the random number generator.
+	 * @return the genes of the child.
+	 */
+	public int[] crossover(final int[] a, final int[] b, final Random random) {
+		int[] rtn = new int[a.length];
+		boolean[] used = new boolean[numGroups];
+		for (int p = 0; p < a.length; p++) {
+			int first = random.nextBoolean() ? a[p] : b[p];
+			int second = (first == a[p]) ? b[p] : a[p];
+			rtn[p] = -1;
+			if (!used[groups[first]]) {
+				rtn[p] = first;
+			} else if (!used[groups[second]]) {
+				rtn[p] = second;
+			}
+			if (rtn[p] >= 0) {
+				used[groups[rtn[p]]] = true;
+			}
+		}
+		for (int p = 0; p < rtn.length; p++) {
+			if (rtn[p] < 0) {
+				int num = 0;
+				int[] candidates = new int[gates.length];
+				for (int g = 0; g < gates.length; g++) {
+					if (!used[groups[g]]) {
+						candidates[num++] = g;
+					}
+				}
+				if (num == 0) {
+					throw new RuntimeException("Not enough gates in the library to cover the netlist.");
+				}
+				rtn[p] = candidates[random.nextInt(num)];
+				used[groups[rtn[p]]] = true;
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Mutate each gene with the mutation rate. A new gate whose group is
+	 * used at another logic node is swapped with it, otherwise it is
+	 * substituted.
+	 *
+	 * @param genes the genes to mutate in place.
+	 * @param random the random number generator.
+	 */
+	public void mutate(final int[] genes, final Random random) {
+		for (int p = 0; p < genes.length; p++) {
+			if (random.nextDouble() >= this.getMutationRate()) {
+				continue;
+			}
+			int g = random.nextInt(gates.length);
+			for (int q = 0; q < genes.length; q++) {
+				if (q != p && groups[genes[q]] == groups[g]) {
+					genes[q] = genes[p];
+					break;
+				}
+			}
+			genes[p] = g;
+		}
+	}
+
+	/* Getter & Setter */
+
+	/**
+	 * @return the number of individuals in the population
+	 */
+	protected Integer getPopulationSize() {
+		return populationSize;
+	}
+
+	/**
+	 * @param populationSize the number of individuals in the population
+	 */
+	protected void setPopulationSize(final Integer populationSize) {
+		this.populationSize = populationSize;
+	}
+
+	/**
+	 * @return the number of generations
+	 */
+	protected Integer getNumGenerations() {
+		return numGenerations;
+	}
+
+	/**
+	 * @param numGenerations the number of generations
+	 */
+	protected void setNumGenerations(final Integer numGenerations) {
+		this.numGenerations = numGenerations;
+	}
+
+	/**
+	 * @return the number of fittest individuals copied into the next generation
+	 */
+	protected Integer getNumElites() {
+		return numElites;
+	}
+
+	/**
+	 * @param numElites the number of fittest individuals copied into the next generation
+	 */
+	protected void setNumElites(final Integer numElites) {
+		this.numElites = numElites;
+	}
+
+	/**
+	 * @return the probability that a gene is mutated
+	 */
+	protected Double getMutationRate() {
+		return mutationRate;
+	}
+
+	/**
+	 * @param mutationRate the probability that a gene is mutated
+	 */
+	protected void setMutationRate(final Double mutationRate) {
+		this.mutationRate = mutationRate;
+	}
+
+	private static final int TOURNAMENT_SIZE = 3;
+
+	private Integer populationSize;
+	private Integer numGenerations;
+	private Integer numElites;
+	private Double mutationRate;
+
+	// compiled gate library
+	private Gate[] gates;
+	private int[] groups;
+	private int numGroups;
+	private Map<String,Integer> gateNums;
+	private int[] logicIdx;
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.Genetic;
+
+import org.cellocad.common.CObject;
+import org.cellocad.technologymapping.common.score.Objective;
+
+/**
+ * A gate assignment in a Genetic population, represented by the index in
+ * the gate library of the gate at each logic node, together with its
+ * Objective once it has been evaluated.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class Individual extends CObject{
+
+	/**
+	 * Create a new Individual.
+	 *
+	 * @param genes the index of the gate at each logic node.
+	 */
+	public Individual(final int[] genes) {
+		super();
+		this.setGenes(genes);
+	}
+
+	/**
+	 * @return the index of the gate at each logic node
+	 */
+	public int[] getGenes() {
+		return genes;
+	}
+
+	/**
+	 * @param genes the index of the gate at each logic node
+	 */
+	public void setGenes(final int[] genes) {
+		this.genes = genes;
+	}
+
+	/**
+	 * @return the Objective, null if the individual has not been evaluated
+	 */
+	public Objective getObjective() {
+		return objective;
+	}
+
+	/**
+	 * @param objective the Objective to set
+	 */
+	public void setObjective(final Objective objective) {
+		this.objective = objective;
+	}
+
+	private int[] genes;
+	private Objective objective;
+
+}
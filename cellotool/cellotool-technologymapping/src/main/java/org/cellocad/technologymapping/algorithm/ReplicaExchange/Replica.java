@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.ReplicaExchange;
+
+import java.util.Random;
+
+import org.cellocad.common.CObject;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+
+/**
+ * The state of one replica of a replica-exchange search: a working
+ * netlist with its Assigner and ObjectiveEvaluator, the Objective of
+ * the current assignment and the best valid assignment found so far.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class Replica extends CObject{
+
+	/**
+	 * Create a new Replica.
+	 *
+	 * @param assigner the Assigner of the working netlist.
+	 * @param evaluator the ObjectiveEvaluator of the working netlist.
+	 * @param random the random number generator of the replica.
+	 */
+	public Replica(final Assigner assigner, final ObjectiveEvaluator evaluator, final Random random) {
+		super();
+		this.setAssigner(assigner);
+		this.setEvaluator(evaluator);
+		this.setRandom(random);
+	}
+
+	/**
+	 * @return the working netlist
+	 */
+	public TMNetlist getTMNetlist() {
+		return this.getAssigner().getTMNetlist();
+	}
+
+	/**
+	 * @return the assigner
+	 */
+	public Assigner getAssigner() {
+		return assigner;
+	}
+
+	/**
+	 * @param assigner the assigner to set
+	 */
+	public void setAssigner(final Assigner assigner) {
+		this.assigner = assigner;
+	}
+
+	/**
+	 * @return the evaluator
+	 */
+	public ObjectiveEvaluator getEvaluator() {
+		return evaluator;
+	}
+
+	/**
+	 * @param evaluator the evaluator to set
+	 */
+	public void setEvaluator(final ObjectiveEvaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+
+	/**
+	 * @return the random number generator
+	 */
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * @param random the random number generator to set
+	 */
+	public void setRandom(final Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * @return the Objective of the current assignment
+	 */
+	public Objective getCurrent() {
+		return current;
+	}
+
+	/**
+	 * @param current the Objective of the current assignment
+	 */
+	public void setCurrent(final Objective current) {
+		this.current = current;
+	}
+
+	/**
+	 * @return the temperature of the replica
+	 */
+	public double getTemperature() {
+		return temperature;
+	}
+
+	/**
+	 * @param temperature the temperature to set
+	 */
+	public void setTemperature(final double temperature) {
+		this.temperature = temperature;
+	}
+
+	/**
+	 * @return a copy of the best valid assignment, null if none was found
+	 */
+	public TMNetlist getBest() {
+		return best;
+	}
+
+	/**
+	 * @return the score of the best valid assignment
+	 */
+	public double getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * Copy the current assignment if it is valid and better than the best
+	 * one so far.
+	 *
+	 * @return true if the best assignment was updated.
+	 */
+	public boolean updateBest() {
+		boolean rtn = false;
+		Objective current = this.getCurrent();
+		if (this.getEvaluator().isValid(current) && (best == null || current.getScore() > bestScore)) {
+			best = new TMNetlist(this.getTMNetlist());
+			bestScore = current.getScore();
+			rtn = true;
+		}
+		return rtn;
+	}
+
+	private Assigner assigner;
+	private ObjectiveEvaluator evaluator;
+	private Random random;
+	private Objective current;
+	private double temperature;
+	private TMNetlist best;
+	private double bestScore;
+
+}
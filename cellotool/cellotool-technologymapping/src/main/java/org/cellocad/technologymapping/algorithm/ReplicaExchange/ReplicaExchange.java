@@ -0,0 +1,349 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.ReplicaExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cellocad.common.Pair;
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.SimulatedAnnealing;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.Move;
+import org.cellocad.technologymapping.common.assignment.MoveGenerator;
+import org.cellocad.technologymapping.common.assignment.ZobristTable;
+import org.cellocad.technologymapping.common.netlist.TMJournal;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveCache;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+
+/**
+ * Replica-exchange (parallel tempering) technology mapping. A ladder of
+ * replicas searches the gate assignment at fixed temperatures between
+ * maxtemp and mintemp, and adjacent replicas periodically exchange their
+ * temperatures with the Metropolis criterion so that good assignments
+ * found at high temperature move down the ladder. The parameters, the
+ * acceptance rule and the pre- and postprocessing are those of
+ * SimulatedAnnealing.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class ReplicaExchange extends SimulatedAnnealing{
+
+	@Override
+	protected void setDefaultParameterValues() {
+		super.setDefaultParameterValues();
+		this.setNumReplicas(8);
+		this.setExchangeInterval(10);
+	}
+
+	@Override
+	protected void setParameterValues() {
+		super.setParameterValues();
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("replicas");
+			if (param.getFirst()) {this.setNumReplicas(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("exchange_interval");
+			if (param.getFirst()) {this.setExchangeInterval(param.getSecond());}
+		} catch (NullPointerException e) {}
+	}
+
+	@Override
+	protected void validateParameterValues() {
+		super.validateParameterValues();
+		if (this.getNumReplicas() < 2) {
+			throw new RuntimeException("Invalid number of replicas.");
+		}
+		if (this.getExchangeInterval() < 1) {
+			throw new RuntimeException("Invalid exchange interval.");
+		}
+		if (this.getRowSampleSize() > 0) {
+			throw new RuntimeException("Row sampling is not supported by ReplicaExchange.");
+		}
+	}
+
+	@Override
+	protected void run() {
+		logInfo("begin replica exchange");
+		logInfo("seed: " + this.getSeed().toString() + ", threads: " + this.getNumThreads().toString()
+				+ ", replicas: " + this.getNumReplicas().toString());
+
+		this.setDeadline(this.getTimeBudget() > 0
+				? System.nanoTime() + this.getTimeBudget() * 1000000L
+				: Long.MAX_VALUE);
+
+		this.setZobristTable(new ZobristTable(this.getTMNetlist(),this.getGateLibrary()));
+		this.setMoveGenerator(new MoveGenerator(this.getGateLibrary()));
+		this.setObjectiveCache(new ObjectiveCache(this.getCacheSize()));
+
+		// geometric temperature ladder, replica k starts at rung k
+		int num = this.getNumReplicas();
+		double[] ladder = new double[num];
+		for (int k = 0; k < num; k++) {
+			ladder[k] = this.getMaxTemp() * Math.pow(this.getMinTemp() / this.getMaxTemp(), (double) k / (num - 1));
+		}
+		List<Replica> replicas = new ArrayList<>();
+		for (int k = 0; k < num; k++) {
+			Replica replica = this.createReplica(new Random(getTrajectorySeed(this.getSeed(),k)));
+			replica.setTemperature(ladder[k]);
+			replicas.add(replica);
+		}
+
+		// replicas only interact at exchanges, so the steps between two
+		// exchanges run in parallel
+		Random random = new Random(getTrajectorySeed(this.getSeed(),num));
+		int[] numProposed = new int[num - 1];
+		int[] numExchanged = new int[num - 1];
+		long numStepsRun = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(this.getNumThreads());
+		try {
+			int numRounds = (this.getNumSteps() + this.getExchangeInterval() - 1) / this.getExchangeInterval();
+			for (int r = 0; r < numRounds && !this.isExpired(); r++) {
+				int numSteps = Math.min(this.getExchangeInterval(), this.getNumSteps() - r * this.getExchangeInterval());
+				numStepsRun += this.runReplicas(executor,replicas,numSteps);
+
+				// alternate between even and odd pairs of adjacent rungs
+				replicas.sort((a,b) -> Double.compare(b.getTemperature(),a.getTemperature()));
+				for (int k = r % 2; k < num - 1; k += 2) {
+					Replica hot = replicas.get(k);
+					Replica cold = replicas.get(k + 1);
+					numProposed[k]++;
+					if (this.exchange(hot,cold,random)) {
+						double temperature = hot.getTemperature();
+						hot.setTemperature(cold.getTemperature());
+						cold.setTemperature(temperature);
+						numExchanged[k]++;
+					}
+				}
+			}
+
+			// quench every replica at zero temperature
+			if (!this.isExpired()) {
+				for (Replica replica : replicas) {
+					replica.setTemperature(0.0);
+				}
+				numStepsRun += this.runReplicas(executor,replicas,this.getNumT0Steps());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Replica exchange was interrupted.");
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Error in replica exchange.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		this.numExchanges = 0;
+		for (int k = 0; k < num - 1; k++) {
+			this.numExchanges += numExchanged[k];
+			logInfo("exchanges between rungs " + k + " and " + (k + 1) + ": "
+					+ numExchanged[k] + " of " + numProposed[k]);
+		}
+		long plannedSteps = (long) num * (this.getNumSteps() + this.getNumT0Steps());
+		logInfo("completed " + numStepsRun + " of " + plannedSteps + " steps ("
+				+ String.format("%.1f", 100.0 * numStepsRun / plannedSteps) + "%)");
+		logInfo("cache hits: " + this.getObjectiveCache().getNumHits()
+				+ ", misses: " + this.getObjectiveCache().getNumMisses());
+
+		// pick the best valid assignment of all replicas
+		TMNetlist netlist = null;
+		double bestScore = 0.0;
+		for (Replica replica : replicas) {
+			if (replica.getBest() != null && (netlist == null || replica.getBestScore() > bestScore)) {
+				netlist = replica.getBest();
+				bestScore = replica.getBestScore();
+			}
+		}
+		if (netlist == null) {
+			netlist = replicas.get(num - 1).getTMNetlist();
+			netlist.setJournal(null);
+		}
+
+		this.setTMNetlist(netlist);
+		logInfo("top score: " + this.getScore(this.getTMNetlist()));
+	}
+
+	/**
+	 * Create a replica from a random assignment.
+	 *
+	 * @param random the random number generator of the replica.
+	 * @return the replica.
+	 */
+	protected Replica createReplica(final Random random) {
+		Assigner assigner = new Assigner();
+		assigner.setGateLibrary(this.getGateLibrary());
+		assigner.setRandom(random);
+		assigner.setZobristTable(this.getZobristTable());
+		assigner.setMoveGenerator(this.getMoveGenerator());
+
+		TMNetlist netlist = new TMNetlist(this.getTMNetlist());
+		assigner.setTMNetlist(netlist);
+		this.doInitialAssignment(assigner);
+
+		ObjectiveEvaluator evaluator = this.createObjectiveEvaluator(netlist);
+		evaluator.simulate();
+
+		netlist.setJournal(new TMJournal(netlist));
+
+		Replica rtn = new Replica(assigner,evaluator,random);
+		rtn.setCurrent(evaluator.evaluate());
+		this.getObjectiveCache().put(assigner.getHash(),rtn.getCurrent());
+		rtn.updateBest();
+		return rtn;
+	}
+
+	/**
+	 * Run a number of steps of every replica in parallel.
+	 *
+	 * @param executor the executor on which to run the replicas.
+	 * @param replicas the replicas.
+	 * @param numSteps the number of steps.
+	 * @return the number of steps run by all replicas.
+	 */
+	private long runReplicas(final ExecutorService executor, final List<Replica> replicas, final int numSteps)
+			throws InterruptedException, ExecutionException {
+		long rtn = 0;
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (Replica replica : replicas) {
+			futures.add(executor.submit(() -> this.runReplica(replica,numSteps)));
+		}
+		for (Future<Integer> future : futures) {
+			rtn += future.get();
+		}
+		return rtn;
+	}
+
+	/**
+	 * Run a number of Metropolis steps of a replica at its temperature.
+	 *
+	 * @param replica the replica.
+	 * @param numSteps the number of steps.
+	 * @return the number of steps run before the time budget expired.
+	 */
+	protected int runReplica(final Replica replica, final int numSteps) {
+		Assigner assigner = replica.getAssigner();
+		ObjectiveEvaluator evaluator = replica.getEvaluator();
+		ObjectiveCache cache = this.getObjectiveCache();
+
+		int rtn = 0;
+		for (; rtn < numSteps && !this.isExpired(); rtn++) {
+			Move move = assigner.assignRandomGate();
+
+			// a cached candidate is only simulated if it is accepted
+			Objective candidate = cache.get(assigner.getHash());
+			boolean simulated = false;
+			if (candidate == null) {
+				evaluator.simulate(move.getNodes());
+				candidate = evaluator.evaluate();
+				cache.put(assigner.getHash(),candidate);
+				simulated = true;
+			}
+
+			if (this.accept(replica.getCurrent(),candidate,replica.getTemperature(),replica.getRandom())) {
+				if (!simulated) {
+					evaluator.simulate(move.getNodes());
+				}
+				evaluator.commit();
+				replica.setCurrent(candidate);
+				replica.updateBest();
+			} else {
+				assigner.undo(move);
+				evaluator.rollback(move.getNodes());
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Decide whether two replicas at adjacent temperatures exchange their
+	 * temperatures. With the priorities of the acceptance rule, they
+	 * always exchange if the hot replica has fewer roadblocks or better
+	 * growth, and never if it has more roadblocks or worse growth.
+	 * Otherwise they exchange with probability
+	 * min(1, e^((1/T_cold - 1/T_hot) * (S_hot - S_cold))).
+	 *
+	 * @param hot the replica at the higher temperature.
+	 * @param cold the replica at the lower temperature.
+	 * @param random the random number generator of the exchanges.
+	 * @return true if the replicas exchange temperatures.
+	 */
+	public boolean exchange(final Replica hot, final Replica cold, final Random random) {
+		int rank = this.compareConstraints(hot.getCurrent(),cold.getCurrent());
+		if (rank != 0) {
+			return rank > 0;
+		}
+		double delta = (1.0 / cold.getTemperature() - 1.0 / hot.getTemperature())
+				* (hot.getCurrent().getScore() - cold.getCurrent().getScore());
+		return delta >= 0 || random.nextDouble() < Math.exp(delta);
+	}
+
+	/* Getter & Setter */
+
+	/**
+	 * @return the number of exchanges between replicas in the last run
+	 */
+	public long getNumExchanges() {
+		return numExchanges;
+	}
+
+	/**
+	 * @return the number of replicas
+	 */
+	protected Integer getNumReplicas() {
+		return numReplicas;
+	}
+
+	/**
+	 * @param numReplicas the number of replicas to set
+	 */
+	protected void setNumReplicas(final Integer numReplicas) {
+		this.numReplicas = numReplicas;
+	}
+
+	/**
+	 * @return the number of steps between exchanges
+	 */
+	protected Integer getExchangeInterval() {
+		return exchangeInterval;
+	}
+
+	/**
+	 * @param exchangeInterval the number of steps between exchanges
+	 */
+	protected void setExchangeInterval(final Integer exchangeInterval) {
+		this.exchangeInterval = exchangeInterval;
+	}
+
+	private Integer numReplicas;
+	private Integer exchangeInterval;
+	private long numExchanges;
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.SimulatedAnnealing;
+
+import org.cellocad.common.CObject;
+
+/**
+ * Log-linear cooling schedule of a single annealing trajectory. In
+ * adaptive mode the schedule tracks the acceptance rate and the number of
+ * steps since the best score improved, so that a trajectory that has
+ * frozen without improving is reheated or stopped early.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class CoolingSchedule extends CObject{
+
+	/**
+	 * Create a new CoolingSchedule.
+	 *
+	 * @param maxTemp the temperature at the start of the schedule.
+	 * @param minTemp the temperature at the end of the schedule.
+	 * @param numSteps the number of steps from maxTemp to minTemp.
+	 */
+	public CoolingSchedule(final double maxTemp, final double minTemp, final int numSteps) {
+		super();
+		this.numSteps = numSteps;
+		this.logMaxTemp = Math.log10(maxTemp);
+		this.logInc = (this.logMaxTemp - Math.log10(minTemp)) / numSteps;
+		this.acceptanceRate = 1.0;
+	}
+
+	/**
+	 * Estimate the temperature at which a fraction of worsening moves is
+	 * accepted, from a sample of score deltas.
+	 *
+	 * @param deltas the score deltas of sampled moves.
+	 * @param num the number of deltas.
+	 * @param acceptance the fraction of worsening moves to accept.
+	 * @return the temperature, or NaN if no sampled move is worsening.
+	 */
+	public static double estimateMaxTemp(final double[] deltas, final int num, final double acceptance) {
+		double rtn = Double.NaN;
+		double sum = 0.0;
+		int count = 0;
+		for (int i = 0; i < num; i++) {
+			if (deltas[i] < 0) {
+				sum -= deltas[i];
+				count++;
+			}
+		}
+		if (count > 0) {
+			rtn = (sum / count) / -Math.log(acceptance);
+		}
+		return rtn;
+	}
+
+	/**
+	 * @param step the step of the trajectory.
+	 * @return the temperature at the step, 0 past the end of the schedule.
+	 */
+	public double getTemperature(final double step) {
+		double rtn = 0.0;
+		double position = step - this.offset;
+		if (position < this.numSteps) {
+			rtn = Math.pow(10, this.logMaxTemp - position * this.logInc);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Record the outcome of a step.
+	 *
+	 * @param accepted whether the move was accepted.
+	 * @param improved whether the best score improved.
+	 */
+	public void update(final boolean accepted, final boolean improved) {
+		this.acceptanceRate += ACCEPTANCE_WEIGHT * ((accepted ? 1.0 : 0.0) - this.acceptanceRate);
+		if (improved) {
+			this.numStepsSinceImproved = 0;
+		} else {
+			this.numStepsSinceImproved++;
+		}
+	}
+
+	/**
+	 * @param patience the number of steps without improvement to allow.
+	 * @return true if the trajectory has frozen without improving for patience steps.
+	 */
+	public boolean isStagnant(final int patience) {
+		return this.numStepsSinceImproved >= patience && this.acceptanceRate < MIN_ACCEPTANCE;
+	}
+
+	/**
+	 * Move the schedule back to half of its progress at the step.
+	 *
+	 * @param step the step of the trajectory.
+	 */
+	public void reheat(final double step) {
+		double position = Math.min(step - this.offset, this.numSteps);
+		this.offset += position / 2;
+		this.acceptanceRate = 1.0;
+		this.numStepsSinceImproved = 0;
+		this.numReheats++;
+	}
+
+	/**
+	 * @return the number of times the schedule was reheated
+	 */
+	public int getNumReheats() {
+		return numReheats;
+	}
+
+	private static final double ACCEPTANCE_WEIGHT = 0.05;
+	private static final double MIN_ACCEPTANCE = 0.02;
+
+	private int numSteps;
+	private double logMaxTemp;
+	private double logInc;
+	private double offset;
+	private double acceptanceRate;
+	private int numStepsSinceImproved;
+	private int numReheats;
+
+}
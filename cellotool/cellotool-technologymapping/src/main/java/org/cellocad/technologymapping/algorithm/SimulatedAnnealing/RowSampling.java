@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.algorithm.SimulatedAnnealing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cellocad.common.CObject;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.common.simulation.RowSample;
+
+/**
+ * Row sampling state of a single annealing trajectory. The trajectory
+ * is scored on a sample of the rows of the truth table, and the best
+ * assignments it accepts are kept. The best one is checked against the
+ * full truth table from time to time: if the sample misses the rows
+ * that determine its score, they are added and the sample is grown.
+ * Only the kept assignments are evaluated exactly at the end.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class RowSampling extends CObject{
+
+	/**
+	 * Create a new RowSampling.
+	 *
+	 * @param algorithm the algorithm running the trajectory.
+	 * @param size the initial number of sampled rows.
+	 * @param numKept the number of best assignments to keep.
+	 * @param random the random number generator of the trajectory.
+	 */
+	public RowSampling(final SimulatedAnnealing algorithm, final int size, final int numKept, final Random random) {
+		super();
+		this.algorithm = algorithm;
+		this.numKept = numKept;
+		this.random = random;
+		this.sample = new RowSample(algorithm.getTMNetlist().getNumRows(),size,random);
+		this.assignments = new ArrayList<>();
+		this.scores = new ArrayList<>();
+		this.hashes = new ArrayList<>();
+	}
+
+	/**
+	 * Initialize a netlist over the sampled rows. The netlist must be
+	 * simulated again afterwards.
+	 *
+	 * @param netlist the netlist.
+	 */
+	public void init(final TMNetlist netlist) {
+		algorithm.initRows(netlist,sample.getRows());
+	}
+
+	/**
+	 * Offer a valid assignment, to be kept if it is among the best seen.
+	 *
+	 * @param hash the hash of the assignment.
+	 * @param netlist the simulated netlist, copied if it is kept.
+	 * @param score the score of the assignment over the sampled rows.
+	 * @return true if the assignment is the best seen.
+	 */
+	public boolean offer(final long hash, final TMNetlist netlist, final double score) {
+		if (hashes.contains(hash)) {
+			return false;
+		}
+		int worst = this.getWorstIdx();
+		if (assignments.size() >= numKept && score <= scores.get(worst)) {
+			return false;
+		}
+		boolean rtn = assignments.isEmpty() || score > this.getBestScore();
+		if (assignments.size() >= numKept) {
+			assignments.remove(worst);
+			scores.remove(worst);
+			hashes.remove(worst);
+		}
+		assignments.add(new TMNetlist(netlist));
+		scores.add(score);
+		hashes.add(hash);
+		if (rtn) {
+			checked = false;
+		}
+		return rtn;
+	}
+
+	/**
+	 * Check the best assignment against the full truth table, if it has
+	 * changed since the last check. If the sample misses any of the rows
+	 * that determine its Objective, they are added, the sample is
+	 * doubled and the kept assignments are scored again over the new
+	 * sample.
+	 *
+	 * @return true if the sample has changed.
+	 */
+	public boolean update() {
+		if (checked || assignments.isEmpty() || sample.isFull()) {
+			return false;
+		}
+		checked = true;
+
+		TMNetlist netlist = new TMNetlist(assignments.get(this.getBestIdx()));
+		algorithm.initRows(netlist,null);
+		ObjectiveEvaluator evaluator = algorithm.createObjectiveEvaluator(netlist);
+		evaluator.simulate();
+		boolean added = false;
+		for (int row : evaluator.getWorstRows()) {
+			added |= sample.add(row);
+		}
+		if (!added) {
+			return false;
+		}
+		sample.grow(2 * sample.size(),random);
+
+		int[] rows = sample.getRows();
+		for (int i = assignments.size() - 1; i >= 0; i--) {
+			TMNetlist assignment = assignments.get(i);
+			algorithm.initRows(assignment,rows);
+			evaluator = algorithm.createObjectiveEvaluator(assignment);
+			evaluator.simulate();
+			Objective objective = evaluator.evaluate();
+			if (evaluator.isValid(objective)) {
+				scores.set(i,objective.getScore());
+			} else {
+				assignments.remove(i);
+				scores.remove(i);
+				hashes.remove(i);
+			}
+		}
+		checked = false;
+		return true;
+	}
+
+	/**
+	 * Evaluate the kept assignments over the full truth table.
+	 *
+	 * @return the best valid assignment, simulated over the full truth table, or null if there is none.
+	 */
+	public TMNetlist getBest() {
+		TMNetlist rtn = null;
+		double bestScore = 0.0;
+		for (TMNetlist netlist : assignments) {
+			algorithm.initRows(netlist,null);
+			ObjectiveEvaluator evaluator = algorithm.createObjectiveEvaluator(netlist);
+			evaluator.simulate();
+			Objective objective = evaluator.evaluate();
+			if (evaluator.isValid(objective) && (rtn == null || objective.getScore() > bestScore)) {
+				rtn = netlist;
+				bestScore = objective.getScore();
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * @return the best score over the sampled rows, or 0 if no assignment is kept
+	 */
+	public double getBestScore() {
+		return assignments.isEmpty() ? 0.0 : scores.get(this.getBestIdx());
+	}
+
+	/**
+	 * @return the sampled rows
+	 */
+	public RowSample getSample() {
+		return sample;
+	}
+
+	private int getBestIdx() {
+		int rtn = 0;
+		for (int i = 1; i < scores.size(); i++) {
+			if (scores.get(i) > scores.get(rtn)) {
+				rtn = i;
+			}
+		}
+		return rtn;
+	}
+
+	private int getWorstIdx() {
+		int rtn = 0;
+		for (int i = 1; i < scores.size(); i++) {
+			if (scores.get(i) < scores.get(rtn)) {
+				rtn = i;
+			}
+		}
+		return rtn;
+	}
+
+	private SimulatedAnnealing algorithm;
+	private int numKept;
+	private Random random;
+	private RowSample sample;
+	private List<TMNetlist> assignments;
+	private List<Double> scores;
+	private List<Long> hashes;
+	private boolean checked = true;
+
+}
@@ -23,6 +23,13 @@ package org.cellocad.technologymapping.algorithm.SimulatedAnnealing;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.cellocad.common.CObjectCollection;
 import org.cellocad.common.Pair;
@@ -31,14 +38,25 @@ import org.cellocad.technologymapping.algorithm.TMAlgorithm;
 import org.cellocad.technologymapping.common.TMUtils;
 import org.cellocad.technologymapping.common.TargetDataReader;
 import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.Move;
+import org.cellocad.technologymapping.common.assignment.MoveGenerator;
 import org.cellocad.technologymapping.common.assignment.RoadblockChecker;
+import org.cellocad.technologymapping.common.assignment.ZobristTable;
+import org.cellocad.technologymapping.common.netlist.TMJournal;
 import org.cellocad.technologymapping.common.netlist.TMNetlist;
 import org.cellocad.technologymapping.common.netlist.TMNode;
-import org.cellocad.technologymapping.common.score.Scorer;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveCache;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
 import org.cellocad.technologymapping.common.simulation.ActivitySimulator;
+import org.cellocad.technologymapping.common.simulation.CytometrySimulator;
 import org.cellocad.technologymapping.common.simulation.LogicSimulator;
 import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
+import org.cellocad.technologymapping.data.Cytometry;
 import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.data.Histogram;
+import org.cellocad.technologymapping.data.LogBinGrid;
+import org.cellocad.technologymapping.data.LogLookupTable;
 import org.cellocad.technologymapping.data.Part;
 
 /**
@@ -67,10 +85,28 @@ public class SimulatedAnnealing extends TMAlgorithm{
 		this.setCheckToxicity(true);
 		this.setToxicityThreshold(0.75);
 		this.setCheckRoadblocks(true);
+		this.setNumThreads(Runtime.getRuntime().availableProcessors());
+		this.setSeed(System.nanoTime());
+		this.setCacheSize(1 << 16);
+		this.setResponseTolerance(0.0);
+		this.setTimeBudget(0L);
+		this.setAdaptive(false);
+		this.setPatience(100);
+		this.setMaxReheats(1);
+		this.setScoring(SCORING_MEDIAN);
+		this.setNumCytometryBins(50);
+		this.setRowSampleSize(0);
+		this.setSampleInterval(50);
+		this.setNumSampleKept(4);
+		this.setParallelRows(1 << 12);
+		this.setInitialAssignment(INITIAL_RANDOM);
+		this.setGraspAlpha(0.3);
 	}
 
 	@Override
 	protected void setParameterValues() {
+		boolean maxTempSet = false;
+		boolean minTempSet = false;
 		try {
 			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("trajectories");
 			if (param.getFirst()) {this.setNumTrajectories(param.getSecond());}
@@ -85,11 +121,11 @@ public class SimulatedAnnealing extends TMAlgorithm{
 		} catch (NullPointerException e) {}
 		try {
 			Pair<Boolean,Double> param = this.getAlgorithmProfile().getDoubleParameter("maxtemp");
-			if (param.getFirst()) {this.setMaxTemp(param.getSecond());}
+			if (param.getFirst()) {this.setMaxTemp(param.getSecond()); maxTempSet = true;}
 		} catch (NullPointerException e) {}
 		try {
 			Pair<Boolean,Double> param = this.getAlgorithmProfile().getDoubleParameter("mintemp");
-			if (param.getFirst()) {this.setMinTemp(param.getSecond());}
+			if (param.getFirst()) {this.setMinTemp(param.getSecond()); minTempSet = true;}
 		} catch (NullPointerException e) {}
 		try {
 			Pair<Boolean,Boolean> param = this.getAlgorithmProfile().getBooleanParameter("check_toxicity");
@@ -103,6 +139,81 @@ public class SimulatedAnnealing extends TMAlgorithm{
 			Pair<Boolean,Boolean> param = this.getAlgorithmProfile().getBooleanParameter("check_roadblock");
 			if (param.getFirst()) {this.setCheckToxicity(param.getSecond());}
 		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("threads");
+			if (param.getFirst()) {this.setNumThreads(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Long> param = this.getAlgorithmProfile().getLongParameter("seed");
+			if (param.getFirst()) {this.setSeed(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("cache_size");
+			if (param.getFirst()) {this.setCacheSize(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Double> param = this.getAlgorithmProfile().getDoubleParameter("response_tolerance");
+			if (param.getFirst()) {this.setResponseTolerance(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Long> param = this.getAlgorithmProfile().getLongParameter("time_budget_ms");
+			if (param.getFirst()) {this.setTimeBudget(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Boolean> param = this.getAlgorithmProfile().getBooleanParameter("adaptive");
+			if (param.getFirst()) {this.setAdaptive(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("patience");
+			if (param.getFirst()) {this.setPatience(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("max_reheats");
+			if (param.getFirst()) {this.setMaxReheats(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,String> param = this.getAlgorithmProfile().getStringParameter("scoring");
+			if (param.getFirst()) {this.setScoring(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("cytometry_bins");
+			if (param.getFirst()) {this.setNumCytometryBins(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("row_sample");
+			if (param.getFirst()) {this.setRowSampleSize(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("sample_interval");
+			if (param.getFirst()) {this.setSampleInterval(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("sample_top_k");
+			if (param.getFirst()) {this.setNumSampleKept(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Integer> param = this.getAlgorithmProfile().getIntParameter("parallel_rows");
+			if (param.getFirst()) {this.setParallelRows(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,String> param = this.getAlgorithmProfile().getStringParameter("initial_assignment");
+			if (param.getFirst()) {this.setInitialAssignment(param.getSecond());}
+		} catch (NullPointerException e) {}
+		try {
+			Pair<Boolean,Double> param = this.getAlgorithmProfile().getDoubleParameter("grasp_alpha");
+			if (param.getFirst()) {this.setGraspAlpha(param.getSecond());}
+		} catch (NullPointerException e) {}
+
+		// distribution scores lie between 0 and 1 instead of spanning orders
+		// of magnitude like on/off ratios, so scale the default temperatures
+		if (this.getScoring().equalsIgnoreCase(SCORING_CYTOMETRY)) {
+			if (!maxTempSet) {
+				this.setMaxTemp(this.getMaxTemp() * CYTOMETRY_TEMP_SCALE);
+			}
+			if (!minTempSet) {
+				this.setMinTemp(this.getMinTemp() * CYTOMETRY_TEMP_SCALE);
+			}
+		}
 	}
 
 	@Override
@@ -119,6 +230,48 @@ public class SimulatedAnnealing extends TMAlgorithm{
 		if (this.getMinTemp() <= 0) {
 			throw new RuntimeException("Invalid minimum temperature.");
 		}
+		if (this.getNumThreads() < 1) {
+			throw new RuntimeException("Invalid number of threads.");
+		}
+		if (this.getCacheSize() < 0) {
+			throw new RuntimeException("Invalid cache size.");
+		}
+		if (this.getResponseTolerance() < 0) {
+			throw new RuntimeException("Invalid response function tolerance.");
+		}
+		if (this.getTimeBudget() < 0) {
+			throw new RuntimeException("Invalid time budget.");
+		}
+		if (this.getPatience() < 1) {
+			throw new RuntimeException("Invalid patience.");
+		}
+		if (this.getMaxReheats() < 0) {
+			throw new RuntimeException("Invalid number of reheats.");
+		}
+		if (!this.getScoring().equalsIgnoreCase(SCORING_MEDIAN) && !this.getScoring().equalsIgnoreCase(SCORING_CYTOMETRY)) {
+			throw new RuntimeException("Invalid scoring: " + this.getScoring() + ".");
+		}
+		if (this.getNumCytometryBins() < 2) {
+			throw new RuntimeException("Invalid number of cytometry bins.");
+		}
+		if (this.getRowSampleSize() < 0) {
+			throw new RuntimeException("Invalid row sample size.");
+		}
+		if (this.getSampleInterval() < 1) {
+			throw new RuntimeException("Invalid sample interval.");
+		}
+		if (this.getNumSampleKept() < 1) {
+			throw new RuntimeException("Invalid number of sampled assignments to keep.");
+		}
+		if (this.getParallelRows() < 0) {
+			throw new RuntimeException("Invalid number of parallel rows.");
+		}
+		if (!this.getInitialAssignment().equalsIgnoreCase(INITIAL_RANDOM) && !this.getInitialAssignment().equalsIgnoreCase(INITIAL_GREEDY)) {
+			throw new RuntimeException("Invalid initial assignment: " + this.getInitialAssignment() + ".");
+		}
+		if (this.getGraspAlpha() < 0 || this.getGraspAlpha() > 1) {
+			throw new RuntimeException("Invalid GRASP alpha.");
+		}
 	}
 
 	@Override
@@ -130,6 +283,48 @@ public class SimulatedAnnealing extends TMAlgorithm{
 			node.setIdx(i);
 		}
 
+		// tabulate gate response functions if approximation is allowed, on
+		// copies of the gates so that the library itself is not modified
+		if (this.getResponseTolerance() > 0) {
+			CObjectCollection<Gate> library = new CObjectCollection<>();
+			for (Gate gate : this.getGateLibrary()) {
+				Gate copy = new Gate(gate);
+				if (gate.getResponseFunction() != null) {
+					copy.setResponseFunction(gate.getResponseFunction().tabulate(this.getResponseTolerance()));
+					LogLookupTable table = (LogLookupTable) copy.getResponseFunction().getKernel();
+					if (table.getError() > this.getResponseTolerance()) {
+						logWarn("response function of " + gate.getName() + " tabulated with relative error "
+								+ table.getError() + ", above the tolerance " + this.getResponseTolerance());
+					}
+				}
+				library.add(copy);
+			}
+			this.setGateLibrary(library);
+		}
+
+		// grid of output distributions, spanning the cytometry bins of the gates
+		if (this.getScoring().equalsIgnoreCase(SCORING_CYTOMETRY)) {
+			double min = Double.MAX_VALUE;
+			double max = 0.0;
+			for (Gate gate : this.getGateLibrary()) {
+				Cytometry c = gate.getCytometry();
+				if (c == null) {
+					continue;
+				}
+				for (Double input : c.getInputs()) {
+					Histogram h = c.getHistogramOfInput(input);
+					for (int i = 0; i < h.size(); i++) {
+						min = Math.min(min,h.getBin(i));
+						max = Math.max(max,h.getBin(i));
+					}
+				}
+			}
+			if (!(max > min)) {
+				throw new RuntimeException("Cytometry scoring requires gate cytometry data.");
+			}
+			this.setCytometryGrid(new LogBinGrid(min,max,this.getNumCytometryBins()));
+		}
+
 		// build initial TechMap
 		this.setTMNetlist(new TMNetlist(this.getNetlist()));
 
@@ -143,134 +338,513 @@ public class SimulatedAnnealing extends TMAlgorithm{
 		assigner.assignOutputReporters(this.getOutputLibrary());
 
 		// initialize promoter activity and toxicity
+		this.setInputActivities(TargetDataReader.getInputPromoterActivities(this.getTargetData()));
 		ActivitySimulator as = new ActivitySimulator(this.getTMNetlist());
 		ToxicitySimulator ts = new ToxicitySimulator(this.getTMNetlist());
-		as.initInputActivities(TargetDataReader.getInputPromoterActivities(this.getTargetData()));
+		as.initInputActivities(this.getInputActivities());
 		ts.initOutputToxicity();
 	}
 
 	@Override
 	protected void run() {
 		logInfo("begin simulated annealing");
-
-		final Double logMaxTemp = Math.log10(this.getMaxTemp());
-		final Double logMinTemp = Math.log10(this.getMinTemp());
-		final Double logInc = (logMaxTemp - logMinTemp) / this.getNumSteps();
+		logInfo("seed: " + this.getSeed().toString() + ", threads: " + this.getNumThreads().toString());
 
 		List<TMNetlist> bestAssignments = new ArrayList<>();
 
-		TMNetlist netlist = null;
-
-		ActivitySimulator as = new ActivitySimulator();
-		ToxicitySimulator ts = new ToxicitySimulator();
+		// with a time budget, trajectories stop at the deadline with their best assignment so far
+		this.setDeadline(this.getTimeBudget() > 0
+				? System.nanoTime() + this.getTimeBudget() * 1000000L
+				: Long.MAX_VALUE);
+		this.numTrajectoriesRun = new AtomicLong();
+		this.numStepsRun = new AtomicLong();
+		this.numCacheHits = new AtomicLong();
+		this.numCacheMisses = new AtomicLong();
+
+		this.setZobristTable(new ZobristTable(this.getTMNetlist(),this.getGateLibrary()));
+		this.setMoveGenerator(new MoveGenerator(this.getGateLibrary()));
+		this.setObjectiveCache(new ObjectiveCache(this.getCacheSize()));
+
+		// trajectories are independent until the final reduction, so each one
+		// gets its own RNG stream derived from the seed and its index
+		ExecutorService executor = Executors.newFixedThreadPool(this.getNumThreads());
+		try {
+			List<Future<TMNetlist>> futures = new ArrayList<>();
+			for (int k = 0; k < this.getNumTrajectories(); k++) {
+				final int trajectory = k;
+				final Random random = new Random(getTrajectorySeed(this.getSeed(),k));
+				futures.add(executor.submit(() -> this.runTrajectory(trajectory,random)));
+			}
+			for (Future<TMNetlist> future : futures) {
+				TMNetlist result = future.get();
+				if (result != null) {
+					bestAssignments.add(result);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Simulated annealing was interrupted.");
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Error in simulated annealing trajectory.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
 
-		Assigner assigner = new Assigner();
-		assigner.setGateLibrary(this.getGateLibrary());
+		long plannedSteps = (long) this.getNumTrajectories() * (this.getNumSteps() + this.getNumT0Steps());
+		logInfo("completed " + this.numTrajectoriesRun.get() + " of " + this.getNumTrajectories() + " trajectories, "
+				+ this.numStepsRun.get() + " of " + plannedSteps + " steps ("
+				+ String.format("%.1f", 100.0 * this.numStepsRun.get() / plannedSteps) + "%)");
+		this.addCacheStatistics(this.getObjectiveCache());
+		logInfo("cache hits: " + this.numCacheHits.get() + ", misses: " + this.numCacheMisses.get());
 
-		Scorer scorer = new Scorer();
+		// pick highest scoring assignment from all trajectories
+		TMNetlist netlist = bestAssignments.get(0);
+		double bestScore = this.getScore(netlist);
+		for (TMNetlist l : bestAssignments) {
+			double score = this.getScore(l);
+			if (score > bestScore) {
+				netlist = l;
+				bestScore = score;
+			}
+		}
 
-		RoadblockChecker rbc = new RoadblockChecker();
-		rbc.setInputRoadblocks(this.getInputRoadblocks());
-		rbc.setLogicRoadblocks(this.getLogicRoadblocks());
+		this.setTMNetlist(netlist);
+		logInfo("top score: " + bestScore);
+	}
 
-		for(int k = 0; k < this.getNumTrajectories(); k++) {
-			logInfo("trajectory " + String.valueOf(k+1) + " of " + this.getNumTrajectories().toString());
+	/**
+	 * Run a single annealing trajectory starting from a random assignment.
+	 *
+	 * @param trajectory the index of the trajectory.
+	 * @param random the random number generator for this trajectory.
+	 * @return the assignment at the end of the trajectory.
+	 */
+	protected TMNetlist runTrajectory(final int trajectory, final Random random) {
+		// the first trajectory always runs so that there is a result
+		if (trajectory > 0 && this.isExpired()) {
+			return null;
+		}
+		final long start = System.nanoTime();
+		final long slice = this.getTimeSlice(start,this.numTrajectoriesRun.getAndIncrement());
+		logInfo("trajectory " + String.valueOf(trajectory+1) + " of " + this.getNumTrajectories().toString());
 
-			netlist = new TMNetlist(this.getTMNetlist());
-			assigner.setTMNetlist(netlist);
-			assigner.doRandomAssignment();
+		Assigner assigner = new Assigner();
+		assigner.setGateLibrary(this.getGateLibrary());
+		assigner.setRandom(random);
+		assigner.setZobristTable(this.getZobristTable());
+		assigner.setMoveGenerator(this.getMoveGenerator());
+
+		// with row sampling the trajectory is scored over a sample of the
+		// rows of the truth table
+		RowSampling sampling = null;
+		if (this.isRowSampled()) {
+			sampling = new RowSampling(this,this.getRowSampleSize(),this.getNumSampleKept(),random);
+		}
 
-			as.setTMNetlist(netlist);
-			as.run();
+		// assignments revisited by any trajectory are not simulated again;
+		// an objective does not depend on the moves that led to it, but with
+		// row sampling it depends on the sample, so the trajectory keeps its own
+		ObjectiveCache cache = this.getObjectiveCache();
+		if (sampling != null) {
+			cache = new ObjectiveCache(this.getCacheSize());
+		}
 
-			ts.setTMNetlist(netlist);
-			ts.run();
+		// a single working netlist is modified in place, moves that are
+		// rejected are rolled back with the journal
+		TMNetlist netlist = new TMNetlist(this.getTMNetlist());
+		if (sampling != null) {
+			sampling.init(netlist);
+		}
+		assigner.setTMNetlist(netlist);
+		this.doInitialAssignment(assigner);
 
-			for (int j = 0; j < (this.getNumSteps() + this.getNumT0Steps()); j++) {
-				TMNetlist tmpNetlist = new TMNetlist(netlist);
+		ObjectiveEvaluator evaluator = this.createObjectiveEvaluator(netlist);
+		evaluator.simulate();
 
-				Double logTemp = logMaxTemp - j * logInc;
-				Double temperature = Math.pow(10, logTemp);
-				if (j >= this.getNumSteps()) {
-					temperature = 0.0;
-				}
+		netlist.setJournal(new TMJournal(netlist));
 
-				assigner.setTMNetlist(tmpNetlist);
-				assigner.assignRandomGate();
+		// objective of the current assignment, only updated on accept
+		Objective current = evaluator.evaluate();
+		cache.put(assigner.getHash(),current);
 
-				as.setTMNetlist(tmpNetlist);
-				as.run();
+		// best valid assignment so far, copied only when it improves
+		TMNetlist best = null;
+		Double bestScore = 0.0;
+		if (sampling != null) {
+			if (evaluator.isValid(current)) {
+				sampling.offer(assigner.getHash(),netlist,current.getScore());
+			}
+		} else if (evaluator.isValid(current)) {
+			best = new TMNetlist(netlist);
+			bestScore = current.getScore();
+		}
 
-				ts.setTMNetlist(tmpNetlist);
-				ts.run();
+		final int numPlanned = this.getNumSteps() + this.getNumT0Steps();
+		int j = 0;
+
+		// in adaptive mode the starting temperature is estimated from the
+		// score deltas of moves sampled around the initial assignment
+		Double maxTemp = this.getMaxTemp();
+		if (this.getAdaptive()) {
+			double[] deltas = new double[Math.min(NUM_SAMPLED_MOVES, numPlanned)];
+			for (; j < deltas.length; j++) {
+				Move move = assigner.assignRandomGate();
+				Objective candidate = cache.get(assigner.getHash());
+				if (candidate == null) {
+					evaluator.simulate(move.getNodes());
+					candidate = evaluator.evaluate();
+					cache.put(assigner.getHash(),candidate);
+				}
+				deltas[j] = candidate.getScore() - current.getScore();
+				assigner.undo(move);
+				evaluator.rollback(move.getNodes());
+			}
+			double estimate = CoolingSchedule.estimateMaxTemp(deltas,deltas.length,INITIAL_ACCEPTANCE);
+			if (!Double.isNaN(estimate)) {
+				maxTemp = Math.max(estimate,this.getMinTemp());
+			}
+		}
+		CoolingSchedule schedule = new CoolingSchedule(maxTemp,this.getMinTemp(),this.getNumSteps());
+		final int offset = j;
+
+		// with a time budget the schedule advances with the elapsed part of
+		// the time slice so that the trajectory cools down before it stops
+		for (; j < numPlanned; j++) {
+			long elapsed = System.nanoTime() - start;
+			if (elapsed >= slice || this.isExpired()) {
+				break;
+			}
+			double step = j - offset;
+			if (this.getTimeBudget() > 0) {
+				step = Math.max(step, (double) elapsed / slice * this.getNumSteps());
+			}
+			Double temperature = schedule.getTemperature(step);
+
+			Move move = assigner.assignRandomGate();
+
+			// a cached candidate is only simulated if it is accepted, which
+			// yields the cached objective again since the simulation does not
+			// depend on the path; otherwise only the fan-out cone of the moved
+			// gates is simulated
+			Objective candidate = cache.get(assigner.getHash());
+			boolean simulated = false;
+			if (candidate == null) {
+				evaluator.simulate(move.getNodes());
+				candidate = evaluator.evaluate();
+				cache.put(assigner.getHash(),candidate);
+				simulated = true;
+			}
 
-				// roadblock check
-				if (this.getCheckRoadblocks()) {
-					rbc.setTMNetlist(tmpNetlist);
-					Integer tmpRb = rbc.getNumRoadblocks();
-					rbc.setTMNetlist(netlist);
-					Integer rb = rbc.getNumRoadblocks();
+			boolean improved = false;
+			boolean accept = this.accept(current,candidate,temperature,random);
 
-					if(tmpRb > rb) {
-						continue;
-					}
-					else if(tmpRb < rb) {
-						netlist = tmpNetlist;
-						continue; // accept, but don't proceed to evaluate based on score
+			if (accept) {
+				if (!simulated) {
+					evaluator.simulate(move.getNodes());
+				}
+				evaluator.commit();
+				current = candidate;
+				if (sampling != null) {
+					if (evaluator.isValid(current)) {
+						improved = sampling.offer(assigner.getHash(),netlist,current.getScore());
 					}
+				} else if (evaluator.isValid(current) && (best == null || current.getScore() > bestScore)) {
+					best = new TMNetlist(netlist);
+					bestScore = current.getScore();
+					improved = true;
 				}
+			} else {
+				assigner.undo(move);
+				evaluator.rollback(move.getNodes());
+			}
 
-				// toxicity check
-				ts.setTMNetlist(netlist);
-				Double growth = ts.minGrowth();
-				ts.setTMNetlist(tmpNetlist);
-				Double tempGrowth = ts.minGrowth();
-
-				if (this.getCheckToxicity()) {
-					if (growth < this.getToxicityThreshold()) {
-						if (tempGrowth > growth) { // accept
-							netlist = tmpNetlist;
-							continue;
-						} else { // reject
-							continue;
-						}
+			// check the best assignment against the full truth table, and
+			// continue over a grown sample if it missed the rows that matter
+			if (sampling != null && (j + 1) % this.getSampleInterval() == 0 && sampling.update()) {
+				netlist.setJournal(null);
+				sampling.init(netlist);
+				evaluator = this.createObjectiveEvaluator(netlist);
+				evaluator.simulate();
+				netlist.setJournal(new TMJournal(netlist));
+				current = evaluator.evaluate();
+				// scores over different samples are not comparable
+				this.addCacheStatistics(cache);
+				cache = new ObjectiveCache(this.getCacheSize());
+			}
+
+			// reheat a trajectory that has frozen without improving, stop it
+			// once it is out of reheats
+			if (this.getAdaptive()) {
+				schedule.update(accept,improved);
+				if (schedule.isStagnant(this.getPatience())) {
+					if (schedule.getNumReheats() < this.getMaxReheats() && step < this.getNumSteps()) {
+						schedule.reheat(step);
 					} else {
-						if (tempGrowth < this.getToxicityThreshold()) {
-							continue; // reject
-						}
+						j++;
+						break;
 					}
 				}
+			}
+		}
 
-				// simulated annealing accept or reject
-				Double probability = Math.exp( (scorer.getScore(tmpNetlist)
-						-
-						scorer.getScore(netlist))
-						/ temperature ); // e^b
-						Double ep = Math.random();
-
-						if (ep < probability) {
-							rbc.setTMNetlist(tmpNetlist);
-							Integer finalBlocks = rbc.getNumRoadblocks();
-							if ((!this.getCheckRoadblocks() || finalBlocks == 0)
-									&&
-									(!this.getCheckToxicity() || ts.minGrowth() > this.getToxicityThreshold()))
-							{
-								netlist = tmpNetlist;
-							}
-						}
+		this.numStepsRun.addAndGet(j);
+		if (sampling != null) {
+			this.addCacheStatistics(cache);
+		}
+		if (sampling != null) {
+			bestScore = sampling.getBestScore();
+			logInfo("trajectory " + String.valueOf(trajectory+1) + " sampled " + sampling.getSample().size()
+					+ " of " + sampling.getSample().getNumRows() + " rows");
+		}
+		if (this.getAdaptive()) {
+			logInfo("trajectory " + String.valueOf(trajectory+1) + " stopped after " + j + " of " + numPlanned
+					+ " steps, " + schedule.getNumReheats() + " reheats, best score: " + bestScore);
+		}
+
+		// with row sampling only the kept assignments are evaluated exactly
+		if (sampling != null) {
+			best = sampling.getBest();
+			if (best == null) {
+				best = netlist;
+				best.setJournal(null);
+				this.initRows(best,null);
+				this.createObjectiveEvaluator(best).simulate();
 			}
-			bestAssignments.add(netlist);
 		}
 
-		// pick highest scoring assignment from all trajectories
-		for (TMNetlist l : bestAssignments) {
-			if (scorer.getScore(l) > scorer.getScore(netlist)) {
-				netlist = l;
+		if (best == null) {
+			best = netlist;
+		}
+		best.setJournal(null);
+		return best;
+	}
+
+	/**
+	 * Add the hits and misses of a cache to the totals of the run.
+	 *
+	 * @param cache the cache.
+	 */
+	private void addCacheStatistics(final ObjectiveCache cache) {
+		this.numCacheHits.addAndGet(cache.getNumHits());
+		this.numCacheMisses.addAndGet(cache.getNumMisses());
+	}
+
+	/**
+	 * Make the initial assignment of a trajectory, either at random or
+	 * by the randomized greedy construction, which respects the
+	 * roadblock and toxicity checks of this algorithm from the start.
+	 *
+	 * @param assigner the Assigner of the trajectory, set to its netlist.
+	 */
+	protected void doInitialAssignment(final Assigner assigner) {
+		if (this.getInitialAssignment().equalsIgnoreCase(INITIAL_GREEDY)) {
+			RoadblockChecker checker = null;
+			if (this.getCheckRoadblocks()) {
+				checker = new RoadblockChecker();
+				checker.setGateLibrary(this.getGateLibrary());
+				checker.setInputRoadblocks(this.getInputRoadblocks());
+				checker.setLogicRoadblocks(this.getLogicRoadblocks());
 			}
+			Double threshold = this.getCheckToxicity() ? this.getToxicityThreshold() : null;
+			assigner.doGreedyAssignment(checker,threshold,this.getGraspAlpha());
+		} else {
+			assigner.doRandomAssignment();
 		}
+	}
 
-		this.setTMNetlist(netlist);
-		logInfo("top score: " + scorer.getScore(this.getTMNetlist()));
+	/**
+	 * Create an ObjectiveEvaluator for a netlist, with the roadblock and
+	 * toxicity checks of this algorithm.
+	 *
+	 * @param netlist the netlist to evaluate.
+	 * @return the ObjectiveEvaluator.
+	 */
+	protected ObjectiveEvaluator createObjectiveEvaluator(final TMNetlist netlist) {
+		ObjectiveEvaluator rtn = new ObjectiveEvaluator(netlist);
+		rtn.setCheckToxicity(this.getCheckToxicity());
+		rtn.setToxicityThreshold(this.getToxicityThreshold());
+		rtn.setCheckRoadblocks(this.getCheckRoadblocks());
+		rtn.getRoadblockChecker().setGateLibrary(this.getGateLibrary());
+		rtn.getRoadblockChecker().setInputRoadblocks(this.getInputRoadblocks());
+		rtn.getRoadblockChecker().setLogicRoadblocks(this.getLogicRoadblocks());
+		rtn.setRowParallelThreshold(this.getParallelRows());
+		if (this.getScoring().equalsIgnoreCase(SCORING_CYTOMETRY)) {
+			rtn.setCytometrySimulator(new CytometrySimulator(netlist,this.getCytometryGrid()));
+		}
+		return rtn;
+	}
+
+	/**
+	 * Initialize the logic, input activities and output toxicity of a
+	 * netlist over the given rows of the truth table. The netlist must
+	 * be simulated again afterwards.
+	 *
+	 * @param netlist the netlist, with input and output gates assigned.
+	 * @param rows the rows of the full truth table, or null for all rows.
+	 */
+	protected void initRows(final TMNetlist netlist, final int[] rows) {
+		LogicSimulator ls = new LogicSimulator(netlist);
+		ls.setRows(rows);
+		ls.run();
+		new ActivitySimulator(netlist).initInputActivities(this.getInputActivities());
+		new ToxicitySimulator(netlist).initOutputToxicity();
+	}
+
+	/**
+	 * @return true if trajectories are scored over a sample of the rows of the truth table
+	 */
+	protected boolean isRowSampled() {
+		return this.getRowSampleSize() > 0 && this.getRowSampleSize() < this.getTMNetlist().getNumRows();
+	}
+
+	/**
+	 * Simulate a netlist and evaluate its score with the scoring of this
+	 * algorithm.
+	 *
+	 * @param netlist the netlist.
+	 * @return the score.
+	 */
+	protected double getScore(final TMNetlist netlist) {
+		ObjectiveEvaluator evaluator = this.createObjectiveEvaluator(netlist);
+		evaluator.simulate();
+		return evaluator.evaluate().getScore();
+	}
+
+	/**
+	 * Decide whether to move from the current assignment to a candidate.
+	 *
+	 * @param current the Objective of the current assignment.
+	 * @param candidate the Objective of the candidate assignment.
+	 * @param temperature the annealing temperature.
+	 * @param random the random number generator of the trajectory.
+	 * @return true if the candidate is accepted.
+	 */
+	protected boolean accept(final Objective current, final Objective candidate, final Double temperature, final Random random) {
+		boolean rtn = false;
+
+		// roadblock check
+		if (this.getCheckRoadblocks() && candidate.getRoadblocks() != current.getRoadblocks()) {
+			// accept fewer roadblocks, but don't proceed to evaluate based on score
+			rtn = candidate.getRoadblocks() < current.getRoadblocks();
+		}
+		// toxicity check
+		else if (this.getCheckToxicity() && current.getGrowth() < this.getToxicityThreshold()) {
+			rtn = candidate.getGrowth() > current.getGrowth();
+		}
+		else if (this.getCheckToxicity() && candidate.getGrowth() < this.getToxicityThreshold()) {
+			rtn = false;
+		}
+		// simulated annealing accept or reject
+		else {
+			Double probability = Math.exp( (candidate.getScore()
+					-
+					current.getScore())
+					/ temperature ); // e^b
+			Double ep = random.nextDouble();
+
+			rtn = (ep < probability)
+					&&
+					(!this.getCheckRoadblocks() || candidate.getRoadblocks() == 0)
+					&&
+					(!this.getCheckToxicity() || candidate.getGrowth() > this.getToxicityThreshold());
+		}
+		return rtn;
+	}
+
+	/**
+	 * Compare two objectives on the constraints of the acceptance rule
+	 * only: fewer roadblocks, then growth above the toxicity threshold,
+	 * then higher growth if both are below it.
+	 *
+	 * @param a the first Objective.
+	 * @param b the second Objective.
+	 * @return a positive number if a ranks above b, negative if b ranks
+	 * above a, and 0 if they rank equal.
+	 */
+	protected int compareConstraints(final Objective a, final Objective b) {
+		if (this.getCheckRoadblocks() && a.getRoadblocks() != b.getRoadblocks()) {
+			return Integer.compare(b.getRoadblocks(),a.getRoadblocks());
+		}
+		if (this.getCheckToxicity()) {
+			boolean aGrows = a.getGrowth() > this.getToxicityThreshold();
+			boolean bGrows = b.getGrowth() > this.getToxicityThreshold();
+			if (aGrows != bGrows) {
+				return aGrows ? 1 : -1;
+			}
+			if (!aGrows) {
+				return Double.compare(a.getGrowth(),b.getGrowth());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Compare two objectives with the priorities of the acceptance rule:
+	 * fewer roadblocks, then growth above the toxicity threshold, then
+	 * score.
+	 *
+	 * @param a the first Objective.
+	 * @param b the second Objective.
+	 * @return a positive number if a is fitter than b, negative if b is
+	 * fitter than a, and 0 otherwise.
+	 */
+	protected int compare(final Objective a, final Objective b) {
+		int rtn = this.compareConstraints(a,b);
+		if (rtn == 0) {
+			rtn = Double.compare(a.getScore(),b.getScore());
+		}
+		return rtn;
+	}
+
+	/**
+	 * Share the time left in the budget between the trajectories that have
+	 * not started, as many of them run at once as there are threads.
+	 *
+	 * @param start the System.nanoTime() at which the trajectory starts.
+	 * @param numStarted the number of trajectories started before this one.
+	 * @return the time slice of the trajectory in nanoseconds.
+	 */
+	private long getTimeSlice(final long start, final long numStarted) {
+		long rtn = Long.MAX_VALUE;
+		if (this.getTimeBudget() > 0) {
+			long remaining = Math.max(this.getDeadline() - start, 0);
+			long numLeft = Math.max(this.getNumTrajectories() - numStarted, 1);
+			long numConcurrent = Math.min(this.getNumThreads(), numLeft);
+			rtn = Math.max(remaining / numLeft * numConcurrent, 1);
+		}
+		return rtn;
+	}
+
+	private static final int NUM_SAMPLED_MOVES = 32;
+	private static final double INITIAL_ACCEPTANCE = 0.8;
+
+	/**
+	 * @return true if the time budget has been used up
+	 */
+	public boolean isExpired() {
+		return System.nanoTime() - this.getDeadline() >= 0;
+	}
+
+	/**
+	 * @return the number of steps run by the trajectories of the last run
+	 */
+	public long getNumStepsRun() {
+		return (numStepsRun == null) ? 0 : numStepsRun.get();
+	}
+
+	/**
+	 * Derive the seed of a trajectory's RNG stream from the algorithm seed.
+	 *
+	 * @param seed the algorithm seed.
+	 * @param trajectory the index of the trajectory.
+	 * @return the trajectory seed.
+	 */
+	protected static long getTrajectorySeed(final long seed, final int trajectory) {
+		// SplitMix64 finalizer over a golden-ratio increment
+		long z = seed + (trajectory + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 
 	@Override
@@ -487,6 +1061,314 @@ public class SimulatedAnnealing extends TMAlgorithm{
 		this.logicRoadblocks = logicRoadblocks;
 	}
 
+	/**
+	 * @return the number of threads on which to run trajectories
+	 */
+	protected Integer getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * @param numThreads the number of threads on which to run trajectories
+	 */
+	protected void setNumThreads(final Integer numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * @return the seed from which every trajectory's random number generator is derived
+	 */
+	protected Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param seed the seed from which every trajectory's random number generator is derived
+	 */
+	protected void setSeed(final Long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the maximum number of evaluated assignments to cache, 0 to disable the cache
+	 */
+	protected Integer getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * @param cacheSize the maximum number of evaluated assignments to cache
+	 */
+	protected void setCacheSize(final Integer cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * @return the table of keys used to hash assignments
+	 */
+	protected ZobristTable getZobristTable() {
+		return zobristTable;
+	}
+
+	/**
+	 * @param zobristTable the table of keys used to hash assignments
+	 */
+	protected void setZobristTable(final ZobristTable zobristTable) {
+		this.zobristTable = zobristTable;
+	}
+
+	/**
+	 * @return the cache of evaluated assignments
+	 */
+	protected ObjectiveCache getObjectiveCache() {
+		return objectiveCache;
+	}
+
+	/**
+	 * @param objectiveCache the cache of evaluated assignments
+	 */
+	protected void setObjectiveCache(final ObjectiveCache objectiveCache) {
+		this.objectiveCache = objectiveCache;
+	}
+
+	/**
+	 * @return the generator of move partners shared by all trajectories
+	 */
+	protected MoveGenerator getMoveGenerator() {
+		return moveGenerator;
+	}
+
+	/**
+	 * @param moveGenerator the generator of move partners shared by all trajectories
+	 */
+	protected void setMoveGenerator(final MoveGenerator moveGenerator) {
+		this.moveGenerator = moveGenerator;
+	}
+
+	/**
+	 * @return the maximum relative error of tabulated response functions, 0 to evaluate them exactly
+	 */
+	protected Double getResponseTolerance() {
+		return responseTolerance;
+	}
+
+	/**
+	 * @param responseTolerance the maximum relative error of tabulated response functions
+	 */
+	protected void setResponseTolerance(final Double responseTolerance) {
+		this.responseTolerance = responseTolerance;
+	}
+
+	/**
+	 * @return the wall-clock budget of the search in milliseconds, 0 for no budget
+	 */
+	protected Long getTimeBudget() {
+		return timeBudget;
+	}
+
+	/**
+	 * @param timeBudget the wall-clock budget of the search in milliseconds, 0 for no budget
+	 */
+	protected void setTimeBudget(final Long timeBudget) {
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * @return the System.nanoTime() at which the search stops
+	 */
+	protected long getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * @param deadline the System.nanoTime() at which the search stops
+	 */
+	protected void setDeadline(final long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * @return whether the cooling schedule adapts to the progress of each trajectory
+	 */
+	protected Boolean getAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * @param adaptive whether the cooling schedule adapts to the progress of each trajectory
+	 */
+	protected void setAdaptive(final Boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	/**
+	 * @return the number of steps a trajectory may go without improving before it is reheated or stopped
+	 */
+	protected Integer getPatience() {
+		return patience;
+	}
+
+	/**
+	 * @param patience the number of steps a trajectory may go without improving before it is reheated or stopped
+	 */
+	protected void setPatience(final Integer patience) {
+		this.patience = patience;
+	}
+
+	/**
+	 * @return the maximum number of reheats per trajectory
+	 */
+	protected Integer getMaxReheats() {
+		return maxReheats;
+	}
+
+	/**
+	 * @param maxReheats the maximum number of reheats per trajectory
+	 */
+	protected void setMaxReheats(final Integer maxReheats) {
+		this.maxReheats = maxReheats;
+	}
+
+	/**
+	 * @return the scoring, median on/off ratios or cytometry distribution overlap
+	 */
+	protected String getScoring() {
+		return scoring;
+	}
+
+	/**
+	 * @param scoring the scoring, "median" or "cytometry"
+	 */
+	protected void setScoring(final String scoring) {
+		this.scoring = scoring;
+	}
+
+	/**
+	 * @return the number of bins of the cytometry grid
+	 */
+	protected Integer getNumCytometryBins() {
+		return numCytometryBins;
+	}
+
+	/**
+	 * @param numCytometryBins the number of bins of the cytometry grid
+	 */
+	protected void setNumCytometryBins(final Integer numCytometryBins) {
+		this.numCytometryBins = numCytometryBins;
+	}
+
+	/**
+	 * @return the grid of output distributions, null unless cytometry is scored
+	 */
+	protected LogBinGrid getCytometryGrid() {
+		return cytometryGrid;
+	}
+
+	/**
+	 * @param cytometryGrid the grid of output distributions
+	 */
+	protected void setCytometryGrid(final LogBinGrid cytometryGrid) {
+		this.cytometryGrid = cytometryGrid;
+	}
+
+	/**
+	 * @return the initial number of sampled rows, 0 to score over the full truth table
+	 */
+	protected Integer getRowSampleSize() {
+		return rowSampleSize;
+	}
+
+	/**
+	 * @param rowSampleSize the initial number of sampled rows
+	 */
+	protected void setRowSampleSize(final Integer rowSampleSize) {
+		this.rowSampleSize = rowSampleSize;
+	}
+
+	/**
+	 * @return the number of steps between checks of the row sample
+	 */
+	protected Integer getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/**
+	 * @param sampleInterval the number of steps between checks of the row sample
+	 */
+	protected void setSampleInterval(final Integer sampleInterval) {
+		this.sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * @return the number of best assignments of a sampled trajectory that are evaluated exactly
+	 */
+	protected Integer getNumSampleKept() {
+		return numSampleKept;
+	}
+
+	/**
+	 * @param numSampleKept the number of best assignments of a sampled trajectory that are evaluated exactly
+	 */
+	protected void setNumSampleKept(final Integer numSampleKept) {
+		this.numSampleKept = numSampleKept;
+	}
+
+	/**
+	 * @return the number of rows from which a candidate is simulated in parallel, 0 if never
+	 */
+	protected Integer getParallelRows() {
+		return parallelRows;
+	}
+
+	/**
+	 * @param parallelRows the number of rows from which a candidate is simulated in parallel, 0 if never
+	 */
+	protected void setParallelRows(final Integer parallelRows) {
+		this.parallelRows = parallelRows;
+	}
+
+	/**
+	 * @return the initial assignment of a trajectory, "random" or "greedy"
+	 */
+	protected String getInitialAssignment() {
+		return initialAssignment;
+	}
+
+	/**
+	 * @param initialAssignment the initial assignment of a trajectory, "random" or "greedy"
+	 */
+	protected void setInitialAssignment(final String initialAssignment) {
+		this.initialAssignment = initialAssignment;
+	}
+
+	/**
+	 * @return the fraction of the range of greedy scores within which initial gates are drawn
+	 */
+	protected Double getGraspAlpha() {
+		return graspAlpha;
+	}
+
+	/**
+	 * @param graspAlpha the fraction of the range of greedy scores within which initial gates are drawn
+	 */
+	protected void setGraspAlpha(final Double graspAlpha) {
+		this.graspAlpha = graspAlpha;
+	}
+
+	/**
+	 * @return the low and high activities of the input promoters
+	 */
+	protected Map<String,Pair<Double,Double>> getInputActivities() {
+		return inputActivities;
+	}
+
+	/**
+	 * @param inputActivities the low and high activities of the input promoters
+	 */
+	protected void setInputActivities(final Map<String,Pair<Double,Double>> inputActivities) {
+		this.inputActivities = inputActivities;
+	}
+
 	private CObjectCollection<Part> partLibrary;
 	private CObjectCollection<Gate> gateLibrary;
 	private CObjectCollection<Gate> inputLibrary;
@@ -499,6 +1381,53 @@ public class SimulatedAnnealing extends TMAlgorithm{
 	private Integer numT0Steps;
 	private Double maxTemp;
 	private Double minTemp;
+	private Integer numThreads;
+	private Long seed;
+	private MoveGenerator moveGenerator;
+
+	// time budget
+	private Long timeBudget;
+	private volatile long deadline;
+	private AtomicLong numTrajectoriesRun;
+	private AtomicLong numStepsRun;
+	private AtomicLong numCacheHits;
+	private AtomicLong numCacheMisses;
+
+	// adaptive cooling
+	private Boolean adaptive;
+	private Integer patience;
+	private Integer maxReheats;
+
+	// scoring
+	protected static final String SCORING_MEDIAN = "median";
+	protected static final String SCORING_CYTOMETRY = "cytometry";
+	private static final double CYTOMETRY_TEMP_SCALE = 1e-3;
+	private String scoring;
+	private Integer numCytometryBins;
+	private LogBinGrid cytometryGrid;
+
+	// row sampling
+	private Integer rowSampleSize;
+	private Integer sampleInterval;
+	private Integer numSampleKept;
+	private Map<String,Pair<Double,Double>> inputActivities;
+
+	// row-parallel simulation
+	private Integer parallelRows;
+
+	// initial assignment
+	protected static final String INITIAL_RANDOM = "random";
+	protected static final String INITIAL_GREEDY = "greedy";
+	private String initialAssignment;
+	private Double graspAlpha;
+
+	// evaluation cache
+	private Integer cacheSize;
+	private ZobristTable zobristTable;
+	private ObjectiveCache objectiveCache;
+
+	// response functions
+	private Double responseTolerance;
 
 	// toxicity
 	private Boolean checkToxicity;
@@ -21,6 +21,9 @@
 package org.cellocad.technologymapping.algorithm;
 
 import org.cellocad.common.algorithm.AlgorithmFactory;
+import org.cellocad.technologymapping.algorithm.BranchAndBound.BranchAndBound;
+import org.cellocad.technologymapping.algorithm.Genetic.Genetic;
+import org.cellocad.technologymapping.algorithm.ReplicaExchange.ReplicaExchange;
 import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.SimulatedAnnealing;
 
 /**
@@ -37,6 +40,15 @@ public class TMAlgorithmFactory extends AlgorithmFactory<TMAlgorithm>{
 		if(name.equalsIgnoreCase("SimulatedAnnealing")){
 			rtn = new SimulatedAnnealing();
 		}
+		if(name.equalsIgnoreCase("ReplicaExchange")){
+			rtn = new ReplicaExchange();
+		}
+		if(name.equalsIgnoreCase("BranchAndBound")){
+			rtn = new BranchAndBound();
+		}
+		if(name.equalsIgnoreCase("Genetic")){
+			rtn = new Genetic();
+		}
 		return rtn;
 	}
 
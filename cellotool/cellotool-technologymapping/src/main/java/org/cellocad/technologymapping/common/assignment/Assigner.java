@@ -21,6 +21,7 @@
 package org.cellocad.technologymapping.common.assignment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -29,8 +30,13 @@ import java.util.Random;
 import org.cellocad.common.CObject;
 import org.cellocad.common.CObjectCollection;
 import org.cellocad.common.Utils;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
 import org.cellocad.technologymapping.common.netlist.TMNetlist;
 import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
+import org.cellocad.technologymapping.common.simulation.ActivitySimulator;
+import org.cellocad.technologymapping.common.simulation.LogicSimulator;
+import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
 import org.cellocad.technologymapping.data.Gate;
 
 /**
@@ -48,6 +54,7 @@ public class Assigner extends CObject{
 	 */
 	public Assigner() {
 		super();
+		this.setRandom(new Random());
 	}
 
 	/**
@@ -73,14 +80,14 @@ public class Assigner extends CObject{
 		// for (String type : gatesByType.keySet()) {
 		// it.put(type,gatesByType.get(type).iterator());
 		// }
-		Collections.shuffle(gateLibrary);
-		Iterator<Gate> it = gateLibrary.iterator();
+		List<Gate> gates = new ArrayList<>(this.getGateLibrary());
+		Collections.shuffle(gates,this.getRandom());
+		Iterator<Gate> it = gates.iterator();
 
 		int num = this.getTMNetlist().getNumVertex();
 		for (int j = 0; j < num; j++) {
 			TMNode node = this.getTMNetlist().getVertexAtIdx(j);
-			String type = node.getNodeType();
-			if (!type.equals("TopInput") && !type.equals("TopOutput")) {
+			if (node.getRole() == NodeRole.LOGIC) {
 				// if (!gatesByType.keySet().contains(type)) {
 				// 	throw new RuntimeException("No gates of type " + type
 				// 							   + " (node '" + node.getName() + "') exist in the library.");
@@ -98,6 +105,208 @@ public class Assigner extends CObject{
 				}
 			}
 		}
+		this.resetHash();
+		this.gateUsage = null;
+	}
+
+	/**
+	 * Do a greedy assignment of gates onto the TMNetlist, in schedule
+	 * order. Each logic node is assigned the gate that maximizes the
+	 * ratio of its own lowest on to highest off activity, given the
+	 * activities of the nodes upstream, among the gates whose group is
+	 * unused and that cause no roadblock and no growth below the
+	 * threshold together with the gates already assigned. If no gate is
+	 * legal, toxicity and then roadblocks are ignored for that node.
+	 *
+	 * With a positive alpha the gate is drawn at random from the
+	 * candidates whose log ratio is within alpha of the range of log
+	 * ratios from the best (GRASP), so that assignments stay diverse.
+	 * The input activities of the TMNetlist must have been initialized.
+	 *
+	 * @param checker the roadblock checker holding the roadblocks, or null to ignore roadblocks.
+	 * @param toxicityThreshold the growth threshold, or null to ignore toxicity.
+	 * @param alpha the fraction of the range of log ratios, between 0 (greedy) and 1 (random).
+	 */
+	public void doGreedyAssignment(final RoadblockChecker checker, final Double toxicityThreshold, final double alpha) {
+		Utils.isNullRuntimeException(this.getGateLibrary(),"gateLibrary");
+		Utils.isNullRuntimeException(this.getTMNetlist(),"tmNetlist");
+		TMNetlist netlist = this.getTMNetlist();
+		TMSchedule schedule = netlist.getSchedule();
+		int rows = netlist.getNumRows();
+		double[] activity = netlist.getActivityMatrix();
+
+		// shuffled so that ties are broken at random
+		List<Gate> gates = new ArrayList<>(this.getGateLibrary());
+		Collections.shuffle(gates,this.getRandom());
+		double[] scores = new double[gates.size()];
+		double[] input = new double[rows];
+		double[] growth = new double[rows];
+		Arrays.fill(growth,1.0);
+
+		for (int p = 0; p < schedule.getNumNodes(); p++) {
+			int idx = schedule.getNodeAt(p);
+			TMNode node = netlist.getVertexAtIdx(idx);
+			if (node.getRole() != NodeRole.LOGIC) {
+				continue;
+			}
+			Arrays.fill(input,0.0);
+			for (int j = 0; j < schedule.getNumIn(idx); j++) {
+				int src = schedule.getIn(idx,j) * rows;
+				for (int i = 0; i < rows; i++) {
+					input[i] += activity[src + i];
+				}
+			}
+
+			Gate gate = null;
+			for (int level = 0; level < 3 && gate == null; level++) {
+				RoadblockChecker c = (level < 2) ? checker : null;
+				Double t = (level < 1) ? toxicityThreshold : null;
+				gate = this.getGreedyGate(node,gates,scores,input,growth,c,t,alpha);
+			}
+			if (gate == null) {
+				throw new RuntimeException("Not enough gates in the library to cover the netlist.");
+			}
+			node.setGate(gate);
+			ActivitySimulator.computeNodeActivity(netlist,node,0,rows);
+			if (gate.getToxicity() != null) {
+				for (int i = 0; i < rows; i++) {
+					growth[i] *= ToxicitySimulator.clampGrowth(gate.getToxicity().getGrowth(input[i]));
+				}
+			}
+		}
+		this.resetHash();
+		this.gateUsage = null;
+	}
+
+	/**
+	 * Choose the gate of a logic node for a greedy assignment.
+	 *
+	 * @param node the logic node.
+	 * @param gates the gate library.
+	 * @param scores scratch space for the log ratio of every gate.
+	 * @param input the summed input activity of the node.
+	 * @param growth the growth of the gates already assigned.
+	 * @param checker the roadblock checker, or null to ignore roadblocks.
+	 * @param toxicityThreshold the growth threshold, or null to ignore toxicity.
+	 * @param alpha the fraction of the range of log ratios within which gates are drawn.
+	 * @return the gate, or null if no gate is legal.
+	 */
+	private Gate getGreedyGate(final TMNode node, final List<Gate> gates, final double[] scores,
+			final double[] input, final double[] growth,
+			final RoadblockChecker checker, final Double toxicityThreshold, final double alpha) {
+		TMNetlist netlist = this.getTMNetlist();
+		long[] logic = node.getLogicMask();
+		int rows = netlist.getNumRows();
+		double best = Double.NEGATIVE_INFINITY;
+		double worst = Double.POSITIVE_INFINITY;
+		int numLegal = 0;
+		for (int k = 0; k < gates.size(); k++) {
+			Gate gate = gates.get(k);
+			scores[k] = Double.NaN;
+			if (gate.getResponseFunction() == null
+					||
+					netlist.hasGatesOfGroup(gate.getGroup())
+					||
+					(checker != null && this.isRoadblock(node,gate,checker))
+					||
+					(toxicityThreshold != null && !this.isAboveThreshold(gate,input,growth,toxicityThreshold))) {
+				continue;
+			}
+			double lowestOn = Double.MAX_VALUE;
+			double highestOff = Double.MIN_VALUE;
+			boolean on = false;
+			boolean off = false;
+			for (int i = 0; i < rows; i++) {
+				double a = gate.getResponseFunction().applyAsDouble(input[i]);
+				if (LogicSimulator.getLogicBit(logic,i)) {
+					lowestOn = Math.min(lowestOn,a);
+					on = true;
+				} else {
+					highestOff = Math.max(highestOff,a);
+					off = true;
+				}
+			}
+			scores[k] = (on && off) ? Math.log(lowestOn / highestOff) : 0.0;
+			if (Double.isNaN(scores[k])) {
+				scores[k] = Double.NEGATIVE_INFINITY;
+			}
+			best = Math.max(best,scores[k]);
+			worst = Math.min(worst,scores[k]);
+			numLegal++;
+		}
+		if (numLegal == 0) {
+			return null;
+		}
+
+		// restricted candidate list; legal gates may score -Infinity, for
+		// which the range is infinite or undefined
+		double cut = (alpha > 0 && best > worst) ? best - alpha * (best - worst) : best;
+		int num = 0;
+		for (int k = 0; k < gates.size(); k++) {
+			if (scores[k] >= cut) {
+				num++;
+			}
+		}
+		int r = this.getRandom().nextInt(num);
+		for (int k = 0; k < gates.size(); k++) {
+			if (scores[k] >= cut && r-- == 0) {
+				return gates.get(k);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Whether assigning a gate to a node makes a node it drives a
+	 * roadblock, given the gates assigned so far.
+	 *
+	 * @param node the node.
+	 * @param gate the gate.
+	 * @param checker the roadblock checker.
+	 * @return true if a roadblock is made.
+	 */
+	private boolean isRoadblock(final TMNode node, final Gate gate, final RoadblockChecker checker) {
+		TMNetlist netlist = this.getTMNetlist();
+		TMSchedule schedule = netlist.getSchedule();
+		int idx = node.getIdx();
+		for (int j = 0; j < schedule.getNumOut(idx); j++) {
+			int dst = schedule.getOut(idx,j);
+			int numInputRoadblocks = checker.isInputRoadblock(gate) ? 1 : 0;
+			int numLogicRoadblocks = checker.isLogicRoadblock(gate) ? 1 : 0;
+			for (int k = 0; k < schedule.getNumIn(dst); k++) {
+				Gate other = netlist.getVertexAtIdx(schedule.getIn(dst,k)).getGate();
+				if (other != null && schedule.getIn(dst,k) != idx) {
+					numInputRoadblocks += checker.isInputRoadblock(other) ? 1 : 0;
+					numLogicRoadblocks += checker.isLogicRoadblock(other) ? 1 : 0;
+				}
+			}
+			if (RoadblockChecker.isRoadblock(numInputRoadblocks,numLogicRoadblocks)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the growth stays above the threshold in every row if a gate is added.
+	 *
+	 * @param gate the gate.
+	 * @param input the summed input activity of the gate.
+	 * @param growth the growth of the gates already assigned.
+	 * @param threshold the growth threshold.
+	 * @return true if the growth stays above the threshold.
+	 */
+	private boolean isAboveThreshold(final Gate gate, final double[] input, final double[] growth, final double threshold) {
+		if (gate.getToxicity() == null) {
+			return true;
+		}
+		for (int i = 0; i < input.length; i++) {
+			double g = growth[i] * ToxicitySimulator.clampGrowth(gate.getToxicity().getGrowth(input[i]));
+			if (Math.max(g,ToxicitySimulator.MIN_TOXICITY) <= threshold) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -135,10 +344,14 @@ public class Assigner extends CObject{
 	}
 
 	/**
-	 * Make a random assignment of one gate on the netlist.
+	 * Make a random assignment of one gate on the netlist, in place.
+	 *
+	 * @return the move that was made, which can be undone until the next call, which reuses it.
 	 */
-	public void assignRandomGate() {
-		Random rand = new Random();
+	public Move assignRandomGate() {
+		Move rtn = this.move;
+		rtn.clear();
+		Random rand = this.getRandom();
 		List<TMNode> logicNodes = this.getTMNetlist().getLogicNodes();
 		// get a random gate
 		Integer aIdx = rand.nextInt(logicNodes.size());
@@ -147,24 +360,63 @@ public class Assigner extends CObject{
 		Gate bGate = getAssignableGate(aGate);
 
 		// 1. if second gate is used, swap
-		if (this.getTMNetlist().hasGate(bGate)) {
-			Integer bIdx = 0; // need to know the second gate index
-			for(int i = 0; i < logicNodes.size(); i++) {
-				if (logicNodes.get(i).getGate().getName()
-					.equals(bGate.getName())) {
-					bIdx = i;
-					break;
-				}
-			}
+		TMNode bNode = this.getTMNetlist().getNodeByGate(bGate.getName());
+		if (bNode != null) {
 			// swap
-			logicNodes.get(aIdx).setGate(bGate);
-			logicNodes.get(bIdx).setGate(aGate);
+			rtn.assign(logicNodes.get(aIdx),bGate);
+			rtn.assign(bNode,aGate);
 
 		}
 		// 2. if second gate is unused, substitute
 		else {
-			logicNodes.get(aIdx).setGate(bGate);
+			rtn.assign(logicNodes.get(aIdx),bGate);
 		}
+		this.setHash(this.getHash() ^ this.getMoveHash(rtn,true) ^ this.getMoveHash(rtn,false));
+		this.getGateUsage().apply(rtn);
+		return rtn;
+	}
+
+	/**
+	 * Undo a move made by this Assigner, in place.
+	 *
+	 * @param move the move to undo.
+	 */
+	public void undo(final Move move) {
+		long before = this.getMoveHash(move,false);
+		this.getGateUsage().revert(move);
+		move.undo();
+		this.setHash(this.getHash() ^ before ^ this.getMoveHash(move,false));
+	}
+
+	/**
+	 * Get the exclusive or of the keys of the nodes changed by a move,
+	 * with either the gates they had before it or their current gates.
+	 *
+	 * @param move the move.
+	 * @param replaced whether to use the gates replaced by the move.
+	 * @return the partial hash.
+	 */
+	private long getMoveHash(final Move move, final boolean replaced) {
+		long rtn = 0;
+		if (this.getZobristTable() != null) {
+			for (int i = 0; i < move.getNodes().size(); i++) {
+				TMNode node = move.getNodes().get(i);
+				Gate gate = replaced ? move.getReplacedGate(i) : node.getGate();
+				rtn ^= this.getZobristTable().getKey(node,gate);
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Recompute the hash of the current assignment from scratch.
+	 */
+	public void resetHash() {
+		long hash = 0;
+		if (this.getZobristTable() != null) {
+			hash = this.getZobristTable().getHash(this.getTMNetlist());
+		}
+		this.setHash(hash);
 	}
 
 	/**
@@ -173,25 +425,17 @@ public class Assigner extends CObject{
 	 * @param gate the Gate to be swapped or subsituted.
 	 */
 	private Gate getAssignableGate(Gate gate) {
-		List<Gate> options = new ArrayList<>();
-		for(Gate g : this.getGateLibrary()) {
-			if(g.getName().equals(gate.getName())) {
-				continue;
-			}
-			if(g.getGroup().equals(gate.getGroup())) {
-				options.add(g);
-			}
-			if (!this.getTMNetlist().hasGatesOfGroup(g.getGroup())
-				||
-				this.getTMNetlist().hasGate(g)) {
-				options.add(g);
-			}
-		}
-		return options.get(new Random().nextInt(options.size()));
+		return this.getMoveGenerator().getAssignableGate(this.getGateUsage(),gate,this.getRandom());
 	}
 
 	private TMNetlist tmNetlist;
 	private CObjectCollection<Gate> gateLibrary;
+	private Random random;
+	private ZobristTable zobristTable;
+	private MoveGenerator moveGenerator;
+	private GateUsage gateUsage;
+	private long hash;
+	private Move move = new Move();
 
 	/**
 	 * @return the tmNetlist
@@ -205,6 +449,7 @@ public class Assigner extends CObject{
 	 */
 	public void setTMNetlist(final TMNetlist tmNetlist) {
 		this.tmNetlist = tmNetlist;
+		this.gateUsage = null;
 	}
 
 	/**
@@ -219,6 +464,80 @@ public class Assigner extends CObject{
 	 */
 	public void setGateLibrary(final CObjectCollection<Gate> gateLibrary) {
 		this.gateLibrary = gateLibrary;
+		this.moveGenerator = null;
+		this.gateUsage = null;
+	}
+
+	/**
+	 * @return the generator of move partners, by default uniform over the gate library
+	 */
+	public MoveGenerator getMoveGenerator() {
+		if (moveGenerator == null) {
+			Utils.isNullRuntimeException(this.getGateLibrary(),"gateLibrary");
+			moveGenerator = new MoveGenerator(this.getGateLibrary());
+		}
+		return moveGenerator;
+	}
+
+	/**
+	 * @param moveGenerator the generator of move partners
+	 */
+	public void setMoveGenerator(final MoveGenerator moveGenerator) {
+		this.moveGenerator = moveGenerator;
+		this.gateUsage = null;
+	}
+
+	/**
+	 * @return the usage of the gate library by the current assignment,
+	 * computed on first use and then updated from every move
+	 */
+	public GateUsage getGateUsage() {
+		if (gateUsage == null) {
+			gateUsage = new GateUsage(this.getMoveGenerator(),this.getTMNetlist());
+		}
+		return gateUsage;
+	}
+
+	/**
+	 * @return the random number generator used to make assignments
+	 */
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * @param random the random number generator used to make assignments
+	 */
+	public void setRandom(final Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * @return the table of keys used to hash assignments, or null if assignments are not hashed
+	 */
+	public ZobristTable getZobristTable() {
+		return zobristTable;
+	}
+
+	/**
+	 * @param zobristTable the table of keys used to hash assignments
+	 */
+	public void setZobristTable(final ZobristTable zobristTable) {
+		this.zobristTable = zobristTable;
+	}
+
+	/**
+	 * @return the Zobrist hash of the current assignment
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * @param hash the Zobrist hash of the current assignment
+	 */
+	private void setHash(final long hash) {
+		this.hash = hash;
 	}
 
 }
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.assignment;
+
+import org.cellocad.common.CObject;
+import org.cellocad.common.Utils;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.data.Gate;
+
+/**
+ * The gates of the library of a MoveGenerator that are assigned to the
+ * logic nodes of a netlist, and the groups that none of them is in. The
+ * weights of the assigned gates and of the unused groups are kept in
+ * WeightTrees, so that the partner of a move is drawn without looking
+ * at the logic nodes. The usage is computed once from the netlist and
+ * then updated from every Move, and from every Move undone.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class GateUsage extends CObject{
+
+	/**
+	 * Create the GateUsage of the current assignment of a netlist.
+	 *
+	 * @param generator the MoveGenerator whose library the gates are from.
+	 * @param netlist the netlist.
+	 */
+	public GateUsage(final MoveGenerator generator, final TMNetlist netlist) {
+		super();
+		Utils.isNullRuntimeException(generator,"generator");
+		Utils.isNullRuntimeException(netlist,"netlist");
+		this.generator = generator;
+		int numGates = generator.getNumGates();
+		int numGroups = generator.getNumGroups();
+		this.gateCounts = new int[numGates];
+		this.groupCounts = new int[numGroups];
+		this.assigned = new WeightTree(numGates);
+		this.unused = new WeightTree(numGroups);
+		for (int g = 0; g < numGroups; g++) {
+			this.unused.set(g,generator.getGroupWeight(g));
+		}
+		for (TMNode node : netlist.getLogicNodes()) {
+			this.add(node.getGate());
+		}
+	}
+
+	/**
+	 * Update the usage after a move has been made.
+	 *
+	 * @param move the move.
+	 */
+	public void apply(final Move move) {
+		for (int i = 0; i < move.getNodes().size(); i++) {
+			this.remove(move.getReplacedGate(i));
+		}
+		for (TMNode node : move.getNodes()) {
+			this.add(node.getGate());
+		}
+	}
+
+	/**
+	 * Update the usage before a move is undone.
+	 *
+	 * @param move the move.
+	 */
+	public void revert(final Move move) {
+		for (TMNode node : move.getNodes()) {
+			this.remove(node.getGate());
+		}
+		for (int i = 0; i < move.getNodes().size(); i++) {
+			this.add(move.getReplacedGate(i));
+		}
+	}
+
+	/**
+	 * Count a gate assigned to a logic node.
+	 *
+	 * @param gate the gate, or null.
+	 */
+	private void add(final Gate gate) {
+		if (gate == null) {
+			return;
+		}
+		int i = generator.getGateNum(gate);
+		if (gateCounts[i]++ == 0) {
+			assigned.set(i,generator.getWeight(i));
+		}
+		int g = generator.getGroup(i);
+		if (groupCounts[g]++ == 0) {
+			unused.set(g,0.0);
+		}
+	}
+
+	/**
+	 * Forget a gate no longer assigned to a logic node.
+	 *
+	 * @param gate the gate, or null.
+	 */
+	private void remove(final Gate gate) {
+		if (gate == null) {
+			return;
+		}
+		int i = generator.getGateNum(gate);
+		if (--gateCounts[i] == 0) {
+			assigned.set(i,0.0);
+		}
+		int g = generator.getGroup(i);
+		if (--groupCounts[g] == 0) {
+			unused.set(g,generator.getGroupWeight(g));
+		}
+	}
+
+	/**
+	 * @return the MoveGenerator whose library the gates are from
+	 */
+	public MoveGenerator getGenerator() {
+		return generator;
+	}
+
+	/**
+	 * @return the weights of the gates by library number, zero for gates that are not assigned
+	 */
+	public WeightTree getAssigned() {
+		return assigned;
+	}
+
+	/**
+	 * @return the weights of the groups, zero for groups with an assigned gate
+	 */
+	public WeightTree getUnused() {
+		return unused;
+	}
+
+	private MoveGenerator generator;
+	private int[] gateCounts;
+	private int[] groupCounts;
+	private WeightTree assigned;
+	private WeightTree unused;
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.assignment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cellocad.common.CObject;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.data.Gate;
+
+/**
+ * A gate swap or substitution made by the Assigner, with enough
+ * information to undo it.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class Move extends CObject{
+
+	public Move() {
+		super();
+		this.nodes = new ArrayList<>();
+		this.gates = new ArrayList<>();
+	}
+
+	/**
+	 * Assign a gate to a node, remembering the gate it replaces.
+	 *
+	 * @param node the node to assign.
+	 * @param gate the gate to assign to the node.
+	 */
+	public void assign(final TMNode node, final Gate gate) {
+		this.getNodes().add(node);
+		this.getGates().add(node.getGate());
+		node.setGate(gate);
+	}
+
+	/**
+	 * Forget the nodes and gates of this move, so that it can be reused
+	 * for the next move.
+	 */
+	public void clear() {
+		this.getNodes().clear();
+		this.getGates().clear();
+	}
+
+	/**
+	 * Restore the gates that were replaced by this move, in reverse order.
+	 */
+	public void undo() {
+		for (int i = this.getNodes().size() - 1; i >= 0; i--) {
+			this.getNodes().get(i).setGate(this.getGates().get(i));
+		}
+	}
+
+	/**
+	 * @return the nodes whose gates were changed by this move
+	 */
+	public List<TMNode> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param i the position of the node in getNodes().
+	 * @return the gate that the i-th node had before this move
+	 */
+	public Gate getReplacedGate(final int i) {
+		return this.getGates().get(i);
+	}
+
+	/**
+	 * @return the gates that were replaced by this move
+	 */
+	private List<Gate> getGates() {
+		return gates;
+	}
+
+	private List<TMNode> nodes;
+	private List<Gate> gates;
+
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.assignment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.cellocad.common.CObject;
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.data.Gate;
+
+/**
+ * Proposes the partner gate of a move. A gate can replace the gate of
+ * a node if it is in the same group, if it is assigned elsewhere (a
+ * swap), or if no gate of its group is assigned (a substitution).
+ *
+ * The library is arranged once into an array of candidates per group,
+ * with the cumulative weights of the candidates, uniform by default.
+ * The gates assigned to the logic nodes and the groups left unused are
+ * kept in a GateUsage, which the Assigner updates from every Move. A
+ * proposal reads the weight of each of the three kinds of legal
+ * partners from it, picks a kind, and draws the partner exactly from
+ * the candidates of that kind, without rejection and without
+ * allocating. The cost is logarithmic in the size of the library and
+ * does not depend on the number of logic nodes. The library itself is
+ * never modified.
+ *
+ * At most one gate of each group is expected to be assigned to the
+ * logic nodes, as every move keeps it that way. Gates without a group
+ * are each a group of their own.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class MoveGenerator extends CObject{
+
+	/**
+	 * Create a MoveGenerator drawing uniformly from a gate library.
+	 *
+	 * @param gateLibrary the gate library.
+	 */
+	public MoveGenerator(final CObjectCollection<Gate> gateLibrary) {
+		this(gateLibrary,null);
+	}
+
+	/**
+	 * Create a MoveGenerator drawing from a gate library with the given weights.
+	 *
+	 * @param gateLibrary the gate library.
+	 * @param weights the non-negative weight of each gate in the library, or null for uniform weights.
+	 */
+	public MoveGenerator(final CObjectCollection<Gate> gateLibrary, final double[] weights) {
+		super();
+		Utils.isNullRuntimeException(gateLibrary,"gateLibrary");
+		int num = gateLibrary.size();
+		if (num == 0) {
+			throw new RuntimeException("Empty gate library.");
+		}
+		if (weights != null && weights.length != num) {
+			throw new RuntimeException("Move weights must match the gate library.");
+		}
+		this.gates = new Gate[num];
+		this.groups = new int[num];
+		this.weights = new double[num];
+		this.gateNums = new HashMap<>();
+		Map<String,Integer> groupNums = new HashMap<>();
+		for (int i = 0; i < num; i++) {
+			Gate g = gateLibrary.get(i);
+			this.gates[i] = g;
+			this.gateNums.put(g.getName(),i);
+			String group = (g.getGroup() == null) ? "\0" + i : g.getGroup();
+			groupNums.putIfAbsent(group,groupNums.size());
+			this.groups[i] = groupNums.get(group);
+			this.weights[i] = (weights == null) ? 1.0 : weights[i];
+			if (!(this.weights[i] >= 0) || Double.isInfinite(this.weights[i])) {
+				throw new RuntimeException("Invalid move weight for gate " + g.getName() + ".");
+			}
+		}
+		this.initGroups(groupNums.size());
+		if (!(this.totalWeight > 0)) {
+			throw new RuntimeException("Move weights must not all be zero.");
+		}
+	}
+
+	/**
+	 * Build the candidate arrays of the groups, with the cumulative
+	 * weights of the candidates within each group.
+	 *
+	 * @param numGroups the number of groups.
+	 */
+	private void initGroups(final int numGroups) {
+		int num = gates.length;
+		int[] sizes = new int[numGroups];
+		for (int i = 0; i < num; i++) {
+			sizes[groups[i]]++;
+		}
+		this.groupGates = new int[numGroups][];
+		this.groupStarts = new double[numGroups][];
+		for (int g = 0; g < numGroups; g++) {
+			this.groupGates[g] = new int[sizes[g]];
+			this.groupStarts[g] = new double[sizes[g] + 1];
+		}
+		this.positions = new int[num];
+		int[] next = new int[numGroups];
+		for (int i = 0; i < num; i++) {
+			int g = groups[i];
+			int k = next[g]++;
+			this.groupGates[g][k] = i;
+			this.groupStarts[g][k + 1] = this.groupStarts[g][k] + weights[i];
+			this.positions[i] = k;
+		}
+		this.totalWeight = 0.0;
+		for (int g = 0; g < numGroups; g++) {
+			this.totalWeight += this.getGroupWeight(g);
+		}
+	}
+
+	/**
+	 * Draw a partner for a move replacing a gate of the netlist. The
+	 * usage of the netlist is computed from scratch, which takes time
+	 * linear in the number of logic nodes.
+	 *
+	 * @param netlist the netlist in its current assignment.
+	 * @param gate the gate to be swapped or substituted.
+	 * @param random the random number generator.
+	 * @return the partner gate.
+	 */
+	public Gate getAssignableGate(final TMNetlist netlist, final Gate gate, final Random random) {
+		return this.getAssignableGate(new GateUsage(this,netlist),gate,random);
+	}
+
+	/**
+	 * Draw a partner for a move replacing a gate of a netlist.
+	 *
+	 * @param usage the usage of the gate library by the current assignment of the netlist.
+	 * @param gate the gate to be swapped or substituted.
+	 * @param random the random number generator.
+	 * @return the partner gate.
+	 */
+	public Gate getAssignableGate(final GateUsage usage, final Gate gate, final Random random) {
+		if (usage.getGenerator() != this) {
+			throw new RuntimeException("GateUsage of another MoveGenerator.");
+		}
+		int a = this.getGateNum(gate);
+		int ga = groups[a];
+		WeightTree assigned = usage.getAssigned();
+		WeightTree unused = usage.getUnused();
+
+		// weights of the partners in the group of the gate, of the gates
+		// assigned in other groups and of the gates of unused groups; the
+		// gate itself is taken out of the assigned gates while drawing
+		double weight = assigned.get(a);
+		assigned.set(a,0.0);
+		double same = (groupGates[ga].length > 1) ? this.getGroupWeight(ga) - weights[a] : 0.0;
+		double swap = assigned.getTotal();
+		double substitute = unused.getTotal();
+		double total = same + swap + substitute;
+		if (!(total > 0)) {
+			assigned.set(a,weight);
+			throw new RuntimeException("No gate can be assigned in place of " + gate.getName() + ".");
+		}
+
+		int rtn;
+		double r = random.nextDouble() * total;
+		if (r < same) {
+			rtn = this.getGroupGate(ga,r,a);
+		} else if (r - same < swap) {
+			rtn = assigned.find(r - same);
+		} else {
+			r = Math.min(r - same - swap,Math.nextDown(substitute));
+			int g = unused.find(r);
+			rtn = this.getGroupGate(g,Math.max(0.0,r - unused.getPrefix(g)),-1);
+		}
+		assigned.set(a,weight);
+		return gates[rtn];
+	}
+
+	/**
+	 * Draw a gate of a group by its weight within the group.
+	 *
+	 * @param g the group.
+	 * @param r a weight between 0 and the weight of the group, less the weight of the excluded gate.
+	 * @param skip the library number of a gate of the group to exclude, or -1.
+	 * @return the library number of the gate.
+	 */
+	private int getGroupGate(final int g, final double r, final int skip) {
+		int[] members = groupGates[g];
+		double[] cum = groupStarts[g];
+		double x = r;
+		if (skip >= 0 && x >= cum[positions[skip]]) {
+			x += weights[skip];
+		}
+		// largest k with cum[k] <= x, then past any gate without weight
+		int lo = 0;
+		int hi = members.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (cum[mid] <= x) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		int k = lo;
+		while (members[k] == skip || !(weights[members[k]] > 0)) {
+			k = (k + 1) % members.length;
+		}
+		return members[k];
+	}
+
+	/**
+	 * @param g a group.
+	 * @return the total weight of the gates of the group
+	 */
+	double getGroupWeight(final int g) {
+		double[] cum = groupStarts[g];
+		return cum[cum.length - 1];
+	}
+
+	/**
+	 * @param i the library number of a gate.
+	 * @return the weight of the gate
+	 */
+	double getWeight(final int i) {
+		return weights[i];
+	}
+
+	/**
+	 * @param i the library number of a gate.
+	 * @return the group of the gate
+	 */
+	int getGroup(final int i) {
+		return groups[i];
+	}
+
+	/**
+	 * @return the number of gates in the library
+	 */
+	int getNumGates() {
+		return gates.length;
+	}
+
+	/**
+	 * @return the number of groups in the library
+	 */
+	int getNumGroups() {
+		return groupGates.length;
+	}
+
+	/**
+	 * @param gate a gate of the library.
+	 * @return the position of the gate in the library
+	 */
+	int getGateNum(final Gate gate) {
+		Integer rtn = gateNums.get(gate.getName());
+		if (rtn == null) {
+			throw new RuntimeException("Gate " + gate.getName() + " is not in the gate library.");
+		}
+		return rtn;
+	}
+
+	private Gate[] gates;
+	private int[] groups;
+	private double[] weights;
+	private int[][] groupGates;
+	private double[][] groupStarts;
+	private int[] positions;
+	private double totalWeight;
+	private Map<String,Integer> gateNums;
+
+}
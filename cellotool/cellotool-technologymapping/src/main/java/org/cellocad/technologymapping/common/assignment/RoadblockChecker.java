@@ -21,12 +21,14 @@
 package org.cellocad.technologymapping.common.assignment;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.cellocad.common.CObject;
 import org.cellocad.common.CObjectCollection;
-import org.cellocad.technologymapping.common.netlist.TMEdge;
 import org.cellocad.technologymapping.common.netlist.TMNetlist;
 import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
 import org.cellocad.technologymapping.data.Gate;
 
 /**
@@ -57,51 +59,215 @@ public class RoadblockChecker extends CObject{
 	}
 
 	/**
-	 * Get the total number of roadblocks for the assignment.
+	 * Get the total number of roadblocks for the assignment, counted
+	 * from scratch. This also initializes the state used by update.
 	 *
 	 * @return the number of roadblocks.
 	 */
 	public Integer getNumRoadblocks() {
-		int rtn = 0;
-		int num = this.getTMNetlist().getNumVertex();
+		TMNetlist netlist = this.getTMNetlist();
+		TMSchedule schedule = netlist.getSchedule();
+		int num = schedule.getNumNodes();
+		this.schedule = schedule;
+		this.nodeFlags = new int[num];
+		this.nodeGates = new Gate[num];
+		this.blocked = new boolean[num];
+		for (int i = 0; i < num; i++) {
+			Gate gate = netlist.getVertexAtIdx(i).getGate();
+			this.nodeGates[i] = gate;
+			this.nodeFlags[i] = this.getFlags(gate);
+		}
+		this.numRoadblocks = 0;
 		for (int i = 0; i < num; i++) {
-			TMNode node = this.getTMNetlist().getVertexAtIdx(i);
-			if (this.getNumRoadblocks(node) > 0) {
-				rtn++;
+			this.blocked[i] = this.isRoadblock(i);
+			if (this.blocked[i]) {
+				this.numRoadblocks++;
 			}
 		}
-		return rtn;
+		return this.numRoadblocks;
 	}
 
 	/**
-	 * Get the number of roadblocks for a particular TMNode.
+	 * Update the number of roadblocks after the gates of the given nodes
+	 * have changed, re-evaluating only the nodes they drive. Nodes whose
+	 * gate is unchanged since the last count or update are skipped, so
+	 * the same nodes can be passed again after a move is undone.
 	 *
+	 * @param nodes the nodes whose gates may have changed.
 	 * @return the number of roadblocks.
 	 */
-	private Integer getNumRoadblocks(TMNode node) {
-		int rtn = 0;
-		Integer numInputRoadblocks = 0;
-		Integer numLogicRoadblocks = 0;
-		for (int i = 0; i < node.getNumInEdge(); i++) {
-			TMEdge e = node.getInEdgeAtIdx(i);
-			TMNode src = e.getSrc();
-
-			if (this.getInputRoadblocks().contains(src.getGate().getName())) {
-				numInputRoadblocks++;
+	public Integer update(final Collection<TMNode> nodes) {
+		if (this.schedule == null || this.schedule != this.getTMNetlist().getSchedule()) {
+			return this.getNumRoadblocks();
+		}
+		for (TMNode node : nodes) {
+			int idx = node.getIdx();
+			Gate gate = node.getGate();
+			if (gate == nodeGates[idx]) {
+				continue;
 			}
-			if (this.getLogicRoadblocks().contains(src.getGate().getPromoter().getName())) {
-				numLogicRoadblocks++;
+			nodeGates[idx] = gate;
+			int flags = this.getFlags(gate);
+			if (flags == nodeFlags[idx]) {
+				continue;
+			}
+			nodeFlags[idx] = flags;
+			for (int j = 0; j < schedule.getNumOut(idx); j++) {
+				int dst = schedule.getOut(idx,j);
+				boolean b = this.isRoadblock(dst);
+				if (b != blocked[dst]) {
+					blocked[dst] = b;
+					numRoadblocks += b ? 1 : -1;
+				}
 			}
 		}
+		return numRoadblocks;
+	}
+
+	/**
+	 * Whether a node is a roadblock, given the flags of the gates that drive it.
+	 *
+	 * @param idx the index of the node.
+	 * @return true if the node is a roadblock.
+	 */
+	private boolean isRoadblock(final int idx) {
+		int numInputRoadblocks = 0;
+		int numLogicRoadblocks = 0;
+		for (int j = 0; j < schedule.getNumIn(idx); j++) {
+			int flags = nodeFlags[schedule.getIn(idx,j)];
+			numInputRoadblocks += flags & INPUT_ROADBLOCK;
+			numLogicRoadblocks += (flags & LOGIC_ROADBLOCK) >>> 1;
+		}
+		return isRoadblock(numInputRoadblocks,numLogicRoadblocks);
+	}
+
+	/**
+	 * Whether a node is a roadblock: at least one of the gates that drive
+	 * it has a logic roadblock promoter, and it is driven by more than one
+	 * roadblock in total.
+	 *
+	 * @param numInputRoadblocks the number of input roadblocks that drive the node.
+	 * @param numLogicRoadblocks the number of logic roadblocks that drive the node.
+	 * @return true if the node is a roadblock.
+	 */
+	public static boolean isRoadblock(final int numInputRoadblocks, final int numLogicRoadblocks) {
 		int total = numInputRoadblocks + numLogicRoadblocks;
+		return numLogicRoadblocks > 0 && total > 1;
+	}
+
+	/**
+	 * @param gate the gate.
+	 * @return true if the gate is an input roadblock.
+	 */
+	public boolean isInputRoadblock(final Gate gate) {
+		return (this.getFlags(gate) & INPUT_ROADBLOCK) != 0;
+	}
+
+	/**
+	 * @param gate the gate.
+	 * @return true if the promoter of the gate is a logic roadblock.
+	 */
+	public boolean isLogicRoadblock(final Gate gate) {
+		return (this.getFlags(gate) & LOGIC_ROADBLOCK) != 0;
+	}
+
+	/**
+	 * Get the roadblock flags of a gate, indexed by its library number
+	 * if it is in the gate library.
+	 *
+	 * @param gate the gate, or null.
+	 * @return INPUT_ROADBLOCK if the gate is an input roadblock, plus
+	 * LOGIC_ROADBLOCK if its promoter is a logic roadblock.
+	 */
+	public int getFlags(final Gate gate) {
+		int num = this.getGateNum(gate);
+		return (num >= 0) ? libraryFlags[num] : this.computeFlags(gate);
+	}
+
+	/**
+	 * @param num the library number of a gate.
+	 * @return the roadblock flags of the gate
+	 */
+	public int getFlags(final int num) {
+		return libraryFlags[num];
+	}
 
-		if(numLogicRoadblocks > 0 && total > 1) {
-			rtn++;
+	/**
+	 * @param gate a gate, or null.
+	 * @return the position of the gate in the gate library, or -1 if it is not in it
+	 */
+	public int getGateNum(final Gate gate) {
+		if (gate == null) {
+			return -1;
 		}
+		Integer rtn = gateNums.get(gate.getName());
+		return (rtn == null) ? -1 : rtn;
+	}
 
+	/**
+	 * @return the roadblock flags of the gates of the library, by library
+	 * number, compiled into a new array whenever the library or the
+	 * roadblock sets are set
+	 */
+	public int[] getLibraryFlags() {
+		return libraryFlags;
+	}
+
+	/**
+	 * Compile the roadblock flags of the gates of the library.
+	 */
+	private void compileFlags() {
+		CObjectCollection<Gate> library = this.getGateLibrary();
+		int num = (library == null) ? 0 : library.size();
+		Map<String,Integer> nums = new HashMap<>();
+		int[] flags = new int[num];
+		for (int i = 0; i < num; i++) {
+			nums.put(library.get(i).getName(),i);
+			flags[i] = this.computeFlags(library.get(i));
+		}
+		this.gateNums = nums;
+		this.libraryFlags = flags;
+		this.schedule = null;
+	}
+
+	/**
+	 * @param gate the gate, or null.
+	 * @return the roadblock flags of the gate, computed from the roadblock sets
+	 */
+	private int computeFlags(final Gate gate) {
+		int rtn = 0;
+		if (gate == null) {
+			return rtn;
+		}
+		if (this.getInputRoadblocks() != null
+				&&
+				this.getInputRoadblocks().contains(gate.getName())) {
+			rtn |= INPUT_ROADBLOCK;
+		}
+		if (gate.getPromoter() != null
+				&&
+				this.getLogicRoadblocks() != null
+				&&
+				this.getLogicRoadblocks().contains(gate.getPromoter().getName())) {
+			rtn |= LOGIC_ROADBLOCK;
+		}
 		return rtn;
 	}
 
+	public static final int INPUT_ROADBLOCK = 1;
+	public static final int LOGIC_ROADBLOCK = 2;
+
+	// compiled roadblock sets
+	private Map<String,Integer> gateNums = new HashMap<>();
+	private int[] libraryFlags = new int[0];
+
+	// state of the last count, kept up to date by update
+	private TMSchedule schedule;
+	private int[] nodeFlags;
+	private Gate[] nodeGates;
+	private boolean[] blocked;
+	private int numRoadblocks;
+
 	private TMNetlist tmNetlist;
 	private CObjectCollection<Gate> gateLibrary;
 	private Collection<String> logicRoadblocks;
@@ -119,6 +285,7 @@ public class RoadblockChecker extends CObject{
 	 */
 	public void setTMNetlist(final TMNetlist tmNetlist) {
 		this.tmNetlist = tmNetlist;
+		this.schedule = null;
 	}
 
 	/**
@@ -133,6 +300,7 @@ public class RoadblockChecker extends CObject{
 	 */
 	public void setGateLibrary(final CObjectCollection<Gate> gateLibrary) {
 		this.gateLibrary = gateLibrary;
+		this.compileFlags();
 	}
 
 	/**
@@ -147,6 +315,7 @@ public class RoadblockChecker extends CObject{
 	 */
 	public void setLogicRoadblocks(Collection<String> logicRoadblocks) {
 		this.logicRoadblocks = logicRoadblocks;
+		this.compileFlags();
 	}
 
 	/**
@@ -161,6 +330,7 @@ public class RoadblockChecker extends CObject{
 	 */
 	public void setInputRoadblocks(Collection<String> inputRoadblocks) {
 		this.inputRoadblocks = inputRoadblocks;
+		this.compileFlags();
 	}
 
 }
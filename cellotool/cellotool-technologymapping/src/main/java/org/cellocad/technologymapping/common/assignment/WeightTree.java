@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.assignment;
+
+import org.cellocad.common.CObject;
+
+/**
+ * A complete binary tree of sums over a fixed number of non-negative
+ * weights. A weight is changed and an index is drawn in proportion to
+ * its weight in time logarithmic in the number of weights. Every sum
+ * is recomputed from its two children rather than adjusted by the
+ * change, so the sums depend only on the current weights and do not
+ * drift however many changes are made.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class WeightTree extends CObject{
+
+	/**
+	 * Create a WeightTree with all weights zero.
+	 *
+	 * @param num the number of weights.
+	 */
+	public WeightTree(final int num) {
+		super();
+		int size = 1;
+		while (size < num) {
+			size <<= 1;
+		}
+		this.size = size;
+		this.sums = new double[2 * size];
+	}
+
+	/**
+	 * @param i an index.
+	 * @return the weight of the index
+	 */
+	public double get(final int i) {
+		return sums[size + i];
+	}
+
+	/**
+	 * Set the weight of an index.
+	 *
+	 * @param i the index.
+	 * @param weight the non-negative weight.
+	 */
+	public void set(final int i, final double weight) {
+		int k = size + i;
+		sums[k] = weight;
+		for (k >>>= 1; k > 0; k >>>= 1) {
+			sums[k] = sums[2 * k] + sums[2 * k + 1];
+		}
+	}
+
+	/**
+	 * @return the sum of all weights
+	 */
+	public double getTotal() {
+		return sums[1];
+	}
+
+	/**
+	 * @param i an index.
+	 * @return the sum of the weights of the indices before it
+	 */
+	public double getPrefix(final int i) {
+		double rtn = 0.0;
+		int k = size + i;
+		for (; k > 1; k >>>= 1) {
+			if ((k & 1) == 1) {
+				rtn += sums[k - 1];
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Find the index whose weight contains r in the cumulative weights.
+	 * Where rounding leaves r past the weights of a subtree, the last
+	 * index with weight before it is taken instead, so the index found
+	 * always has weight.
+	 *
+	 * @param r a weight between 0 and the total weight, which must be positive.
+	 * @return the index.
+	 */
+	public int find(final double r) {
+		double x = r;
+		int k = 1;
+		while (k < size) {
+			int left = 2 * k;
+			if (x < sums[left] || !(sums[left + 1] > 0)) {
+				k = left;
+			} else {
+				x -= sums[left];
+				k = left + 1;
+			}
+		}
+		return k - size;
+	}
+
+	private int size;
+	private double[] sums;
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.assignment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cellocad.common.CObject;
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.data.Gate;
+
+/**
+ * Table of random 64-bit keys, one per (node, gate) pair, whose
+ * exclusive or over all assigned pairs identifies a gate assignment.
+ * Changing the gate of a node updates the hash with two exclusive ors.
+ * The keys depend only on the node indices and the gate library, so
+ * one table can be shared by every copy of a netlist.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public final class ZobristTable extends CObject{
+
+	/**
+	 * Create a table for the nodes of a netlist and the gates of a library.
+	 *
+	 * @param netlist the netlist whose nodes are to be assigned.
+	 * @param gateLibrary the gates that can be assigned.
+	 */
+	public ZobristTable(final TMNetlist netlist, final CObjectCollection<Gate> gateLibrary) {
+		super();
+		this.numGates = gateLibrary.size();
+		this.gateNums = new HashMap<>();
+		for (int i = 0; i < gateLibrary.size(); i++) {
+			this.gateNums.put(gateLibrary.get(i).getName(),i);
+		}
+		this.keys = new long[netlist.getNumVertex() * this.numGates];
+		long z = SEED;
+		for (int i = 0; i < this.keys.length; i++) {
+			// SplitMix64
+			z += 0x9E3779B97F4A7C15L;
+			long k = z;
+			k = (k ^ (k >>> 30)) * 0xBF58476D1CE4E5B9L;
+			k = (k ^ (k >>> 27)) * 0x94D049BB133111EBL;
+			this.keys[i] = k ^ (k >>> 31);
+		}
+	}
+
+	/**
+	 * Get the key of a gate assigned to a node. Gates that are not in
+	 * the library, and unassigned nodes, have key 0.
+	 *
+	 * @param node the node.
+	 * @param gate the gate assigned to the node.
+	 * @return the key.
+	 */
+	public long getKey(final TMNode node, final Gate gate) {
+		long rtn = 0;
+		if (gate != null) {
+			Integer g = this.gateNums.get(gate.getName());
+			if (g != null) {
+				rtn = this.keys[node.getIdx() * this.numGates + g];
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Compute the hash of the current assignment of a netlist from scratch.
+	 *
+	 * @param netlist the netlist.
+	 * @return the hash.
+	 */
+	public long getHash(final TMNetlist netlist) {
+		long rtn = 0;
+		for (int i = 0; i < netlist.getNumVertex(); i++) {
+			TMNode node = netlist.getVertexAtIdx(i);
+			rtn ^= this.getKey(node,node.getGate());
+		}
+		return rtn;
+	}
+
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+
+	private int numGates;
+	private Map<String,Integer> gateNums;
+	private long[] keys;
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.netlist;
+
+/**
+ * The role of a TMNode in a netlist, parsed once from its node type.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public enum NodeRole {
+	INPUT("TopInput"),
+	OUTPUT("TopOutput"),
+	LOGIC("Logic");
+
+	private final String nodeRole;
+
+	NodeRole(String nodeRole) {
+		this.nodeRole = nodeRole;
+	}
+
+	/**
+	 * Get the role of a node with the given node type.
+	 *
+	 * @param nodeType the node type.
+	 * @return INPUT for "TopInput", OUTPUT for "TopOutput", LOGIC otherwise.
+	 */
+	public static NodeRole fromNodeType(String nodeType) {
+		NodeRole rtn = LOGIC;
+		if (INPUT.toString().equals(nodeType)) {
+			rtn = INPUT;
+		} else if (OUTPUT.toString().equals(nodeType)) {
+			rtn = OUTPUT;
+		}
+		return rtn;
+	}
+
+	public String toString() {
+		return nodeRole;
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.netlist;
+
+import org.cellocad.common.CObject;
+
+/**
+ * Undo journal for the simulation state of a TMNetlist. The activity
+ * and toxicity rows of a TMNode are copied into preallocated buffers
+ * the first time they are written after a commit, so that the
+ * simulation results of a rejected move can be rolled back in time
+ * proportional to the number of nodes it touched, without allocation.
+ * The circuit growth of the netlist is recorded as a whole.
+ * Gate assignments are undone by the Move itself.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class TMJournal extends CObject{
+
+	/**
+	 * Create a journal for the given netlist. The simulation state of
+	 * the netlist must already have been initialized.
+	 *
+	 * @param netlist the netlist whose nodes are to be recorded.
+	 */
+	public TMJournal(final TMNetlist netlist) {
+		super();
+		int num = netlist.getNumVertex();
+		for (int i = 0; i < num; i++) {
+			if (netlist.getVertexAtIdx(i).getIdx() != i) {
+				throw new RuntimeException("TMNode indices must match their position in the TMNetlist.");
+			}
+		}
+		this.netlist = netlist;
+		this.recorded = new boolean[num];
+		this.recordedIdx = new int[num];
+		this.numRecorded = 0;
+		this.activity = new double[netlist.getActivityMatrix().length];
+		this.toxicity = new double[netlist.getToxicityMatrix().length];
+		this.logGrowth = new long[netlist.getNumRows()];
+	}
+
+	/**
+	 * Record the state of a node if it has not been recorded since the last commit.
+	 *
+	 * @param node the node about to be modified.
+	 */
+	public void record(final TMNode node) {
+		int idx = node.getIdx();
+		if (recorded[idx]) {
+			return;
+		}
+		recorded[idx] = true;
+		recordedIdx[numRecorded++] = idx;
+		int rows = netlist.getNumRows();
+		System.arraycopy(netlist.getActivityMatrix(),idx * rows,activity,idx * rows,rows);
+		System.arraycopy(netlist.getToxicityMatrix(),idx * rows,toxicity,idx * rows,rows);
+	}
+
+	/**
+	 * Record the circuit growth if it has not been recorded since the last commit.
+	 */
+	public void recordGrowth() {
+		if (growthRecorded) {
+			return;
+		}
+		growthRecorded = true;
+		System.arraycopy(netlist.getLogGrowth(),0,logGrowth,0,logGrowth.length);
+		minGrowth = netlist.getMinGrowth();
+	}
+
+	/**
+	 * Restore every recorded node to its state at the last commit.
+	 */
+	public void rollback() {
+		int rows = netlist.getNumRows();
+		for (int i = 0; i < numRecorded; i++) {
+			int idx = recordedIdx[i];
+			System.arraycopy(activity,idx * rows,netlist.getActivityMatrix(),idx * rows,rows);
+			System.arraycopy(toxicity,idx * rows,netlist.getToxicityMatrix(),idx * rows,rows);
+		}
+		if (growthRecorded) {
+			System.arraycopy(logGrowth,0,netlist.getLogGrowth(),0,logGrowth.length);
+			netlist.setMinGrowth(minGrowth);
+		}
+		this.commit();
+	}
+
+	/**
+	 * Accept the current state of the netlist and forget the recorded state.
+	 */
+	public void commit() {
+		for (int i = 0; i < numRecorded; i++) {
+			recorded[recordedIdx[i]] = false;
+		}
+		numRecorded = 0;
+		growthRecorded = false;
+	}
+
+	/**
+	 * @return the number of nodes recorded since the last commit
+	 */
+	public int getNumRecorded() {
+		return numRecorded;
+	}
+
+	private TMNetlist netlist;
+	private boolean[] recorded;
+	private int[] recordedIdx;
+	private int numRecorded;
+	private double[] activity;
+	private double[] toxicity;
+	private boolean growthRecorded;
+	private long[] logGrowth;
+	private double minGrowth;
+
+}
@@ -21,6 +21,8 @@
 package org.cellocad.technologymapping.common.netlist;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +55,12 @@ public class TMNetlist extends GraphTemplate<TMNode,TMEdge>{
 	 */
 	public TMNetlist(final TMNetlist other) {
 		super(other);
+		this.numRows = other.getNumRows();
+		this.activity = other.getActivityMatrix().clone();
+		this.toxicity = other.getToxicityMatrix().clone();
+		this.logGrowth = other.getLogGrowth().clone();
+		this.minGrowth = other.getMinGrowth();
+		this.schedule = other.getSchedule();
 	}
 
 	/**
@@ -70,6 +78,7 @@ public class TMNetlist extends GraphTemplate<TMNode,TMEdge>{
 		for (int i = 0; i < netlist.getNumVertex(); i++) {
 			NetlistNode v = netlist.getVertexAtIdx(i);
 			TMNode vertex = createV(v);
+			vertex.setIdx(i);
 			mapVertexOtherThis.put(v, vertex);
 			this.addVertex(vertex);
 		}
@@ -147,6 +156,40 @@ public class TMNetlist extends GraphTemplate<TMNode,TMEdge>{
 		}
 	}
 
+	@Override
+	public void addVertex(final TMNode vertex) {
+		super.addVertex(vertex);
+		if (vertex != null) {
+			vertex.setTMNetlist(this);
+			this.updateGateIndex(vertex,null,vertex.getGate());
+		}
+		this.schedule = null;
+		this.invalidateRoles();
+	}
+
+	@Override
+	public void removeVertex(final TMNode vertex) {
+		super.removeVertex(vertex);
+		if (vertex != null) {
+			this.updateGateIndex(vertex,vertex.getGate(),null);
+			vertex.setTMNetlist(null);
+		}
+		this.schedule = null;
+		this.invalidateRoles();
+	}
+
+	@Override
+	public void addEdge(final TMEdge edge) {
+		super.addEdge(edge);
+		this.schedule = null;
+	}
+
+	@Override
+	public void removeEdge(final TMEdge edge) {
+		super.removeEdge(edge);
+		this.schedule = null;
+	}
+
 	@Override
 	public TMNode createV(final TMNode other) {
 		TMNode rtn = new TMNode(other);
@@ -176,13 +219,7 @@ public class TMNetlist extends GraphTemplate<TMNode,TMEdge>{
 	 * @return whether the gate exists.
 	 */
 	public Boolean hasGate(Gate gate) {
-		for (int i = 0; i < this.getNumVertex(); i++) {
-			TMNode v = this.getVertexAtIdx(i);
-			if (v.getGate().equals(gate)) {
-				return true;
-			}
-		}
-		return false;
+		return this.getGateNodes().containsKey(gate.getName());
 	}
 
 	/**
@@ -192,88 +229,316 @@ public class TMNetlist extends GraphTemplate<TMNode,TMEdge>{
 	 * @return whether the gate exists.
 	 */
 	public Boolean hasGate(String gate) {
-		for (int i = 0; i < this.getNumVertex(); i++) {
-			TMNode v = this.getVertexAtIdx(i);
-			if (v.getGate().getName().equals(gate)) {
-				return true;
-			}
-		}
-		return false;
+		return this.getGateNodes().containsKey(gate);
+	}
+
+	/**
+	 * Get the node to which a gate is assigned.
+	 *
+	 * @param gate the name of the gate.
+	 * @return the node, or null if the gate is not assigned.
+	 */
+	public TMNode getNodeByGate(String gate) {
+		return this.getGateNodes().get(gate);
 	}
 
 	/**
 	 * Check if any gates of a particular group have been assigned.
 	 *
-	 * @param techNodes the collection of TMNode objects to check for group assignments.
 	 * @param group the group for which to check.
 	 * @return true if there are gates in the netlist of the specified group.
 	 */
 	public Boolean hasGatesOfGroup(String group) {
-		for (int i = 0; i < this.getNumVertex(); i++) {
-			TMNode v = this.getVertexAtIdx(i);
-			Gate g = v.getGate();
-			if (g == null)
-				continue;
-			String str = g.getGroup();
-			if (str == null)
-				continue;
-			if (str.equals(group))
-				return true;
+		return this.getGroupCounts().containsKey(group);
+	}
+
+	/**
+	 * Update the gate and group indices when the gate of a node changes.
+	 * A gate is expected to be assigned to at most one node, except
+	 * transiently during a swap.
+	 *
+	 * @param node the node.
+	 * @param oldGate the gate previously assigned to the node, or null.
+	 * @param newGate the gate now assigned to the node, or null.
+	 */
+	void updateGateIndex(final TMNode node, final Gate oldGate, final Gate newGate) {
+		Map<String,TMNode> gateNodes = this.getGateNodes();
+		Map<String,Integer> groupCounts = this.getGroupCounts();
+		if (oldGate != null) {
+			if (gateNodes.get(oldGate.getName()) == node) {
+				gateNodes.remove(oldGate.getName());
+			}
+			String group = oldGate.getGroup();
+			if (group != null) {
+				int count = groupCounts.get(group) - 1;
+				if (count == 0) {
+					groupCounts.remove(group);
+				} else {
+					groupCounts.put(group,count);
+				}
+			}
+		}
+		if (newGate != null) {
+			gateNodes.put(newGate.getName(),node);
+			String group = newGate.getGroup();
+			if (group != null) {
+				groupCounts.merge(group,1,Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * @return the map from assigned gate name to node
+	 */
+	private Map<String,TMNode> getGateNodes() {
+		// created on first use, vertices are added before fields are initialized
+		if (gateNodes == null) {
+			gateNodes = new HashMap<>();
+		}
+		return gateNodes;
+	}
+
+	/**
+	 * @return the map from group name to the number of assigned gates of that group
+	 */
+	private Map<String,Integer> getGroupCounts() {
+		if (groupCounts == null) {
+			groupCounts = new HashMap<>();
 		}
-		return false;
+		return groupCounts;
 	}
 
 	/**
 	 * Get all the input nodes in the netlist.
 	 *
-	 * @return the input nodes in the netlist.
+	 * @return the input nodes in the netlist, in index order, unmodifiable.
 	 */
 	public List<TMNode> getInputNodes() {
-		List<TMNode> rtn = new ArrayList<>();
-		int num = this.getNumVertex();
-		for (int i = 0; i < num; i++) {
-			TMNode node = this.getVertexAtIdx(i);
-			if (node.getNodeType().equals("TopInput")) {
-				rtn.add(node);
-			}
-		}
-		return rtn;
+		this.initRoles();
+		return inputNodes;
 	}
 
 	/**
 	 * Get all the output nodes in a netlist.
 	 *
-	 * @return the output nodes in the netlist.
+	 * @return the output nodes in the netlist, in index order, unmodifiable.
 	 */
 	public List<TMNode> getOutputNodes() {
-		List<TMNode> rtn = new ArrayList<>();
-		int num = this.getNumVertex();
-		for (int i = 0; i < num; i++) {
-			TMNode node = this.getVertexAtIdx(i);
-			if (node.getNodeType().equals("TopOutput")) {
-				rtn.add(node);
-			}
-		}
-		return rtn;
+		this.initRoles();
+		return outputNodes;
 	}
 
 	/**
 	 * Get all the logic nodes in the netlist.
 	 *
-	 * @return the logic nodes in the netlist.
+	 * @return the logic nodes in the netlist, in index order, unmodifiable.
 	 */
 	public List<TMNode> getLogicNodes() {
-		List<TMNode> rtn = new ArrayList<>();
+		this.initRoles();
+		return logicNodes;
+	}
+
+	/**
+	 * @return the indices of the input nodes, not to be modified
+	 */
+	public int[] getInputIdx() {
+		this.initRoles();
+		return inputIdx;
+	}
+
+	/**
+	 * @return the indices of the output nodes, not to be modified
+	 */
+	public int[] getOutputIdx() {
+		this.initRoles();
+		return outputIdx;
+	}
+
+	/**
+	 * @return the indices of the logic nodes, not to be modified
+	 */
+	public int[] getLogicIdx() {
+		this.initRoles();
+		return logicIdx;
+	}
+
+	/**
+	 * Partition the nodes by role, if not already done. The indices of the
+	 * logic nodes are volatile and written last, so a thread that finds
+	 * them also sees the rest of the partition.
+	 */
+	private void initRoles() {
+		if (logicIdx != null) {
+			return;
+		}
+		List<TMNode> inputs = new ArrayList<>();
+		List<TMNode> outputs = new ArrayList<>();
+		List<TMNode> logic = new ArrayList<>();
 		int num = this.getNumVertex();
 		for (int i = 0; i < num; i++) {
 			TMNode node = this.getVertexAtIdx(i);
-			if (!node.getNodeType().equals("TopOutput")
-					&&
-					!node.getNodeType().equals("TopInput")) {
-				rtn.add(node);
+			switch (node.getRole()) {
+			case INPUT:
+				inputs.add(node);
+				break;
+			case OUTPUT:
+				outputs.add(node);
+				break;
+			default:
+				logic.add(node);
+				break;
 			}
 		}
+		inputNodes = Collections.unmodifiableList(inputs);
+		outputNodes = Collections.unmodifiableList(outputs);
+		logicNodes = Collections.unmodifiableList(logic);
+		inputIdx = getIdx(inputs);
+		outputIdx = getIdx(outputs);
+		logicIdx = getIdx(logic);
+	}
+
+	/**
+	 * Forget the role partitions, after the nodes or their types have changed.
+	 */
+	void invalidateRoles() {
+		logicIdx = null;
+	}
+
+	/**
+	 * @param nodes a list of nodes.
+	 * @return the indices of the nodes
+	 */
+	private static int[] getIdx(final List<TMNode> nodes) {
+		int[] rtn = new int[nodes.size()];
+		for (int i = 0; i < rtn.length; i++) {
+			rtn[i] = nodes.get(i).getIdx();
+		}
 		return rtn;
 	}
 
+	/**
+	 * Allocate the simulation state for a truth table with the given
+	 * number of rows. Activity and toxicity are stored as flat
+	 * nodes-by-rows matrices, the row of a TMNode starting at
+	 * getIdx() * getNumRows(). Toxicity is initialized to 1.0 (no
+	 * toxicity), and so is the circuit growth of every row.
+	 *
+	 * @param numRows the number of rows in the truth table.
+	 */
+	public void initState(final int numRows) {
+		this.numRows = numRows;
+		this.activity = new double[this.getNumVertex() * numRows];
+		this.toxicity = new double[this.getNumVertex() * numRows];
+		Arrays.fill(this.toxicity,1.0);
+		this.logGrowth = new long[numRows];
+		this.minGrowth = 1.0;
+	}
+
+	/**
+	 * @return the number of rows in the truth table
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return the activity of every node, as a flat nodes-by-rows matrix
+	 */
+	public double[] getActivityMatrix() {
+		return activity;
+	}
+
+	/**
+	 * @return the toxicity of every node, as a flat nodes-by-rows matrix
+	 */
+	public double[] getToxicityMatrix() {
+		return toxicity;
+	}
+
+	/**
+	 * @return the sum over the logic nodes of the log of their toxicity, in
+	 * the fixed point of the ToxicitySimulator, for every row
+	 */
+	public long[] getLogGrowth() {
+		return logGrowth;
+	}
+
+	/**
+	 * @return the minimum circuit growth over all rows
+	 */
+	public double getMinGrowth() {
+		return minGrowth;
+	}
+
+	/**
+	 * @param minGrowth the minimum circuit growth over all rows
+	 */
+	public void setMinGrowth(final double minGrowth) {
+		this.minGrowth = minGrowth;
+	}
+
+	/**
+	 * Get the evaluation schedule of this TMNetlist, building it on
+	 * first use. The schedule is shared with copies of this TMNetlist,
+	 * so the topology must be complete before it is first requested.
+	 *
+	 * @return the evaluation schedule.
+	 */
+	public synchronized TMSchedule getSchedule() {
+		if (schedule == null) {
+			schedule = new TMSchedule(this);
+		}
+		return schedule;
+	}
+
+	/**
+	 * @return the journal recording changes to the simulation state, or null if changes are not recorded
+	 */
+	public TMJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * @param journal the journal recording changes to the simulation state
+	 */
+	public void setJournal(final TMJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Record the circuit growth in the journal, if there is one, before it is modified.
+	 */
+	public void recordGrowth() {
+		if (this.getJournal() != null) {
+			this.getJournal().recordGrowth();
+		}
+	}
+
+	/**
+	 * Record the simulation state of a node in the journal, if there is one, before it is modified.
+	 *
+	 * @param node the node about to be modified.
+	 */
+	public void record(final TMNode node) {
+		if (this.getJournal() != null) {
+			this.getJournal().record(node);
+		}
+	}
+
+	private int numRows = 0;
+	private double[] activity = new double[0];
+	private double[] toxicity = new double[0];
+	private long[] logGrowth = new long[0];
+	private double minGrowth = 1.0;
+	private TMJournal journal;
+	private TMSchedule schedule;
+	private Map<String,TMNode> gateNodes;
+	private Map<String,Integer> groupCounts;
+	private List<TMNode> inputNodes;
+	private List<TMNode> outputNodes;
+	private List<TMNode> logicNodes;
+	private int[] inputIdx;
+	private int[] outputIdx;
+	private volatile int[] logicIdx;
+
 }
@@ -40,8 +40,7 @@ public class TMNode extends VertexTemplate<TMEdge>{
 		this.setNodeType("");
 		this.setGate(null);
 		this.setLogic(new ArrayList<>());
-		this.setToxicity(new ArrayList<>());
-		this.setActivity(new ArrayList<>());
+		this.setLogicMask(new long[0]);
 	}
 
 	public TMNode(){
@@ -57,8 +56,7 @@ public class TMNode extends VertexTemplate<TMEdge>{
 			this.setGate(other.getGate());
 		}
 		this.setLogic(other.getLogic());
-		this.setToxicity(new ArrayList<>(other.getToxicity()));
-		this.setActivity(new ArrayList<>(other.getActivity()));
+		this.setLogicMask(other.getLogicMask());
 		this.setVertexType(other.getVertexType());
 	}
 
@@ -116,6 +114,17 @@ public class TMNode extends VertexTemplate<TMEdge>{
 	 */
 	public void setNodeType(String nodeType) {
 		this.nodeType = nodeType;
+		this.role = NodeRole.fromNodeType(nodeType);
+		if (this.getTMNetlist() != null) {
+			this.getTMNetlist().invalidateRoles();
+		}
+	}
+
+	/**
+	 * @return the role of this node, derived from its node type
+	 */
+	public NodeRole getRole() {
+		return role;
 	}
 
 	/**
@@ -129,7 +138,11 @@ public class TMNode extends VertexTemplate<TMEdge>{
 	 * @param gate the gate to set
 	 */
 	public void setGate(final Gate gate) {
+		Gate old = this.gate;
 		this.gate = gate;
+		if (this.getTMNetlist() != null) {
+			this.getTMNetlist().updateGateIndex(this,old,gate);
+		}
 	}
 
 	/**
@@ -147,38 +160,123 @@ public class TMNode extends VertexTemplate<TMEdge>{
 	}
 
 	/**
+	 * @return the logic packed 64 truth table rows per word, row i at bit (i % 64) of word (i / 64)
+	 */
+	public long[] getLogicMask() {
+		return logicMask;
+	}
+
+	/**
+	 * @param logicMask the packed logic to set
+	 */
+	public void setLogicMask(long[] logicMask) {
+		this.logicMask = logicMask;
+	}
+
+	/**
+	 * @return the TMNetlist holding this node and its simulation state
+	 */
+	public TMNetlist getTMNetlist() {
+		return tmNetlist;
+	}
+
+	/**
+	 * @param tmNetlist the TMNetlist holding this node and its simulation state
+	 */
+	void setTMNetlist(final TMNetlist tmNetlist) {
+		this.tmNetlist = tmNetlist;
+	}
+
+	/**
+	 * Get a copy of the toxicity of this node from the simulation state of its TMNetlist.
+	 *
 	 * @return the toxicity
 	 */
 	public List<Double> getToxicity() {
-		return toxicity;
+		return getRow(this.getSimulatedNetlist().getToxicityMatrix());
 	}
 
 	/**
+	 * Set the toxicity of this node in the simulation state of its TMNetlist.
+	 *
 	 * @param toxicity the toxicity to set
 	 */
 	public void setToxicity(final List<Double> toxicity) {
-		this.toxicity = toxicity;
+		setRow(this.getSimulatedNetlist().getToxicityMatrix(),toxicity);
 	}
 
 	/**
+	 * Get a copy of the activity of this node from the simulation state of its TMNetlist.
+	 *
 	 * @return the activity
 	 */
 	public List<Double> getActivity() {
-		return activity;
+		return getRow(this.getSimulatedNetlist().getActivityMatrix());
 	}
 
 	/**
+	 * Set the activity of this node in the simulation state of its TMNetlist.
+	 *
 	 * @param activity the activity to set
 	 */
-	public void setActivity(List<Double> activity) {
-		this.activity = activity;
+	public void setActivity(final List<Double> activity) {
+		setRow(this.getSimulatedNetlist().getActivityMatrix(),activity);
+	}
+
+	/**
+	 * Get the TMNetlist holding the simulation state of this node.
+	 *
+	 * @return the TMNetlist.
+	 * @throws RuntimeException if the node is not in a TMNetlist, or the state does not cover it.
+	 */
+	private TMNetlist getSimulatedNetlist() {
+		TMNetlist rtn = this.getTMNetlist();
+		if (rtn == null) {
+			throw new RuntimeException("Node " + this.getName() + " is not in a TMNetlist, so it has no simulation state.");
+		}
+		if (this.getIdx() < 0 || (this.getIdx() + 1) * rtn.getNumRows() > rtn.getActivityMatrix().length) {
+			throw new RuntimeException("Simulation state of the TMNetlist does not cover node " + this.getName() + ".");
+		}
+		return rtn;
+	}
+
+	/**
+	 * Get the row of this node in a nodes-by-rows matrix.
+	 *
+	 * @param matrix the matrix.
+	 * @return the row.
+	 */
+	private List<Double> getRow(final double[] matrix) {
+		int num = this.getTMNetlist().getNumRows();
+		List<Double> rtn = new ArrayList<>(num);
+		for (int i = 0; i < num; i++) {
+			rtn.add(matrix[this.getIdx() * num + i]);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Set the row of this node in a nodes-by-rows matrix.
+	 *
+	 * @param matrix the matrix.
+	 * @param row the row.
+	 */
+	private void setRow(final double[] matrix, final List<Double> row) {
+		int num = this.getTMNetlist().getNumRows();
+		if (row.size() != num) {
+			throw new RuntimeException("Simulation vectors must be of length " + num + ".");
+		}
+		for (int i = 0; i < num; i++) {
+			matrix[this.getIdx() * num + i] = row.get(i);
+		}
 	}
 
 	private Integer partitionID;
 	private String nodeType;
 	private Gate gate;
+	private NodeRole role;
 	private List<Boolean> logic;
-	private List<Double> toxicity;
-	private List<Double> activity;
+	private long[] logicMask;
+	private TMNetlist tmNetlist;
 
 }
@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.netlist;
+
+import org.cellocad.common.CObject;
+
+/**
+ * Immutable levelized evaluation schedule of a TMNetlist. Nodes are
+ * identified by their index and ordered topologically, level by
+ * level: level 0 holds the nodes without inputs and every other node
+ * sits one level above its deepest input. The fan-in and fan-out of
+ * every node are kept as compressed index arrays.
+ *
+ * The schedule depends only on the topology of the netlist, which
+ * does not change while gates are assigned, so one schedule is shared
+ * by a netlist and all of its copies, and by any number of simulators
+ * running on them concurrently.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public final class TMSchedule extends CObject{
+
+	/**
+	 * Build the schedule of a TMNetlist.
+	 *
+	 * @param netlist the TMNetlist to schedule.
+	 */
+	public TMSchedule(final TMNetlist netlist) {
+		super();
+		int num = netlist.getNumVertex();
+		for (int i = 0; i < num; i++) {
+			if (netlist.getVertexAtIdx(i).getIdx() != i) {
+				throw new RuntimeException("TMNode indices must match their position in the TMNetlist.");
+			}
+		}
+		this.inStart = new int[num + 1];
+		this.outStart = new int[num + 1];
+		for (int i = 0; i < num; i++) {
+			TMNode node = netlist.getVertexAtIdx(i);
+			this.inStart[i + 1] = this.inStart[i] + node.getNumInEdge();
+			this.outStart[i + 1] = this.outStart[i] + node.getNumOutEdge();
+		}
+		this.in = new int[this.inStart[num]];
+		this.out = new int[this.outStart[num]];
+		for (int i = 0; i < num; i++) {
+			TMNode node = netlist.getVertexAtIdx(i);
+			for (int j = 0; j < node.getNumInEdge(); j++) {
+				this.in[this.inStart[i] + j] = node.getInEdgeAtIdx(j).getSrc().getIdx();
+			}
+			for (int j = 0; j < node.getNumOutEdge(); j++) {
+				this.out[this.outStart[i] + j] = node.getOutEdgeAtIdx(j).getDst().getIdx();
+			}
+		}
+		this.levelize(num);
+	}
+
+	/**
+	 * Compute the level of every node and order the nodes level by level.
+	 *
+	 * @param num the number of nodes.
+	 */
+	private void levelize(final int num) {
+		int[] level = new int[num];
+		int[] pending = new int[num];
+		int[] queue = new int[num];
+		int head = 0;
+		int tail = 0;
+		int numLevels = 0;
+		for (int i = 0; i < num; i++) {
+			pending[i] = this.getNumIn(i);
+			if (pending[i] == 0) {
+				queue[tail++] = i;
+			}
+		}
+		while (head < tail) {
+			int v = queue[head++];
+			if (level[v] + 1 > numLevels) {
+				numLevels = level[v] + 1;
+			}
+			for (int j = this.outStart[v]; j < this.outStart[v + 1]; j++) {
+				int dst = this.out[j];
+				if (level[v] + 1 > level[dst]) {
+					level[dst] = level[v] + 1;
+				}
+				if (--pending[dst] == 0) {
+					queue[tail++] = dst;
+				}
+			}
+		}
+		if (tail != num) {
+			throw new RuntimeException("TMNetlist is not acyclic.");
+		}
+		// counting sort by level, stable in index order
+		this.levelStart = new int[numLevels + 1];
+		for (int i = 0; i < num; i++) {
+			this.levelStart[level[i] + 1]++;
+		}
+		for (int l = 0; l < numLevels; l++) {
+			this.levelStart[l + 1] += this.levelStart[l];
+		}
+		int[] next = this.levelStart.clone();
+		this.order = new int[num];
+		this.position = new int[num];
+		for (int i = 0; i < num; i++) {
+			int p = next[level[i]]++;
+			this.order[p] = i;
+			this.position[i] = p;
+		}
+		this.level = level;
+	}
+
+	/**
+	 * Get the transitive fan-out cone of a set of nodes, including the
+	 * nodes themselves, in schedule order.
+	 *
+	 * @param seeds the indices of the nodes from which to start.
+	 * @param numSeeds the number of valid entries in seeds.
+	 * @param mark a scratch array of getNumNodes() flags, all false, left all false on return.
+	 * @param rtn the array, of at least getNumNodes() entries, in which to store the cone.
+	 * @return the number of nodes in the cone.
+	 */
+	public int getFanOutCone(final int[] seeds, final int numSeeds, final boolean[] mark, final int[] rtn) {
+		int first = this.getNumNodes();
+		int size = 0;
+		for (int i = 0; i < numSeeds; i++) {
+			int v = seeds[i];
+			if (!mark[v]) {
+				mark[v] = true;
+				rtn[size++] = v;
+			}
+		}
+		// mark the cone, using rtn as the stack
+		for (int i = 0; i < size; i++) {
+			int v = rtn[i];
+			if (this.position[v] < first) {
+				first = this.position[v];
+			}
+			for (int j = this.outStart[v]; j < this.outStart[v + 1]; j++) {
+				int dst = this.out[j];
+				if (!mark[dst]) {
+					mark[dst] = true;
+					rtn[size++] = dst;
+				}
+			}
+		}
+		// collect the marked nodes in schedule order
+		int num = 0;
+		for (int p = first; num < size; p++) {
+			int v = this.order[p];
+			if (mark[v]) {
+				mark[v] = false;
+				rtn[num++] = v;
+			}
+		}
+		return num;
+	}
+
+	/**
+	 * @return the number of nodes in the schedule
+	 */
+	public int getNumNodes() {
+		return order.length;
+	}
+
+	/**
+	 * @return the number of levels in the schedule
+	 */
+	public int getNumLevels() {
+		return levelStart.length - 1;
+	}
+
+	/**
+	 * @param p the position in the schedule.
+	 * @return the index of the node at position p
+	 */
+	public int getNodeAt(final int p) {
+		return order[p];
+	}
+
+	/**
+	 * @param idx the index of a node.
+	 * @return the position of the node in the schedule
+	 */
+	public int getPosition(final int idx) {
+		return position[idx];
+	}
+
+	/**
+	 * @param idx the index of a node.
+	 * @return the level of the node
+	 */
+	public int getLevel(final int idx) {
+		return level[idx];
+	}
+
+	/**
+	 * @param l the level.
+	 * @return the position of the first node of level l in the schedule
+	 */
+	public int getLevelStart(final int l) {
+		return levelStart[l];
+	}
+
+	/**
+	 * @param l the level.
+	 * @return the position past the last node of level l in the schedule
+	 */
+	public int getLevelEnd(final int l) {
+		return levelStart[l + 1];
+	}
+
+	/**
+	 * @param idx the index of a node.
+	 * @return the number of inputs of the node
+	 */
+	public int getNumIn(final int idx) {
+		return inStart[idx + 1] - inStart[idx];
+	}
+
+	/**
+	 * @param idx the index of a node.
+	 * @param j the input number.
+	 * @return the index of the j-th input of the node
+	 */
+	public int getIn(final int idx, final int j) {
+		return in[inStart[idx] + j];
+	}
+
+	/**
+	 * @param idx the index of a node.
+	 * @return the number of outputs of the node
+	 */
+	public int getNumOut(final int idx) {
+		return outStart[idx + 1] - outStart[idx];
+	}
+
+	/**
+	 * @param idx the index of a node.
+	 * @param j the output number.
+	 * @return the index of the j-th output of the node
+	 */
+	public int getOut(final int idx, final int j) {
+		return out[outStart[idx] + j];
+	}
+
+	private int[] order;
+	private int[] position;
+	private int[] level;
+	private int[] levelStart;
+	private int[] inStart;
+	private int[] in;
+	private int[] outStart;
+	private int[] out;
+
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.score;
+
+import java.util.Arrays;
+
+import org.cellocad.common.CObject;
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.technologymapping.common.assignment.RoadblockChecker;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
+import org.cellocad.technologymapping.common.simulation.LogicSimulator;
+import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.data.Toxicity;
+
+/**
+ * Evaluates a batch of candidate assignments of the logic nodes of one
+ * TMNetlist in a single pass. A candidate is a vector of gate library
+ * indices over the logic nodes, in the order of TMNetlist#getLogicIdx.
+ * Activities and toxicities are laid out as [node][row][candidate] so
+ * that the loops over candidates are contiguous. Circuit growth is
+ * summed as fixed point logs like in the ToxicitySimulator, so the
+ * objectives are the same as those of an ObjectiveEvaluator with the
+ * same settings.
+ *
+ * The TMNetlist must have its inputs and outputs assigned and the
+ * activities of its inputs simulated, and is only read.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class BatchEvaluator extends CObject{
+
+	/**
+	 * Create a new BatchEvaluator.
+	 *
+	 * @param netlist the TMNetlist whose logic nodes are assigned by the candidates.
+	 * @param gateLibrary the gates indexed by the candidates.
+	 */
+	public BatchEvaluator(final TMNetlist netlist, final CObjectCollection<Gate> gateLibrary) {
+		super();
+		Utils.isNullRuntimeException(netlist, "TMNetlist");
+		this.tmNetlist = netlist;
+		this.schedule = netlist.getSchedule();
+		this.rows = netlist.getNumRows();
+		this.numNodes = schedule.getNumNodes();
+		this.gates = gateLibrary.toArray(new Gate[gateLibrary.size()]);
+		this.logicIdx = netlist.getLogicIdx();
+		this.outputIdx = netlist.getOutputIdx();
+		this.position = new int[numNodes];
+		Arrays.fill(position,-1);
+		for (int p = 0; p < logicIdx.length; p++) {
+			position[logicIdx[p]] = p;
+		}
+		this.roadblockChecker = new RoadblockChecker(netlist);
+		this.roadblockChecker.setGateLibrary(gateLibrary);
+		this.setCheckToxicity(false);
+		this.setCheckRoadblocks(false);
+	}
+
+	/**
+	 * Evaluate a batch of candidates.
+	 *
+	 * @param candidates the gate library index at each logic node of each candidate.
+	 * @param num the number of candidates to evaluate.
+	 * @return the Objective of each candidate.
+	 */
+	public Objective[] evaluate(final int[][] candidates, final int num) {
+		Objective[] rtn = new Objective[num];
+		if (num == 0) {
+			return rtn;
+		}
+		this.ensureCapacity(num);
+		TMNetlist netlist = this.getTMNetlist();
+		double[] inputActivity = netlist.getActivityMatrix();
+
+		// activity in topological order, toxicity of each logic node
+		for (int s = 0; s < numNodes; s++) {
+			int idx = schedule.getNodeAt(s);
+			TMNode node = netlist.getVertexAtIdx(idx);
+			if (node.getRole() == NodeRole.INPUT) {
+				for (int i = 0; i < rows; i++) {
+					Arrays.fill(activity,(idx * rows + i) * num,(idx * rows + i + 1) * num,inputActivity[idx * rows + i]);
+				}
+				continue;
+			}
+			this.sumInputActivity(idx,num);
+			int p = position[idx];
+			for (int i = 0; i < rows; i++) {
+				int base = (idx * rows + i) * num;
+				if (p < 0) {
+					Gate gate = node.getGate();
+					for (int c = 0; c < num; c++) {
+						activity[base + c] = gate.getResponseFunction().applyAsDouble(activity[base + c]);
+					}
+					continue;
+				}
+				int tbase = (p * rows + i) * num;
+				for (int c = 0; c < num; c++) {
+					Gate gate = gates[candidates[c][p]];
+					double sum = activity[base + c];
+					Toxicity t = gate.getToxicity();
+					double growth = 1.0;
+					if (t != null) {
+						growth = ToxicitySimulator.clampGrowth(t.getGrowth(sum));
+					}
+					toxicity[tbase + c] = growth;
+					activity[base + c] = gate.getResponseFunction().applyAsDouble(sum);
+				}
+			}
+		}
+
+		// circuit growth, as the exponential of the sum of the logs of the
+		// toxicity of the logic nodes, in the order of the ToxicitySimulator
+		Arrays.fill(logGrowth,0,rows * num,0L);
+		for (int p = 0; p < logicIdx.length; p++) {
+			for (int j = 0; j < rows * num; j++) {
+				logGrowth[j] += ToxicitySimulator.toFixedLog(toxicity[p * rows * num + j]);
+			}
+		}
+		Arrays.fill(minGrowth,0,num,1.0);
+		for (int j = 0; j < rows * num; j++) {
+			double g = Math.max(ToxicitySimulator.fromFixedLog(logGrowth[j]),ToxicitySimulator.MIN_TOXICITY);
+			if (g < minGrowth[j % num]) {
+				minGrowth[j % num] = g;
+			}
+		}
+
+		// score, the lowest on/off ratio over the outputs
+		Arrays.fill(score,0,num,Double.MAX_VALUE);
+		for (int idx : outputIdx) {
+			long[] logic = netlist.getVertexAtIdx(idx).getLogicMask();
+			Arrays.fill(lowestOn,0,num,Double.MAX_VALUE);
+			Arrays.fill(highestOff,0,num,Double.MIN_VALUE);
+			for (int i = 0; i < rows; i++) {
+				int base = (idx * rows + i) * num;
+				if (LogicSimulator.getLogicBit(logic,i)) {
+					for (int c = 0; c < num; c++) {
+						lowestOn[c] = Math.min(lowestOn[c],activity[base + c]);
+					}
+				} else {
+					for (int c = 0; c < num; c++) {
+						highestOff[c] = Math.max(highestOff[c],activity[base + c]);
+					}
+				}
+			}
+			for (int c = 0; c < num; c++) {
+				score[c] = Math.min(score[c],lowestOn[c] / highestOff[c]);
+			}
+		}
+
+		if (this.getCheckRoadblocks()) {
+			this.compileRoadblocks();
+		}
+		for (int c = 0; c < num; c++) {
+			rtn[c] = new Objective(score[c],
+					this.getCheckToxicity() ? minGrowth[c] : 1.0,
+					this.getCheckRoadblocks() ? this.getNumRoadblocks(candidates[c]) : 0);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Sum the activities of the inputs of a node into its own rows, for
+	 * every candidate.
+	 */
+	private void sumInputActivity(final int idx, final int num) {
+		int block = rows * num;
+		int dst = idx * block;
+		if (schedule.getNumIn(idx) == 0) {
+			throw new RuntimeException("Node " + this.getTMNetlist().getVertexAtIdx(idx).getName() + " has no inputs.");
+		}
+		System.arraycopy(activity,schedule.getIn(idx,0) * block,activity,dst,block);
+		for (int j = 1; j < schedule.getNumIn(idx); j++) {
+			int src = schedule.getIn(idx,j) * block;
+			for (int k = 0; k < block; k++) {
+				activity[dst + k] += activity[src + k];
+			}
+		}
+	}
+
+	/**
+	 * Take the roadblock flags of the gate library from the
+	 * RoadblockChecker, and compile the flags of the gates of the nodes
+	 * that are not assigned by the candidates, only when the checker has
+	 * compiled new flags since the last batch.
+	 */
+	private void compileRoadblocks() {
+		int[] flags = roadblockChecker.getLibraryFlags();
+		if (gateFlags == flags) {
+			return;
+		}
+		gateFlags = flags;
+		nodeFlags = new int[numNodes];
+		for (int idx = 0; idx < numNodes; idx++) {
+			nodeFlags[idx] = roadblockChecker.getFlags(this.getTMNetlist().getVertexAtIdx(idx).getGate());
+		}
+	}
+
+	/**
+	 * Count the roadblocks of a candidate with the rule of the RoadblockChecker.
+	 */
+	private int getNumRoadblocks(final int[] candidate) {
+		int rtn = 0;
+		for (int idx = 0; idx < numNodes; idx++) {
+			int numInputRoadblocks = 0;
+			int numLogicRoadblocks = 0;
+			for (int j = 0; j < schedule.getNumIn(idx); j++) {
+				int src = schedule.getIn(idx,j);
+				int flags = (position[src] >= 0) ? gateFlags[candidate[position[src]]] : nodeFlags[src];
+				numInputRoadblocks += flags & RoadblockChecker.INPUT_ROADBLOCK;
+				numLogicRoadblocks += (flags & RoadblockChecker.LOGIC_ROADBLOCK) >>> 1;
+			}
+			if (RoadblockChecker.isRoadblock(numInputRoadblocks,numLogicRoadblocks)) {
+				rtn++;
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Grow the buffers to hold a batch of candidates.
+	 */
+	private void ensureCapacity(final int num) {
+		if (num > capacity) {
+			capacity = num;
+			activity = new double[numNodes * rows * num];
+			toxicity = new double[logicIdx.length * rows * num];
+			logGrowth = new long[rows * num];
+			minGrowth = new double[num];
+			score = new double[num];
+			lowestOn = new double[num];
+			highestOff = new double[num];
+		}
+	}
+
+	/**
+	 * @return the tmNetlist
+	 */
+	public TMNetlist getTMNetlist() {
+		return tmNetlist;
+	}
+
+	/**
+	 * @return the roadblock checker holding the roadblock sets
+	 */
+	public RoadblockChecker getRoadblockChecker() {
+		return roadblockChecker;
+	}
+
+	/**
+	 * @return whether toxicity contributes to the Objective
+	 */
+	public Boolean getCheckToxicity() {
+		return checkToxicity;
+	}
+
+	/**
+	 * @param checkToxicity whether toxicity contributes to the Objective
+	 */
+	public void setCheckToxicity(final Boolean checkToxicity) {
+		this.checkToxicity = checkToxicity;
+	}
+
+	/**
+	 * @return whether roadblocks contribute to the Objective
+	 */
+	public Boolean getCheckRoadblocks() {
+		return checkRoadblocks;
+	}
+
+	/**
+	 * @param checkRoadblocks whether roadblocks contribute to the Objective
+	 */
+	public void setCheckRoadblocks(final Boolean checkRoadblocks) {
+		this.checkRoadblocks = checkRoadblocks;
+	}
+
+	private TMNetlist tmNetlist;
+	private TMSchedule schedule;
+	private int rows;
+	private int numNodes;
+	private Gate[] gates;
+	private int[] logicIdx;
+	private int[] outputIdx;
+	private int[] position;
+	private RoadblockChecker roadblockChecker;
+	private Boolean checkToxicity;
+	private Boolean checkRoadblocks;
+	private int[] gateFlags;
+	private int[] nodeFlags;
+
+	// buffers, [node][row][candidate] and [position][row][candidate]
+	private int capacity;
+	private double[] activity;
+	private double[] toxicity;
+	private long[] logGrowth;
+	private double[] minGrowth;
+	private double[] score;
+	private double[] lowestOn;
+	private double[] highestOff;
+
+}
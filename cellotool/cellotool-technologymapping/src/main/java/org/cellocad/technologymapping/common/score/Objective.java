@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.score;
+
+import org.cellocad.common.CObject;
+
+/**
+ * The evaluation of a gate assignment: its score, its minimum growth
+ * and its number of roadblocks. Objectives are immutable.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public final class Objective extends CObject{
+
+	/**
+	 * Create a new Objective.
+	 *
+	 * @param score the score of the assignment.
+	 * @param growth the minimum growth of the assignment.
+	 * @param roadblocks the number of roadblocks in the assignment.
+	 */
+	public Objective(final double score, final double growth, final int roadblocks) {
+		super();
+		this.score = score;
+		this.growth = growth;
+		this.roadblocks = roadblocks;
+	}
+
+	/**
+	 * @return the score of the assignment
+	 */
+	public double getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the minimum growth of the assignment
+	 */
+	public double getGrowth() {
+		return growth;
+	}
+
+	/**
+	 * @return the number of roadblocks in the assignment
+	 */
+	public int getRoadblocks() {
+		return roadblocks;
+	}
+
+	@Override
+	public String toString() {
+		return "score: " + score + ", growth: " + growth + ", roadblocks: " + roadblocks;
+	}
+
+	private final double score;
+	private final double growth;
+	private final int roadblocks;
+
+}
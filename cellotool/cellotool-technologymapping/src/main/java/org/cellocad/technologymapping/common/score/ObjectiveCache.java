@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.score;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cellocad.common.CObject;
+
+/**
+ * Bounded least-recently-used cache from the Zobrist hash of a gate
+ * assignment to its Objective. The cache is safe to share between
+ * threads.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class ObjectiveCache extends CObject{
+
+	/**
+	 * Create a new ObjectiveCache.
+	 *
+	 * @param capacity the maximum number of entries, 0 to disable the cache.
+	 */
+	public ObjectiveCache(final int capacity) {
+		super();
+		if (capacity < 0) {
+			throw new RuntimeException("Invalid cache capacity.");
+		}
+		this.capacity = capacity;
+		this.map = new LinkedHashMap<Long,Objective>(16,0.75f,true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long,Objective> eldest) {
+				return this.size() > ObjectiveCache.this.getCapacity();
+			}
+		};
+	}
+
+	/**
+	 * Look up the Objective of an assignment.
+	 *
+	 * @param hash the hash of the assignment.
+	 * @return the Objective, or null if it is not cached.
+	 */
+	public Objective get(final long hash) {
+		Objective rtn = null;
+		if (this.getCapacity() > 0) {
+			synchronized (map) {
+				rtn = map.get(hash);
+			}
+		}
+		if (rtn != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return rtn;
+	}
+
+	/**
+	 * Store the Objective of an assignment.
+	 *
+	 * @param hash the hash of the assignment.
+	 * @param objective the Objective of the assignment.
+	 */
+	public void put(final long hash, final Objective objective) {
+		if (this.getCapacity() > 0) {
+			synchronized (map) {
+				map.put(hash,objective);
+			}
+		}
+	}
+
+	/**
+	 * @return the maximum number of entries
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the number of lookups that found an Objective
+	 */
+	public long getNumHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of lookups that did not find an Objective
+	 */
+	public long getNumMisses() {
+		return misses.get();
+	}
+
+	private final int capacity;
+	private final Map<Long,Objective> map;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+}
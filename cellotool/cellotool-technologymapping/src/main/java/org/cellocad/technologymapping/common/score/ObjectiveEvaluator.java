@@ -0,0 +1,411 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.score;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+import org.cellocad.common.CObject;
+import org.cellocad.common.Utils;
+import org.cellocad.technologymapping.common.assignment.RoadblockChecker;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
+import org.cellocad.technologymapping.common.simulation.ActivitySimulator;
+import org.cellocad.technologymapping.common.simulation.CytometrySimulator;
+import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
+
+/**
+ * Simulates a TMNetlist and evaluates its Objective. The Scorer
+ * contributes the score, from median activities or, if a
+ * CytometrySimulator is set, from distributions, the ToxicitySimulator the minimum growth and
+ * the RoadblockChecker the number of roadblocks, each only if it is
+ * enabled in the algorithm profile.
+ *
+ * For large truth tables, activity and toxicity are simulated over
+ * chunks of rows in parallel, and the extremes that the score and the
+ * minimum growth depend on are reduced in the same pass.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class ObjectiveEvaluator extends CObject{
+
+	/**
+	 * Create a new ObjectiveEvaluator.
+	 *
+	 * @param netlist the TMNetlist to simulate and evaluate.
+	 */
+	public ObjectiveEvaluator(final TMNetlist netlist) {
+		super();
+		Utils.isNullRuntimeException(netlist, "TMNetlist");
+		this.tmNetlist = netlist;
+		this.activitySimulator = new ActivitySimulator(netlist);
+		this.toxicitySimulator = new ToxicitySimulator(netlist);
+		this.roadblockChecker = new RoadblockChecker(netlist);
+		this.scorer = new Scorer();
+		this.setCheckToxicity(false);
+		this.setToxicityThreshold(0.0);
+		this.setCheckRoadblocks(false);
+		this.setRowParallelThreshold(0);
+		this.setRowsPerTask(1024);
+	}
+
+	/**
+	 * Simulate the whole TMNetlist.
+	 */
+	public void simulate() {
+		if (this.isRowParallel()) {
+			TMSchedule schedule = this.getTMNetlist().getSchedule();
+			int num = schedule.getNumNodes();
+			int[] nodes = this.getNodeBuffer(num);
+			for (int p = 0; p < num; p++) {
+				nodes[p] = schedule.getNodeAt(p);
+			}
+			this.simulateRows(nodes,num,true);
+		} else {
+			this.extremes = null;
+			this.getActivitySimulator().run();
+			this.getToxicitySimulator().run();
+		}
+		if (this.getCytometrySimulator() != null) {
+			this.getCytometrySimulator().run();
+		}
+		if (this.getCheckRoadblocks()) {
+			this.roadblocks = this.getRoadblockChecker().getNumRoadblocks();
+		}
+	}
+
+	/**
+	 * Simulate the fan-out cone of the given nodes.
+	 *
+	 * @param nodes the nodes that have changed since the last simulation.
+	 */
+	public void simulate(final Collection<TMNode> nodes) {
+		if (this.isRowParallel()) {
+			TMSchedule schedule = this.getTMNetlist().getSchedule();
+			int num = schedule.getNumNodes();
+			int[] cone = this.getNodeBuffer(num);
+			int numSeeds = 0;
+			for (TMNode node : nodes) {
+				seeds[numSeeds++] = node.getIdx();
+			}
+			this.simulateRows(cone,schedule.getFanOutCone(seeds,numSeeds,mark,cone),false);
+		} else {
+			this.extremes = null;
+			this.getActivitySimulator().run(nodes);
+			this.getToxicitySimulator().run(nodes);
+		}
+		if (this.getCytometrySimulator() != null) {
+			this.getCytometrySimulator().run(nodes);
+		}
+		if (this.getCheckRoadblocks()) {
+			this.roadblocks = this.getRoadblockChecker().update(nodes);
+		}
+	}
+
+	/**
+	 * Accept the simulated state of the TMNetlist.
+	 */
+	public void commit() {
+		this.getTMNetlist().getJournal().commit();
+	}
+
+	/**
+	 * Restore the simulated state of the TMNetlist after the gates of
+	 * the given nodes have been restored. Distributions are not
+	 * journaled, so they are simulated again.
+	 *
+	 * @param nodes the nodes whose gates have been restored.
+	 */
+	public void rollback(final Collection<TMNode> nodes) {
+		this.getTMNetlist().getJournal().rollback();
+		this.extremes = null;
+		if (this.getCytometrySimulator() != null) {
+			this.getCytometrySimulator().run(nodes);
+		}
+		if (this.getCheckRoadblocks()) {
+			this.roadblocks = this.getRoadblockChecker().update(nodes);
+		}
+	}
+
+	/**
+	 * Simulate the activity and toxicity of the given nodes in parallel
+	 * over chunks of rows, keeping the extremes of the rows for evaluate.
+	 * The journal is not thread-safe, so every node that is modified is
+	 * recorded before the rows are split.
+	 *
+	 * @param nodes the indices of the nodes to simulate, in schedule order.
+	 * @param num the number of nodes to simulate.
+	 * @param reset whether to recompute the running sums of the logs of toxicity.
+	 */
+	private void simulateRows(final int[] nodes, final int num, final boolean reset) {
+		TMNetlist netlist = this.getTMNetlist();
+		for (int i = 0; i < num; i++) {
+			TMNode node = netlist.getVertexAtIdx(nodes[i]);
+			if (node.getRole() != NodeRole.INPUT) {
+				netlist.record(node);
+			}
+		}
+		// this also partitions the nodes by role before the rows are split
+		for (int idx : netlist.getOutputIdx()) {
+			netlist.record(netlist.getVertexAtIdx(idx));
+		}
+		netlist.recordGrowth();
+		RowParallelTask task = new RowParallelTask(netlist,nodes,num,reset,0,netlist.getNumRows(),this.getRowsPerTask());
+		this.extremes = ForkJoinPool.commonPool().invoke(task);
+		netlist.setMinGrowth(extremes[extremes.length - 1]);
+	}
+
+	/**
+	 * @return true if rows are simulated in parallel
+	 */
+	private boolean isRowParallel() {
+		return this.getRowParallelThreshold() > 0 && this.getTMNetlist().getNumRows() >= this.getRowParallelThreshold();
+	}
+
+	/**
+	 * Get the buffers for the nodes to simulate, growing them if needed.
+	 *
+	 * @param num the number of nodes required.
+	 * @return the buffer for the indices of the nodes.
+	 */
+	private int[] getNodeBuffer(final int num) {
+		if (nodeBuffer.length < num) {
+			nodeBuffer = new int[num];
+			seeds = new int[num];
+			mark = new boolean[num];
+		}
+		return nodeBuffer;
+	}
+
+	/**
+	 * Evaluate the TMNetlist in its current simulated state. Roadblocks
+	 * are counted as of the last call to simulate or rollback.
+	 *
+	 * @return the Objective of the current assignment.
+	 */
+	public Objective evaluate() {
+		double score;
+		if (this.getCytometrySimulator() != null) {
+			score = this.getScorer().getDistributionScore(this.getTMNetlist(),this.getCytometrySimulator());
+		} else if (this.extremes != null) {
+			score = Double.MAX_VALUE;
+			for (int k = 0; k + 1 < extremes.length; k += 2) {
+				double ratio = extremes[k] / extremes[k + 1];
+				if (ratio < score) {
+					score = ratio;
+				}
+			}
+		} else {
+			score = this.getScorer().getScore(this.getTMNetlist());
+		}
+		double growth = 1.0;
+		if (this.getCheckToxicity()) {
+			growth = (this.extremes != null) ? extremes[extremes.length - 1] : this.getToxicitySimulator().minGrowth();
+		}
+		int roadblocks = 0;
+		if (this.getCheckRoadblocks()) {
+			roadblocks = this.roadblocks;
+		}
+		return new Objective(score,growth,roadblocks);
+	}
+
+	/**
+	 * Get the rows of the truth table that determine the Objective of
+	 * the TMNetlist in its current simulated state: the rows that set
+	 * the score of every output and, if toxicity is checked, the row
+	 * with the minimum growth.
+	 *
+	 * @return the rows, possibly repeated.
+	 */
+	public int[] getWorstRows() {
+		int[] rows;
+		if (this.getCytometrySimulator() != null) {
+			rows = this.getScorer().getWorstDistributionRows(this.getTMNetlist(),this.getCytometrySimulator());
+		} else {
+			rows = this.getScorer().getWorstRows(this.getTMNetlist());
+		}
+		if (!this.getCheckToxicity()) {
+			return rows;
+		}
+		int[] rtn = Arrays.copyOf(rows,rows.length + 1);
+		rtn[rows.length] = this.getToxicitySimulator().argMinGrowth();
+		return rtn;
+	}
+
+	/**
+	 * Whether an Objective satisfies the enabled roadblock and toxicity constraints.
+	 *
+	 * @param objective the Objective to check.
+	 * @return true if the assignment is valid.
+	 */
+	public boolean isValid(final Objective objective) {
+		return (!this.getCheckRoadblocks() || objective.getRoadblocks() == 0)
+				&&
+				(!this.getCheckToxicity() || objective.getGrowth() > this.getToxicityThreshold());
+	}
+
+	/**
+	 * @return the tmNetlist
+	 */
+	public TMNetlist getTMNetlist() {
+		return tmNetlist;
+	}
+
+	/**
+	 * @return the activity simulator
+	 */
+	public ActivitySimulator getActivitySimulator() {
+		return activitySimulator;
+	}
+
+	/**
+	 * @return the toxicity simulator
+	 */
+	public ToxicitySimulator getToxicitySimulator() {
+		return toxicitySimulator;
+	}
+
+	/**
+	 * @return the cytometry simulator, null unless distributions are scored
+	 */
+	public CytometrySimulator getCytometrySimulator() {
+		return cytometrySimulator;
+	}
+
+	/**
+	 * @param cytometrySimulator the cytometry simulator whose distributions
+	 * are scored instead of median activities, or null
+	 */
+	public void setCytometrySimulator(final CytometrySimulator cytometrySimulator) {
+		this.cytometrySimulator = cytometrySimulator;
+	}
+
+	/**
+	 * @return the number of rows from which activity and toxicity are simulated in parallel, 0 if never
+	 */
+	public Integer getRowParallelThreshold() {
+		return rowParallelThreshold;
+	}
+
+	/**
+	 * @param rowParallelThreshold the number of rows from which activity
+	 * and toxicity are simulated in parallel, 0 if never
+	 */
+	public void setRowParallelThreshold(final Integer rowParallelThreshold) {
+		this.rowParallelThreshold = rowParallelThreshold;
+	}
+
+	/**
+	 * @return the largest number of rows simulated by one parallel task
+	 */
+	public Integer getRowsPerTask() {
+		return rowsPerTask;
+	}
+
+	/**
+	 * @param rowsPerTask the largest number of rows simulated by one parallel task
+	 */
+	public void setRowsPerTask(final Integer rowsPerTask) {
+		this.rowsPerTask = rowsPerTask;
+	}
+
+	/**
+	 * @return the roadblock checker
+	 */
+	public RoadblockChecker getRoadblockChecker() {
+		return roadblockChecker;
+	}
+
+	/**
+	 * @return the scorer
+	 */
+	public Scorer getScorer() {
+		return scorer;
+	}
+
+	/**
+	 * @return whether toxicity contributes to the Objective
+	 */
+	public Boolean getCheckToxicity() {
+		return checkToxicity;
+	}
+
+	/**
+	 * @param checkToxicity whether toxicity contributes to the Objective
+	 */
+	public void setCheckToxicity(final Boolean checkToxicity) {
+		this.checkToxicity = checkToxicity;
+	}
+
+	/**
+	 * @return the growth threshold, at or below which an assignment is not valid
+	 */
+	public Double getToxicityThreshold() {
+		return toxicityThreshold;
+	}
+
+	/**
+	 * @param toxicityThreshold the growth threshold
+	 */
+	public void setToxicityThreshold(final Double toxicityThreshold) {
+		this.toxicityThreshold = toxicityThreshold;
+	}
+
+	/**
+	 * @return whether roadblocks contribute to the Objective
+	 */
+	public Boolean getCheckRoadblocks() {
+		return checkRoadblocks;
+	}
+
+	/**
+	 * @param checkRoadblocks whether roadblocks contribute to the Objective
+	 */
+	public void setCheckRoadblocks(final Boolean checkRoadblocks) {
+		this.checkRoadblocks = checkRoadblocks;
+	}
+
+	private TMNetlist tmNetlist;
+	private ActivitySimulator activitySimulator;
+	private ToxicitySimulator toxicitySimulator;
+	private CytometrySimulator cytometrySimulator;
+	private RoadblockChecker roadblockChecker;
+	private Scorer scorer;
+	private Boolean checkToxicity;
+	private Double toxicityThreshold;
+	private Boolean checkRoadblocks;
+	private int roadblocks;
+
+	// row-parallel simulation
+	private Integer rowParallelThreshold;
+	private Integer rowsPerTask;
+	private double[] extremes;
+	private int[] nodeBuffer = new int[0];
+	private int[] seeds = new int[0];
+	private boolean[] mark = new boolean[0];
+
+}
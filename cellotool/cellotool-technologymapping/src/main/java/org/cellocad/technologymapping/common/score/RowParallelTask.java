@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.score;
+
+import java.util.concurrent.RecursiveTask;
+
+import org.cellocad.technologymapping.common.netlist.NodeRole;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.simulation.ActivitySimulator;
+import org.cellocad.technologymapping.common.simulation.LogicSimulator;
+import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
+
+/**
+ * Simulate the activity and toxicity of a set of nodes over a range of
+ * rows of the truth table, and reduce the rows in the same pass to the
+ * extremes that the Objective depends on. Ranges larger than the grain
+ * are split in two and computed in parallel. The nodes must have been
+ * recorded in the journal beforehand. When every node is simulated, the
+ * running sums of the logs of toxicity are recomputed from scratch.
+ *
+ * The result holds the lowest on and highest off activity of every
+ * output, followed by the minimum growth.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+class RowParallelTask extends RecursiveTask<double[]>{
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Create a new RowParallelTask.
+	 *
+	 * @param netlist the TMNetlist.
+	 * @param nodes the indices of the nodes to simulate, in schedule order.
+	 * @param num the number of nodes to simulate.
+	 * @param reset whether to recompute the running sums of the logs of toxicity.
+	 * @param lo the first row.
+	 * @param hi the row after the last row.
+	 * @param grain the largest range that is not split.
+	 */
+	RowParallelTask(final TMNetlist netlist, final int[] nodes, final int num, final boolean reset,
+			final int lo, final int hi, final int grain) {
+		this.netlist = netlist;
+		this.nodes = nodes;
+		this.num = num;
+		this.reset = reset;
+		this.lo = lo;
+		this.hi = hi;
+		this.grain = grain;
+	}
+
+	@Override
+	protected double[] compute() {
+		if (hi - lo > grain) {
+			int mid = (lo + hi) >>> 1;
+			RowParallelTask left = new RowParallelTask(netlist,nodes,num,reset,lo,mid,grain);
+			RowParallelTask right = new RowParallelTask(netlist,nodes,num,reset,mid,hi,grain);
+			left.fork();
+			return merge(right.compute(),left.join());
+		}
+		return this.computeRows();
+	}
+
+	/**
+	 * Simulate and reduce the rows of this task.
+	 *
+	 * @return the extremes of the rows.
+	 */
+	private double[] computeRows() {
+		double[] buffer = new double[hi - lo];
+		for (int i = 0; i < num; i++) {
+			TMNode node = netlist.getVertexAtIdx(nodes[i]);
+			ActivitySimulator.computeNodeActivity(netlist,node,lo,hi);
+			if (node.getRole() == NodeRole.LOGIC) {
+				ToxicitySimulator.computeNodeToxicity(netlist,node,lo,hi,buffer);
+			}
+		}
+		if (reset) {
+			ToxicitySimulator.resetLogGrowth(netlist,lo,hi);
+		}
+		double minGrowth = ToxicitySimulator.computeToxicity(netlist,lo,hi);
+
+		int[] outputs = netlist.getOutputIdx();
+		double[] activity = netlist.getActivityMatrix();
+		int rows = netlist.getNumRows();
+		double[] rtn = new double[2 * outputs.length + 1];
+		for (int k = 0; k < outputs.length; k++) {
+			long[] logic = netlist.getVertexAtIdx(outputs[k]).getLogicMask();
+			int offset = outputs[k] * rows;
+			double lowestOn = Double.MAX_VALUE;
+			double highestOff = Double.MIN_VALUE;
+			for (int i = lo; i < hi; i++) {
+				double a = activity[offset + i];
+				if (LogicSimulator.getLogicBit(logic,i)) {
+					if (lowestOn > a) {
+						lowestOn = a;
+					}
+				} else if (highestOff < a) {
+					highestOff = a;
+				}
+			}
+			rtn[2 * k] = lowestOn;
+			rtn[2 * k + 1] = highestOff;
+		}
+		rtn[rtn.length - 1] = minGrowth;
+		return rtn;
+	}
+
+	/**
+	 * Merge the extremes of two ranges of rows.
+	 *
+	 * @param a the extremes of one range, overwritten with the result.
+	 * @param b the extremes of the other range.
+	 * @return the extremes of both ranges.
+	 */
+	private static double[] merge(final double[] a, final double[] b) {
+		for (int k = 0; k + 1 < a.length; k += 2) {
+			a[k] = Math.min(a[k],b[k]);
+			a[k + 1] = Math.max(a[k + 1],b[k + 1]);
+		}
+		a[a.length - 1] = Math.min(a[a.length - 1],b[b.length - 1]);
+		return a;
+	}
+
+	private final TMNetlist netlist;
+	private final int[] nodes;
+	private final int num;
+	private final boolean reset;
+	private final int lo;
+	private final int hi;
+	private final int grain;
+
+}
@@ -20,12 +20,15 @@
  */
 package org.cellocad.technologymapping.common.score;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Comparator;
 
 import org.cellocad.common.CObject;
 import org.cellocad.common.Utils;
 import org.cellocad.technologymapping.common.netlist.TMNetlist;
 import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.simulation.CytometrySimulator;
+import org.cellocad.technologymapping.common.simulation.LogicSimulator;
 
 /**
  * @author: Timothy Jones
@@ -51,18 +54,185 @@ public class Scorer extends CObject{
 	 */
 	public Double getScore(final TMNetlist netlist) {
 		Double rtn = Double.MAX_VALUE;
-		for (int i = 0; i < netlist.getNumVertex(); i++) {
-			TMNode v = netlist.getVertexAtIdx(i);
-			if (v.getNodeType().equals("TopOutput")) {
-				Double score = getOnOffRatio(v);
-				if(score < rtn) {
-					rtn = score;
+		for (int idx : netlist.getOutputIdx()) {
+			Double score = getOnOffRatio(netlist.getVertexAtIdx(idx));
+			if(score < rtn) {
+				rtn = score;
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Evaluate the distribution score of a TMNetlist, the lowest
+	 * separation of the on and off distributions at any output.
+	 *
+	 * @param netlist the TMNetlist.
+	 * @param cs the CytometrySimulator holding the distributions of the netlist.
+	 * @return the score, between 0 and 1.
+	 */
+	public Double getDistributionScore(final TMNetlist netlist, final CytometrySimulator cs) {
+		Double rtn = Double.MAX_VALUE;
+		for (int idx : netlist.getOutputIdx()) {
+			Double score = getSeparation(netlist.getVertexAtIdx(idx),cs);
+			if(score < rtn) {
+				rtn = score;
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Get the rows that determine the score of a TMNetlist, the lowest
+	 * on row and the highest off row of every output.
+	 *
+	 * @param netlist the TMNetlist.
+	 * @return the rows, two for every output.
+	 */
+	public int[] getWorstRows(final TMNetlist netlist) {
+		int[] outputs = netlist.getOutputIdx();
+		double[] activity = netlist.getActivityMatrix();
+		int rows = netlist.getNumRows();
+		int[] rtn = new int[2 * outputs.length];
+		for (int k = 0; k < outputs.length; k++) {
+			long[] logic = netlist.getVertexAtIdx(outputs[k]).getLogicMask();
+			int offset = outputs[k] * rows;
+			double lowestOn = Double.MAX_VALUE;
+			double highestOff = -Double.MAX_VALUE;
+			for (int i = 0; i < rows; i++) {
+				double a = activity[offset + i];
+				if (LogicSimulator.getLogicBit(logic,i)) {
+					if (a < lowestOn) {
+						lowestOn = a;
+						rtn[2 * k] = i;
+					}
+				} else if (a > highestOff) {
+					highestOff = a;
+					rtn[2 * k + 1] = i;
 				}
 			}
 		}
 		return rtn;
 	}
 
+	/**
+	 * Get the rows that determine the distribution score of a
+	 * TMNetlist, the on row and the off row with the largest overlap at
+	 * every output.
+	 *
+	 * @param netlist the TMNetlist.
+	 * @param cs the CytometrySimulator holding the distributions of the netlist.
+	 * @return the rows, two for every output.
+	 */
+	public int[] getWorstDistributionRows(final TMNetlist netlist, final CytometrySimulator cs) {
+		int[] outputs = netlist.getOutputIdx();
+		int[] rtn = new int[2 * outputs.length];
+		for (int k = 0; k < outputs.length; k++) {
+			getHighestOverlap(netlist.getVertexAtIdx(outputs[k]),cs,rtn,2 * k);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Return one minus the largest overlap of an on distribution and an
+	 * off distribution of a TMNode, where the overlap of two
+	 * distributions is the sum over bins of the smaller of the two.
+	 *
+	 * @param node the TMNode to score.
+	 * @param cs the CytometrySimulator holding the distributions of the node.
+	 * @return the separation.
+	 */
+	private static Double getSeparation(final TMNode node, final CytometrySimulator cs) {
+		double highestOverlap = getHighestOverlap(node,cs,new int[2],0);
+		return 1.0 - Math.max(highestOverlap,0.0);
+	}
+
+	/**
+	 * Find the on row and the off row of a TMNode whose distributions
+	 * overlap the most. The overlap of an on distribution with any off
+	 * distribution is at most its overlap with the bin-wise maximum of
+	 * the off distributions, and vice versa, so rows are visited in
+	 * order of decreasing bound and the search stops once no bound
+	 * exceeds the largest overlap found. This usually leaves a few
+	 * pairs instead of every on row against every off row.
+	 *
+	 * @param node the TMNode.
+	 * @param cs the CytometrySimulator holding the distributions of the node.
+	 * @param rows the destination of the on row and the off row.
+	 * @param offset the offset of the on row in rows, followed by the off row.
+	 * @return the largest overlap, NO_OVERLAP if the node has no on row or no off row.
+	 */
+	private static double getHighestOverlap(final TMNode node, final CytometrySimulator cs,
+			final int[] rows, final int offset) {
+		long[] logic = node.getLogicMask();
+		Utils.isNullRuntimeException(logic,"TMNode logic");
+		int num = node.getTMNetlist().getNumRows();
+		int nb = cs.getGrid().getNumBins();
+		double[] distribution = cs.getDistribution();
+
+		// bin-wise maxima of the on and the off distributions
+		double[] maxOn = new double[nb];
+		double[] maxOff = new double[nb];
+		int numOn = 0;
+		for (int i = 0; i < num; i++) {
+			boolean on = LogicSimulator.getLogicBit(logic,i);
+			double[] max = on ? maxOn : maxOff;
+			int d = cs.getOffset(node.getIdx(),i);
+			for (int b = 0; b < nb; b++) {
+				max[b] = Math.max(max[b],distribution[d + b]);
+			}
+			numOn += on ? 1 : 0;
+		}
+
+		// on rows and off rows, each by decreasing bound
+		Integer[] onRows = new Integer[numOn];
+		Integer[] offRows = new Integer[num - numOn];
+		double[] bounds = new double[num];
+		for (int i = 0, j = 0; i < num; i++) {
+			boolean on = LogicSimulator.getLogicBit(logic,i);
+			bounds[i] = getOverlap(distribution,cs.getOffset(node.getIdx(),i),on ? maxOff : maxOn,0,nb);
+			if (on) {
+				onRows[i - j] = i;
+			} else {
+				offRows[j++] = i;
+			}
+		}
+		Comparator<Integer> order = (a,b) -> Double.compare(bounds[b],bounds[a]);
+		Arrays.sort(onRows,order);
+		Arrays.sort(offRows,order);
+
+		double rtn = NO_OVERLAP;
+		for (int i : onRows) {
+			if (bounds[i] <= rtn) {
+				break;
+			}
+			int on = cs.getOffset(node.getIdx(),i);
+			for (int j : offRows) {
+				if (bounds[j] <= rtn) {
+					break;
+				}
+				double overlap = getOverlap(distribution,on,distribution,cs.getOffset(node.getIdx(),j),nb);
+				if (overlap > rtn) {
+					rtn = overlap;
+					rows[offset] = i;
+					rows[offset + 1] = j;
+				}
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * @return the sum over bins of the smaller of two distributions
+	 */
+	private static double getOverlap(final double[] a, final int aOffset, final double[] b, final int bOffset, final int nb) {
+		double rtn = 0.0;
+		for (int k = 0; k < nb; k++) {
+			rtn += Math.min(a[aOffset + k],b[bOffset + k]);
+		}
+		return rtn;
+	}
+
 	/**
 	 * Return the lowest on by highest off ratio for a TMNode.
 	 *
@@ -72,25 +242,28 @@ public class Scorer extends CObject{
 	private static Double getOnOffRatio(TMNode node) {
 		Utils.isNullRuntimeException(node,"TMNode");
 
-		List<Boolean> logic = node.getLogic();
-		List<Double> activity = node.getActivity();
+		long[] logic = node.getLogicMask();
+		TMNetlist netlist = node.getTMNetlist();
+		double[] activity = netlist.getActivityMatrix();
+		int rows = netlist.getNumRows();
+		int offset = node.getIdx() * rows;
 		Utils.isNullRuntimeException(logic,"TMNode logic");
 		Utils.isNullRuntimeException(activity,"TMNode activity");
 
-		assert( logic.size() == activity.size() );
+		assert( logic.length == LogicSimulator.getNumWords(rows) );
 
-		Double lowestOn = Double.MAX_VALUE;
-		Double highestOff = Double.MIN_VALUE;
+		double lowestOn = Double.MAX_VALUE;
+		double highestOff = Double.MIN_VALUE;
 
-		for(int i = 0; i < logic.size(); ++i) {
-			Boolean l = logic.get(i);
-			Double a = activity.get(i);
+		for(int i = 0; i < rows; ++i) {
+			boolean l = LogicSimulator.getLogicBit(logic,i);
+			double a = activity[offset + i];
 
-			if (l == true
+			if (l
 					&&
 					lowestOn > a) {
 				lowestOn = a;
-			} else if (l == false
+			} else if (!l
 					&&
 					highestOff < a) {
 				highestOff = a;
@@ -100,4 +273,7 @@ public class Scorer extends CObject{
 		return lowestOn/highestOff;
 	}
 
+	// below any overlap, so that the first pair of rows is always taken
+	private static final double NO_OVERLAP = -1.0;
+
 }
@@ -20,17 +20,18 @@
  */
 package org.cellocad.technologymapping.common.simulation;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import org.cellocad.common.Pair;
 import org.cellocad.common.Utils;
-import org.cellocad.technologymapping.common.graph.algorithm.UpstreamDFS;
-import org.cellocad.technologymapping.common.netlist.TMEdge;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
 import org.cellocad.technologymapping.common.netlist.TMNetlist;
 import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
 import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.data.ResponseFunction;
 
 /**
  * @author: Timothy Jones
@@ -67,131 +68,179 @@ public class ActivitySimulator extends Simulator{
 		computeActivity(this.getTMNetlist());
 	}
 
+	/**
+	 * Recompute activities only for the fan-out cone of the given nodes.
+	 *
+	 * @see Simulator#run(Collection)
+	 */
+	@Override
+	public void run(final Collection<TMNode> nodes) {
+		TMNetlist netlist = this.getTMNetlist();
+		int num = this.computeFanOutCone(netlist,nodes);
+		int[] cone = this.getCone();
+		for (int i = 0; i < num; i++) {
+			computeNodeActivity(netlist,netlist.getVertexAtIdx(cone[i]));
+		}
+	}
+
 	/**
 	 * Set activities to all input nodes based on their boolean logic values.
 	 *
 	 * @param reference the map from input name to reference low-high activity pair.
 	 */
 	public void initInputActivities(Map<String,Pair<Double,Double>> reference) {
-		List<TMNode> nodes = this.getTMNetlist().getInputNodes();
+		TMNetlist netlist = this.getTMNetlist();
+		double[] activity = netlist.getActivityMatrix();
+		int rows = netlist.getNumRows();
+		List<TMNode> nodes = netlist.getInputNodes();
 		for (TMNode node : nodes) {
 			Pair<Double,Double> inputRef = reference.get(node.getGate().getName());
 			Utils.isNullRuntimeException(inputRef, "Input activity reference for " + node.getGate().getName());
-			List<Boolean> logic = node.getLogic();
-			node.setActivity(getInputActivity(logic,inputRef));
+			long[] logic = node.getLogicMask();
+			int offset = node.getIdx() * rows;
+			netlist.record(node);
+			for (int i = 0; i < rows; i++) {
+				if (LogicSimulator.getLogicBit(logic,i)) {
+					activity[offset + i] = inputRef.getSecond();
+				} else {
+					activity[offset + i] = inputRef.getFirst();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute and assign promoter activities.
+	 *
+	 * @param netlist the TMNetlist on which to assign activities.
+	 */
+	private static void computeActivity(TMNetlist netlist) {
+		TMSchedule schedule = netlist.getSchedule();
+		for (int p = 0; p < schedule.getNumNodes(); p++) {
+			computeNodeActivity(netlist,netlist.getVertexAtIdx(schedule.getNodeAt(p)));
 		}
 	}
 
 	/**
-	 * Get input promoter activities from a logic stream and a low-high reference pair.
+	 * Compute and assign the promoter activity of a single node from the activities of its inputs.
 	 *
-	 * @param logic the boolean list from which to derive input activities.
-	 * @param reference the activity values for false and true boolean states.
-	 * @return the list of promoter activities.
+	 * @param netlist the TMNetlist containing the node.
+	 * @param node the node on which to assign activity.
 	 */
-	private List<Double> getInputActivity(List<Boolean> logic, Pair<Double,Double> reference) {
-		List<Double> activity = new ArrayList<>();
-		for (Boolean b : logic) {
-			if (b) {
-				activity.add(reference.getSecond());
+	private static void computeNodeActivity(TMNetlist netlist, TMNode node) {
+		Gate g = node.getGate();
+		if (node.getRole() != NodeRole.INPUT) {
+			netlist.record(node);
+			if (node.getRole() == NodeRole.OUTPUT) {
+				computeOutputActivity(netlist,node,g);
 			} else {
-				activity.add(reference.getFirst());
+				computeGateActivity(netlist,node,g);
 			}
 		}
-		return activity;
 	}
 
 	/**
-	 * Compute and assign promoter activities.
+	 * Compute the activity of a single node over a range of rows,
+	 * without recording it in the journal. Rows are independent, so
+	 * disjoint ranges can be computed concurrently once the node has
+	 * been recorded.
 	 *
-	 * @param netlist the TMNetlist on which to assign activities.
+	 * @param netlist the TMNetlist containing the node.
+	 * @param node the node on which to assign activity.
+	 * @param lo the first row.
+	 * @param hi the row after the last row.
 	 */
-	private static void computeActivity(TMNetlist netlist) {
-		UpstreamDFS<TMNode,TMEdge,TMNetlist> dfs = new UpstreamDFS<>(netlist);
-		TMNode node = null;
-
-		while ((node = dfs.getNextVertex()) != null) {
-			Gate g = node.getGate();
-			String type = node.getNodeType();
-			if (!type.equals("TopInput")) {
-				List<List<Double>> inputs = new ArrayList<>();
-				for (int i = 0; i < node.getNumInEdge(); i++) {
-					TMEdge e = node.getInEdgeAtIdx(i);
-					TMNode src = e.getSrc();
-					Utils.isNullRuntimeException(src.getActivity(), "Input activity");
-					inputs.add(src.getActivity());
-				}
-
-				List<Double> activity = null;
-				if (node.getNodeType().equals("TopOutput")) {
-					activity = getOutputActivity(inputs,g);
-				} else {
-					activity = getGateActivity(inputs,g);
-				}
-				node.setActivity(activity);
-			}
+	public static void computeNodeActivity(TMNetlist netlist, TMNode node, int lo, int hi) {
+		if (node.getRole() != NodeRole.INPUT) {
+			computeGateActivity(netlist,node,node.getGate(),lo,hi);
 		}
 	}
 
 	/**
-	 * Get the activity for a logic gate given some input.
+	 * Compute the activity for a logic gate from the summed activity of its inputs, in place.
 	 *
-	 * @param input the inputs to the gate.
-	 * @param gate the gate for which to compute input.
+	 * @param netlist the TMNetlist containing the node.
+	 * @param node the node for which to compute activity.
+	 * @param gate the gate assigned to the node.
 	 */
-	private static List<Double> getGateActivity(List<List<Double>> input, Gate gate) {
-		isRaggedInputListException(input);
+	private static void computeGateActivity(TMNetlist netlist, TMNode node, Gate gate) {
+		computeGateActivity(netlist,node,gate,0,netlist.getNumRows());
+	}
+
+	/**
+	 * Compute the activity for a logic gate over a range of rows, in place.
+	 *
+	 * @param netlist the TMNetlist containing the node.
+	 * @param node the node for which to compute activity.
+	 * @param gate the gate assigned to the node.
+	 * @param lo the first row.
+	 * @param hi the row after the last row.
+	 */
+	private static void computeGateActivity(TMNetlist netlist, TMNode node, Gate gate, int lo, int hi) {
 		Utils.isNullRuntimeException(gate.getResponseFunction(),"gate response function");
-		List<Double> rtn = new ArrayList<>();
-		Double x = 0.0;
-		for (int i = 0; i < input.get(0).size(); i++) {
-			List<Double> col = getInputColumn(input,i);
-			x = col.stream().mapToDouble(Double::doubleValue).sum();
-			rtn.add(gate.getResponseFunction().apply(x));
+		double[] activity = netlist.getActivityMatrix();
+		int rows = netlist.getNumRows();
+		int offset = node.getIdx() * rows;
+		sumInputActivity(netlist,node,activity,offset + lo,lo,hi);
+		ResponseFunction<?> rf = gate.getResponseFunction();
+		for (int i = offset + lo; i < offset + hi; i++) {
+			activity[i] = rf.applyAsDouble(activity[i]);
 		}
-		return rtn;
 	}
 
 	/**
-	 * Get the activity for an output gate.
+	 * Compute the activity for an output gate.
 	 *
-	 * @param input the inputs to the gate.
-	 * @param gate the gate for which to compute input.
+	 * @param netlist the TMNetlist containing the node.
+	 * @param node the node for which to compute activity.
+	 * @param gate the gate assigned to the node.
 	 */
-	private static List<Double> getOutputActivity(List<List<Double>> input, Gate gate) {
-		return getGateActivity(input,gate);
+	private static void computeOutputActivity(TMNetlist netlist, TMNode node, Gate gate) {
+		computeGateActivity(netlist,node,gate);
 	}
 
 	/**
-	 * Get a column of inputs from a matrix.
+	 * Sum the activities of the inputs of a node, row by row, into a destination array.
 	 *
-	 * @param input the set of inputs.
-	 * @param i the column to select.
+	 * @param netlist the TMNetlist containing the node.
+	 * @param node the node whose inputs are to be summed.
+	 * @param dst the destination array.
+	 * @param offset the offset of the first row in the destination array.
 	 */
-	private static List<Double> getInputColumn(List<List<Double>> input, int i) {
-		List<Double> rtn = new ArrayList<>();
-		for (int j = 0; j < input.size(); j++) {
-			rtn.add(input.get(j).get(i));
-		}
-		return rtn;
+	static void sumInputActivity(TMNetlist netlist, TMNode node, double[] dst, int offset) {
+		sumInputActivity(netlist,node,dst,offset,0,netlist.getNumRows());
 	}
 
 	/**
-	 * Throw an exception if the input list is ragged.
+	 * Sum the activities of the inputs of a node over a range of rows
+	 * into a destination array.
 	 *
-	 * @param input the set of inputs to check.
-	 * @return false if the inputs are not ragged.
+	 * @param netlist the TMNetlist containing the node.
+	 * @param node the node whose inputs are to be summed.
+	 * @param dst the destination array.
+	 * @param offset the offset of row lo in the destination array.
+	 * @param lo the first row.
+	 * @param hi the row after the last row.
 	 */
-	private static boolean isRaggedInputListException(List<List<Double>> input) {
-		boolean rtn = false;
-		for (int i = 0; i < input.size(); i++) {
-			for (int j = i+1; j < input.size(); j++) {
-				if (input.get(i).size() != input.get(j).size()) {
-					throw new RuntimeException("Activity input vectors must be of equal length.");
+	static void sumInputActivity(TMNetlist netlist, TMNode node, double[] dst, int offset, int lo, int hi) {
+		double[] activity = netlist.getActivityMatrix();
+		int rows = netlist.getNumRows();
+		int len = hi - lo;
+		TMSchedule schedule = netlist.getSchedule();
+		int idx = node.getIdx();
+		if (schedule.getNumIn(idx) == 0) {
+			throw new RuntimeException("Node " + node.getName() + " has no inputs.");
+		}
+		for (int j = 0; j < schedule.getNumIn(idx); j++) {
+			int srcOffset = schedule.getIn(idx,j) * rows + lo;
+			if (j == 0) {
+				System.arraycopy(activity,srcOffset,dst,offset,len);
+			} else {
+				for (int i = 0; i < len; i++) {
+					dst[offset + i] += activity[srcOffset + i];
 				}
 			}
 		}
-		return rtn;
 	}
 
 	/**
@@ -0,0 +1,239 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.simulation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cellocad.common.Utils;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.data.LogBinGrid;
+import org.cellocad.technologymapping.data.ResponseFunction;
+
+/**
+ * Propagates distributions of activity through a TMNetlist, one per node
+ * and row, on a LogBinGrid. Input nodes have all their mass in the bin
+ * of their activity. The distribution at the input of a gate is that of
+ * the sum of its independent inputs, and the gate maps it through the
+ * table of its Cytometry, or through its response function if it has no
+ * cytometry data. The tables are compiled once per simulator, so that
+ * simulators in different threads share nothing. Distributions are kept
+ * in one primitive array laid out as [node][row][bin].
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class CytometrySimulator extends Simulator{
+
+	/**
+	 * Create a new CytometrySimulator.
+	 *
+	 * @param netlist the TMNetlist on which to operate.
+	 * @param grid the grid of the distributions.
+	 */
+	public CytometrySimulator(final TMNetlist netlist, final LogBinGrid grid) {
+		super();
+		Utils.isNullRuntimeException(netlist, "TMNetlist");
+		Utils.isNullRuntimeException(grid, "LogBinGrid");
+		this.setTMNetlist(netlist);
+		this.grid = grid;
+		int nb = grid.getNumBins();
+		this.sumBins = new int[nb * nb];
+		for (int i = 0; i < nb; i++) {
+			for (int j = 0; j < nb; j++) {
+				sumBins[i * nb + j] = grid.getBin(grid.getCenter(i) + grid.getCenter(j));
+			}
+		}
+		this.input = new double[nb];
+		this.scratch = new double[nb];
+		this.distribution = new double[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see Simulator#run()
+	 */
+	public void run() {
+		TMNetlist netlist = this.getTMNetlist();
+		TMSchedule schedule = netlist.getSchedule();
+		int size = schedule.getNumNodes() * netlist.getNumRows() * grid.getNumBins();
+		if (distribution.length != size) {
+			distribution = new double[size];
+		}
+		for (int p = 0; p < schedule.getNumNodes(); p++) {
+			this.computeNodeDistribution(netlist.getVertexAtIdx(schedule.getNodeAt(p)));
+		}
+	}
+
+	/**
+	 * Recompute distributions only for the fan-out cone of the given nodes.
+	 *
+	 * @see Simulator#run(Collection)
+	 */
+	@Override
+	public void run(final Collection<TMNode> nodes) {
+		TMNetlist netlist = this.getTMNetlist();
+		if (distribution.length != netlist.getSchedule().getNumNodes() * netlist.getNumRows() * grid.getNumBins()) {
+			this.run();
+			return;
+		}
+		int num = this.computeFanOutCone(netlist,nodes);
+		int[] cone = this.getCone();
+		for (int i = 0; i < num; i++) {
+			this.computeNodeDistribution(netlist.getVertexAtIdx(cone[i]));
+		}
+	}
+
+	/**
+	 * Compute the distributions of a node in every row from the
+	 * distributions of its inputs.
+	 *
+	 * @param node the node.
+	 */
+	private void computeNodeDistribution(final TMNode node) {
+		TMNetlist netlist = this.getTMNetlist();
+		TMSchedule schedule = netlist.getSchedule();
+		int rows = netlist.getNumRows();
+		int nb = grid.getNumBins();
+		int idx = node.getIdx();
+		Gate gate = node.getGate();
+		double[] table = (node.getRole() == NodeRole.INPUT) ? null : this.getTable(gate);
+		for (int i = 0; i < rows; i++) {
+			int offset = this.getOffset(idx,i);
+			Arrays.fill(distribution,offset,offset + nb,0.0);
+			if (node.getRole() == NodeRole.INPUT) {
+				distribution[offset + grid.getBin(netlist.getActivityMatrix()[idx * rows + i])] = 1.0;
+				continue;
+			}
+			if (schedule.getNumIn(idx) == 0) {
+				throw new RuntimeException("Node " + node.getName() + " has no inputs.");
+			}
+
+			// distribution of the summed inputs
+			System.arraycopy(distribution,this.getOffset(schedule.getIn(idx,0),i),input,0,nb);
+			for (int j = 1; j < schedule.getNumIn(idx); j++) {
+				int src = this.getOffset(schedule.getIn(idx,j),i);
+				Arrays.fill(scratch,0.0);
+				for (int a = 0; a < nb; a++) {
+					if (input[a] == 0.0) {
+						continue;
+					}
+					for (int b = 0; b < nb; b++) {
+						scratch[sumBins[a * nb + b]] += input[a] * distribution[src + b];
+					}
+				}
+				System.arraycopy(scratch,0,input,0,nb);
+			}
+
+			// distribution of the output
+			if (table != null) {
+				for (int a = 0; a < nb; a++) {
+					if (input[a] == 0.0) {
+						continue;
+					}
+					for (int b = 0; b < nb; b++) {
+						distribution[offset + b] += input[a] * table[a * nb + b];
+					}
+				}
+			} else {
+				ResponseFunction<?> rf = gate.getResponseFunction();
+				Utils.isNullRuntimeException(rf,"gate response function");
+				for (int a = 0; a < nb; a++) {
+					if (input[a] != 0.0) {
+						distribution[offset + grid.getBin(rf.applyAsDouble(grid.getCenter(a)))] += input[a];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param gate a gate.
+	 * @return the table of the cytometry of the gate on the grid, or null
+	 * if it has no cytometry data, compiled on first use
+	 */
+	private double[] getTable(final Gate gate) {
+		if (gate.getCytometry() == null) {
+			return null;
+		}
+		double[] rtn = tables.get(gate.getName());
+		if (rtn == null && !tables.containsKey(gate.getName())) {
+			rtn = gate.getCytometry().getTable(grid);
+			tables.put(gate.getName(),rtn);
+		}
+		return rtn;
+	}
+
+	/**
+	 * @param idx the index of the node.
+	 * @param row the row.
+	 * @return the offset of the distribution of a node in a row
+	 */
+	public int getOffset(final int idx, final int row) {
+		return (idx * this.getTMNetlist().getNumRows() + row) * grid.getNumBins();
+	}
+
+	/**
+	 * @return the distributions, laid out as [node][row][bin]
+	 */
+	public double[] getDistribution() {
+		return distribution;
+	}
+
+	/**
+	 * @return the grid
+	 */
+	public LogBinGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * @return the netlist
+	 */
+	public TMNetlist getTMNetlist() {
+		return tmNetlist;
+	}
+
+	/**
+	 * @param netlist the netlist to set
+	 */
+	public void setTMNetlist(TMNetlist netlist) {
+		this.tmNetlist = netlist;
+	}
+
+	private TMNetlist tmNetlist;
+	private LogBinGrid grid;
+	private int[] sumBins;
+	private double[] input;
+	private double[] scratch;
+	private double[] distribution;
+	private Map<String,double[]> tables = new HashMap<>();
+
+}
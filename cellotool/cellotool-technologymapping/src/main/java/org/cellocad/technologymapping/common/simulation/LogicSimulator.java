@@ -21,14 +21,13 @@
 package org.cellocad.technologymapping.common.simulation;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import org.cellocad.common.Utils;
-import org.cellocad.technologymapping.common.graph.algorithm.UpstreamDFS;
-import org.cellocad.technologymapping.common.netlist.TMEdge;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
 import org.cellocad.technologymapping.common.netlist.TMNetlist;
 import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
 
 /**
  * @author: Timothy Jones
@@ -38,6 +37,16 @@ import org.cellocad.technologymapping.common.netlist.TMNode;
  */
 public class LogicSimulator extends Simulator{
 
+	// the first six inputs, as bit patterns within one 64-row word
+	private static final long[] INPUT_PATTERNS = {
+			0xAAAAAAAAAAAAAAAAL,
+			0xCCCCCCCCCCCCCCCCL,
+			0xF0F0F0F0F0F0F0F0L,
+			0xFF00FF00FF00FF00L,
+			0xFFFF0000FFFF0000L,
+			0xFFFFFFFF00000000L
+	};
+
 	/**
 	 * {@inheritDoc}
 	 *
@@ -68,36 +77,42 @@ public class LogicSimulator extends Simulator{
 	}
 
 	/**
-	 * Compute the boolean logic over the whole netlist. Input logic must have been initialized.
+	 * Compute the boolean logic over the whole netlist, or over the
+	 * sampled rows of the truth table if rows are set.
 	 */
 	private void computeBooleanLogic() {
 		TMNetlist netlist = this.getTMNetlist();
-		List<List<Boolean>> inputLogic = getInputLogic(netlist.getInputNodes().size());
+		List<TMNode> inputNodes = netlist.getInputNodes();
+		int[] rows = this.getRows();
+		int numRows = (rows == null) ? 1 << inputNodes.size() : rows.length;
+		netlist.initState(numRows);
+		long[][] inputLogic = (rows == null) ? getInputLogic(inputNodes.size()) : getInputLogic(inputNodes.size(),rows);
 
-		Iterator<List<Boolean>> it = inputLogic.iterator();
-		for (TMNode node : netlist.getInputNodes()) {
-			node.setLogic(it.next());
+		for (int i = 0; i < inputNodes.size(); i++) {
+			TMNode node = inputNodes.get(i);
+			node.setLogicMask(inputLogic[i]);
+			node.setLogic(getLogicList(inputLogic[i],numRows));
 		}
 
-		UpstreamDFS<TMNode,TMEdge,TMNetlist> dfs = new UpstreamDFS<>(netlist);
-		TMNode node = null;
-		while ((node = dfs.getNextVertex()) != null) {
-			if (!node.getNodeType().equals("TopInput")) {
-				List<List<Boolean>> inputs = new ArrayList<>();
-				for (int i = 0; i < node.getNumInEdge(); i++) {
-					TMEdge e = node.getInEdgeAtIdx(i);
-					TMNode src = e.getSrc();
-					inputs.add(src.getLogic());
+		TMSchedule schedule = netlist.getSchedule();
+		for (int p = 0; p < schedule.getNumNodes(); p++) {
+			TMNode node = netlist.getVertexAtIdx(schedule.getNodeAt(p));
+			if (node.getRole() != NodeRole.INPUT) {
+				int idx = node.getIdx();
+				long[][] inputs = new long[schedule.getNumIn(idx)][];
+				for (int i = 0; i < schedule.getNumIn(idx); i++) {
+					inputs[i] = netlist.getVertexAtIdx(schedule.getIn(idx,i)).getLogicMask();
 				}
 
-				List<Boolean> logic = null;
+				long[] logic = null;
 
-				if (node.getNodeType().equals("TopOutput")) {
-					logic = getOutputLogic(inputs);
+				if (node.getRole() == NodeRole.OUTPUT) {
+					logic = getOutputLogic(inputs,numRows);
 				} else {
-					logic = getGateLogic(inputs,node.getNodeType());
+					logic = getGateLogic(inputs,node.getNodeType(),numRows);
 				}
-				node.setLogic(logic);
+				node.setLogicMask(logic);
+				node.setLogic(getLogicList(logic,numRows));
 			}
 		}
 	}
@@ -105,46 +120,47 @@ public class LogicSimulator extends Simulator{
 	/**
 	 * Get the logic for a gate of the given type, with the given list of inputs.
 	 *
-	 * @param inputs the inputs to the gate.
+	 * @param inputs the packed inputs to the gate.
 	 * @param gateType the type of the gate, e.g. NOT, NOR.
-	 * @return the logic output of the gate.
+	 * @param numRows the number of rows in the truth table.
+	 * @return the packed logic output of the gate.
 	 */
-	private static List<Boolean> getGateLogic(List<List<Boolean>> inputs, String gateType) {
-		List<Boolean> rtn = null;
+	private static long[] getGateLogic(long[][] inputs, String gateType, int numRows) {
+		long[] rtn = null;
 		switch (gateType) {
 		case "NOT": {
-			isWrongInputNumberException(inputs.size(),1,"NOT");
-			rtn = computeLogicalNot(inputs.get(0));
+			isWrongInputNumberException(inputs.length,1,"NOT");
+			rtn = computeLogicalNot(inputs[0],numRows);
 			break;
 		}
 		case "AND": {
-			isWrongInputNumberException(inputs.size(),2,"AND");
-			rtn = computeLogicalAnd(inputs);
+			isWrongInputNumberException(inputs.length,2,"AND");
+			rtn = computeLogicalAnd(inputs,numRows);
 			break;
 		}
 		case "NAND": {
-			isWrongInputNumberException(inputs.size(),2,"NAND");
-			rtn = computeLogicalNot(computeLogicalAnd(inputs));
+			isWrongInputNumberException(inputs.length,2,"NAND");
+			rtn = computeLogicalNot(computeLogicalAnd(inputs,numRows),numRows);
 			break;
 		}
 		case "OR": {
-			isWrongInputNumberException(inputs.size(),2,"OR");
-			rtn = computeLogicalOr(inputs);
+			isWrongInputNumberException(inputs.length,2,"OR");
+			rtn = computeLogicalOr(inputs,numRows);
 			break;
 		}
 		case "NOR": {
-			isWrongInputNumberException(inputs.size(),2,"NOR");
-			rtn = computeLogicalNot(computeLogicalOr(inputs));
+			isWrongInputNumberException(inputs.length,2,"NOR");
+			rtn = computeLogicalNot(computeLogicalOr(inputs,numRows),numRows);
 			break;
 		}
 		case "XOR": {
-			isWrongInputNumberException(inputs.size(),2,"XOR");
-			rtn = computeLogicalXor(inputs);
+			isWrongInputNumberException(inputs.length,2,"XOR");
+			rtn = computeLogicalXor(inputs,numRows);
 			break;
 		}
 		case "XNOR": {
-			isWrongInputNumberException(inputs.size(),2,"XNOR");
-			rtn = computeLogicalNot(computeLogicalXor(inputs));
+			isWrongInputNumberException(inputs.length,2,"XNOR");
+			rtn = computeLogicalNot(computeLogicalXor(inputs,numRows),numRows);
 			break;
 		}
 		default: {
@@ -155,78 +171,78 @@ public class LogicSimulator extends Simulator{
 	}
 
 	/**
-	 * Compute NOT.
+	 * Compute NOT, one 64-row word at a time.
 	 *
 	 * @param input input.
+	 * @param numRows the number of rows in the truth table.
 	 * @return NOT(input).
 	 */
-	private static List<Boolean> computeLogicalNot(List<Boolean> input) {
-		List<Boolean> rtn = new ArrayList<>();
-		for (Boolean b : input) {
-			rtn.add(!b);
+	private static long[] computeLogicalNot(long[] input, int numRows) {
+		long[] rtn = new long[input.length];
+		for (int w = 0; w < input.length; w++) {
+			rtn[w] = ~input[w];
 		}
+		rtn[rtn.length - 1] &= getLastWordMask(numRows);
 		return rtn;
 	}
 
 	/**
-	 * Compute AND.
+	 * Compute AND, one 64-row word at a time.
 	 *
 	 * @param input input.
+	 * @param numRows the number of rows in the truth table.
 	 * @return AND(input).
 	 */
-	private static List<Boolean> computeLogicalAnd(List<List<Boolean>> input) {
+	private static long[] computeLogicalAnd(long[][] input, int numRows) {
 		isRaggedInputListException(input);
-		List<Boolean> rtn = new ArrayList<>();
-		for (int j = 0; j < input.get(0).size(); j++) {
-			List<Boolean> col = getInputColumn(input,j);
-			rtn.add(col.stream().reduce((a,b)-> a & b).orElse(true));
+		long[] rtn = new long[getNumWords(numRows)];
+		for (int w = 0; w < rtn.length; w++) {
+			long word = -1L;
+			for (int j = 0; j < input.length; j++) {
+				word &= input[j][w];
+			}
+			rtn[w] = word;
 		}
+		rtn[rtn.length - 1] &= getLastWordMask(numRows);
 		return rtn;
 	}
 
 	/**
-	 * Compute OR.
+	 * Compute OR, one 64-row word at a time.
 	 *
 	 * @param input input.
+	 * @param numRows the number of rows in the truth table.
 	 * @return OR(input).
 	 */
-	private static List<Boolean> computeLogicalOr(List<List<Boolean>> input) {
+	private static long[] computeLogicalOr(long[][] input, int numRows) {
 		isRaggedInputListException(input);
-		List<Boolean> rtn = new ArrayList<>();
-		for (int j = 0; j < input.get(0).size(); j++) {
-			List<Boolean> col = getInputColumn(input,j);
-			rtn.add(col.stream().reduce((a,b)-> a | b).orElse(false));
+		long[] rtn = new long[getNumWords(numRows)];
+		for (int w = 0; w < rtn.length; w++) {
+			long word = 0L;
+			for (int j = 0; j < input.length; j++) {
+				word |= input[j][w];
+			}
+			rtn[w] = word;
 		}
 		return rtn;
 	}
 
 	/**
-	 * Compute XOR.
+	 * Compute XOR, one 64-row word at a time.
 	 *
 	 * @param input input.
+	 * @param numRows the number of rows in the truth table.
 	 * @return XOR(input).
 	 */
-	private static List<Boolean> computeLogicalXor(List<List<Boolean>> input) {
+	private static long[] computeLogicalXor(long[][] input, int numRows) {
 		isRaggedInputListException(input);
-		List<Boolean> rtn = new ArrayList<>();
-		for (int j = 0; j < input.get(0).size(); j++) {
-			List<Boolean> col = getInputColumn(input,j);
-			rtn.add(col.stream().reduce((a,b)-> a ^ b).orElse(false));
-		}
-		return rtn;
-	}
-
-	/**
-	 * Get a column from a List of Lists.
-	 *
-	 * @param input the list-of-lists matrix.
-	 * @param i the column number.
-	 * @return the column.
-	 */
-	private static List<Boolean> getInputColumn(List<List<Boolean>> input, int i) {
-		List<Boolean> rtn = new ArrayList<>();
-		for (int j = 0; j < input.size(); j++) {
-			rtn.add(input.get(j).get(i));
+		long[] rtn = new long[getNumWords(numRows)];
+		for (int w = 0; w < rtn.length; w++) {
+			long word = 0L;
+			for (int j = 0; j < input.length; j++) {
+				word ^= input[j][w];
+			}
+			rtn[w] = word;
 		}
 		return rtn;
 	}
@@ -235,32 +251,103 @@ public class LogicSimulator extends Simulator{
 	 * Get the logic of an output gate.
 	 *
 	 * @param input input.
+	 * @param numRows the number of rows in the truth table.
 	 * @return output logic.
 	 */
-	private static List<Boolean> getOutputLogic(List<List<Boolean>> input) {
+	private static long[] getOutputLogic(long[][] input, int numRows) {
 		// 'output or', though this should probably get an explicit or gate in the logic synthesis stage
-		return computeLogicalOr(input);
+		return computeLogicalOr(input,numRows);
 	}
 
 	/**
-	 * Get the logic of n input gates.
+	 * Get the logic of n input gates. Input i is the i-th bit of the row
+	 * index, so the first six inputs repeat a fixed pattern in every word
+	 * and the others are constant over whole words.
 	 *
 	 * @param num the number of input gates.
-	 * @return 2^{0,1}^n
+	 * @return 2^{0,1}^n, packed.
 	 */
-	private static List<List<Boolean>> getInputLogic(int num) {
-		List<List<Boolean>> rtn = new ArrayList<>();
+	private static long[][] getInputLogic(int num) {
+		int numRows = 1 << num;
+		int numWords = getNumWords(numRows);
+		long[][] rtn = new long[num][numWords];
 		for (int i = 0; i < num; i++) {
-			List<Boolean> logic = new ArrayList<>();
-			for (int k = 0; k < Math.pow(2,num-1-i); k++) {
-				for (int j = 0; j < Math.pow(2,i); j++) {
-					logic.add(false);
+			for (int w = 0; w < numWords; w++) {
+				if (i < INPUT_PATTERNS.length) {
+					rtn[i][w] = INPUT_PATTERNS[i];
+				} else if (((w >>> (i - INPUT_PATTERNS.length)) & 1) != 0) {
+					rtn[i][w] = -1L;
 				}
-				for (int j = 0; j < Math.pow(2,i); j++) {
-					logic.add(true);
+			}
+			rtn[i][numWords - 1] &= getLastWordMask(numRows);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Get the logic of n input gates over a subset of the rows of the
+	 * truth table. Row r of the result is row rows[r] of the full truth
+	 * table.
+	 *
+	 * @param num the number of input gates.
+	 * @param rows the rows of the full truth table.
+	 * @return the sampled rows of 2^{0,1}^n, packed.
+	 */
+	private static long[][] getInputLogic(int num, int[] rows) {
+		long[][] rtn = new long[num][getNumWords(rows.length)];
+		for (int r = 0; r < rows.length; r++) {
+			for (int i = 0; i < num; i++) {
+				if (((rows[r] >>> i) & 1) != 0) {
+					rtn[i][r >>> 6] |= 1L << r;
 				}
 			}
-			rtn.add(logic);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Get the number of 64-bit words needed to hold a truth table.
+	 *
+	 * @param numRows the number of rows in the truth table.
+	 * @return the number of words.
+	 */
+	public static int getNumWords(int numRows) {
+		return Math.max(1,(numRows + 63) >>> 6);
+	}
+
+	/**
+	 * Get the mask of valid rows in the last word of a truth table.
+	 *
+	 * @param numRows the number of rows in the truth table.
+	 * @return the mask.
+	 */
+	private static long getLastWordMask(int numRows) {
+		int rem = numRows & 63;
+		return (rem == 0) ? -1L : (1L << rem) - 1;
+	}
+
+	/**
+	 * Get the value of one row of a packed truth table.
+	 *
+	 * @param logic the packed logic.
+	 * @param row the row.
+	 * @return the value of the row.
+	 */
+	public static boolean getLogicBit(long[] logic, int row) {
+		return ((logic[row >>> 6] >>> row) & 1L) != 0;
+	}
+
+	/**
+	 * Unpack a truth table into a list.
+	 *
+	 * @param logic the packed logic.
+	 * @param numRows the number of rows in the truth table.
+	 * @return the list of row values.
+	 */
+	private static List<Boolean> getLogicList(long[] logic, int numRows) {
+		List<Boolean> rtn = new ArrayList<>(numRows);
+		for (int i = 0; i < numRows; i++) {
+			rtn.add(getLogicBit(logic,i));
 		}
 		return rtn;
 	}
@@ -283,18 +370,16 @@ public class LogicSimulator extends Simulator{
 	}
 
 	/**
-	 * Check if the list of lists is ragged, i.e. if sub-lists are not of equal length.
+	 * Check if the packed inputs are ragged, i.e. if they are not of equal length.
 	 *
 	 * @param input
 	 * @return
 	 */
-	private static boolean isRaggedInputListException(List<List<Boolean>> input) {
+	private static boolean isRaggedInputListException(long[][] input) {
 		boolean rtn = false;
-		for (int i = 0; i < input.size(); i++) {
-			for (int j = i+1; j < input.size(); j++) {
-				if (input.get(i).size() != input.get(j).size()) {
-					throw new RuntimeException("Boolean input vectors must be of equal length.");
-				}
+		for (int i = 1; i < input.length; i++) {
+			if (input[i].length != input[0].length) {
+				throw new RuntimeException("Boolean input vectors must be of equal length.");
 			}
 		}
 		return rtn;
@@ -314,6 +399,21 @@ public class LogicSimulator extends Simulator{
 		this.tmNetlist = netlist;
 	}
 
+	/**
+	 * @return the rows of the full truth table to simulate, or null for all rows
+	 */
+	public int[] getRows() {
+		return rows;
+	}
+
+	/**
+	 * @param rows the rows of the full truth table to simulate, or null for all rows
+	 */
+	public void setRows(int[] rows) {
+		this.rows = rows;
+	}
+
 	private TMNetlist tmNetlist;
+	private int[] rows;
 
 }
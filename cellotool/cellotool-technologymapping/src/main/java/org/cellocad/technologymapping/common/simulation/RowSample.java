@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.common.simulation;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.cellocad.common.CObject;
+
+/**
+ * A subset of the rows of a truth table. Rows are drawn by stratified
+ * sampling over the row index, so that every block of consecutive rows
+ * is represented, and rows of interest can be added explicitly.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class RowSample extends CObject{
+
+	/**
+	 * Create a new RowSample of the rows of a truth table.
+	 *
+	 * @param numRows the number of rows in the full truth table.
+	 * @param size the number of rows to sample.
+	 * @param random the random number generator.
+	 */
+	public RowSample(final int numRows, final int size, final Random random) {
+		super();
+		if (numRows < 1 || size < 1) {
+			throw new RuntimeException("Invalid row sample.");
+		}
+		this.numRows = numRows;
+		this.rows = new TreeSet<>();
+		this.grow(size,random);
+	}
+
+	/**
+	 * Grow the sample to at least the given size. The full truth table
+	 * is split into size strata, and a random row is drawn from every
+	 * stratum that has no sampled row yet.
+	 *
+	 * @param size the size of the sample.
+	 * @param random the random number generator.
+	 */
+	public void grow(final int size, final Random random) {
+		int num = Math.min(size,numRows);
+		for (int s = 0; s < num; s++) {
+			int lo = (int) ((long) s * numRows / num);
+			int hi = (int) ((long) (s + 1) * numRows / num);
+			Integer row = rows.ceiling(lo);
+			if (row == null || row >= hi) {
+				rows.add(lo + random.nextInt(hi - lo));
+			}
+		}
+	}
+
+	/**
+	 * Add a row to the sample.
+	 *
+	 * @param row the row of the full truth table.
+	 * @return true if the row was not already sampled.
+	 */
+	public boolean add(final int row) {
+		if (row < 0 || row >= numRows) {
+			throw new RuntimeException("Invalid row: " + row + ".");
+		}
+		return rows.add(row);
+	}
+
+	/**
+	 * @return the sampled rows of the full truth table, in increasing order
+	 */
+	public int[] getRows() {
+		int[] rtn = new int[rows.size()];
+		int i = 0;
+		for (Integer row : rows) {
+			rtn[i++] = row;
+		}
+		return rtn;
+	}
+
+	/**
+	 * @return the number of sampled rows
+	 */
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * @return the number of rows in the full truth table
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return true if every row of the truth table is sampled
+	 */
+	public boolean isFull() {
+		return rows.size() == numRows;
+	}
+
+	private int numRows;
+	private TreeSet<Integer> rows;
+
+}
@@ -20,7 +20,12 @@
  */
 package org.cellocad.technologymapping.common.simulation;
 
+import java.util.Collection;
+
 import org.cellocad.common.CObject;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.netlist.TMSchedule;
 
 /**
  * @author: Timothy Jones
@@ -35,4 +40,50 @@ public abstract class Simulator extends CObject{
 	 */
 	public abstract void run();
 
+	/**
+	 * Run the simulation after the given nodes have changed. Simulators
+	 * that support incremental simulation only recompute the fan-out
+	 * cone of the changed nodes, others rerun the whole simulation.
+	 *
+	 * @param nodes the nodes that have changed since the last simulation.
+	 */
+	public void run(final Collection<TMNode> nodes) {
+		this.run();
+	}
+
+	/**
+	 * Compute the transitive fan-out cone of a set of nodes, including
+	 * the nodes themselves, in schedule order. The indices of the nodes
+	 * of the cone are stored in the array returned by getCone().
+	 *
+	 * @param netlist the TMNetlist containing the nodes.
+	 * @param nodes the nodes from which to start.
+	 * @return the number of nodes in the cone.
+	 */
+	protected int computeFanOutCone(final TMNetlist netlist, final Collection<TMNode> nodes) {
+		TMSchedule schedule = netlist.getSchedule();
+		int num = schedule.getNumNodes();
+		if (cone.length < num) {
+			cone = new int[num];
+			seeds = new int[num];
+			mark = new boolean[num];
+		}
+		int numSeeds = 0;
+		for (TMNode node : nodes) {
+			seeds[numSeeds++] = node.getIdx();
+		}
+		return schedule.getFanOutCone(seeds,numSeeds,mark,cone);
+	}
+
+	/**
+	 * @return the indices of the nodes of the last cone computed by computeFanOutCone
+	 */
+	protected int[] getCone() {
+		return cone;
+	}
+
+	private int[] cone = new int[0];
+	private int[] seeds = new int[0];
+	private boolean[] mark = new boolean[0];
+
 }
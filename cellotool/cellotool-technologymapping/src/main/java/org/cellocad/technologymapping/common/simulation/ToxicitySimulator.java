@@ -20,12 +20,12 @@
  */
 package org.cellocad.technologymapping.common.simulation;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import org.cellocad.common.Utils;
-import org.cellocad.technologymapping.common.netlist.TMEdge;
+import org.cellocad.technologymapping.common.netlist.NodeRole;
 import org.cellocad.technologymapping.common.netlist.TMNetlist;
 import org.cellocad.technologymapping.common.netlist.TMNode;
 import org.cellocad.technologymapping.data.Toxicity;
@@ -45,16 +45,38 @@ import org.cellocad.technologymapping.data.Toxicity;
  * compute Circuit Toxicity for each row in the truth table, multiply
  * Toxicity values for reach repressor in that row of the truth table.
  *
+ * The product is kept as a running sum of logs for every row. When the
+ * toxicity of a node changes, its old contribution is subtracted and
+ * its new one added, so that only the changed nodes are visited, and
+ * the minimum growth is found in the same pass that updates the
+ * outputs. The logs are kept in fixed point, so that the sums are exact
+ * and the growth of an assignment does not depend on the moves that
+ * led to it.
+ *
  * @author: Timothy Jones
  *
  * @date: Mar 16, 2018
  *
  */
-// TODO: replace Lists with a matrix library?
 public class ToxicitySimulator extends Simulator{
 
-	private static Double MAX_TOXICITY = 1.00;
-	private static Double MIN_TOXICITY = 0.01;
+	public static final double MAX_TOXICITY = 1.00;
+	public static final double MIN_TOXICITY = 0.01;
+
+	/**
+	 * Clamp the growth of a gate to the range of toxicity.
+	 *
+	 * @param growth The growth.
+	 * @return The growth, clamped to [MIN_TOXICITY, MAX_TOXICITY].
+	 */
+	public static double clampGrowth(final double growth) {
+		double rtn = growth;
+		if (rtn > MAX_TOXICITY)
+			rtn = MAX_TOXICITY;
+		if (rtn < MIN_TOXICITY)
+			rtn = MIN_TOXICITY;
+		return rtn;
+	}
 
 	/**
 	 * Create a new ToxicitySimulator.
@@ -80,221 +102,268 @@ public class ToxicitySimulator extends Simulator{
 	 * @see Simulator#run()
 	 */
 	public void run() {
-		assignToxicity(this.getTMNetlist());
+		this.assignToxicity(this.getTMNetlist().getLogicNodes());
 	}
 
 	/**
-	 * Initialize toxicity at the output nodes.
+	 * Get the log of a growth in fixed point.
 	 *
-	 * @param netlist The TMNetlist on which to assign output toxicity.
+	 * @param growth The growth.
+	 * @return The log of the growth, scaled by LOG_SCALE and rounded.
 	 */
-	public void initOutputToxicity() {
-		List<TMNode> nodes = this.getTMNetlist().getOutputNodes();
-		for (TMNode node : nodes) {
-			List<Boolean> logic = node.getLogic();
-			List<Double> toxicity = Collections.nCopies(logic.size(),1.0);
-			node.setToxicity(toxicity);
+	public static long toFixedLog(final double growth) {
+		return Math.round(Math.log(growth) * LOG_SCALE);
+	}
+
+	/**
+	 * Get the growth of a log in fixed point.
+	 *
+	 * @param log The log of the growth, scaled by LOG_SCALE.
+	 * @return The growth.
+	 */
+	public static double fromFixedLog(final long log) {
+		return Math.exp(log / LOG_SCALE);
+	}
+
+	/**
+	 * Recompute the running sums of the logs of toxicity from the
+	 * toxicities of the logic nodes.
+	 *
+	 * @param netlist The TMNetlist.
+	 */
+	private static void resetLogGrowth(final TMNetlist netlist) {
+		netlist.recordGrowth();
+		resetLogGrowth(netlist,0,netlist.getNumRows());
+	}
+
+	/**
+	 * Recompute the running sums of the logs of toxicity over a range of
+	 * rows from the toxicities of the logic nodes, without recording them
+	 * in the journal.
+	 *
+	 * @param netlist The TMNetlist.
+	 * @param lo The first row.
+	 * @param hi The row after the last row.
+	 */
+	public static void resetLogGrowth(final TMNetlist netlist, final int lo, final int hi) {
+		double[] toxicity = netlist.getToxicityMatrix();
+		long[] logGrowth = netlist.getLogGrowth();
+		int rows = netlist.getNumRows();
+		Arrays.fill(logGrowth,lo,hi,0L);
+		for (int idx : netlist.getLogicIdx()) {
+			int src = idx * rows;
+			for (int i = lo; i < hi; i++) {
+				logGrowth[i] += toFixedLog(toxicity[src + i]);
+			}
 		}
 	}
 
 	/**
-	 * Assign toxicities for a TMNetlist.
+	 * Recompute toxicity only for the logic nodes in the fan-out cone of
+	 * the given nodes, whose own gate or input activity has changed, then
+	 * update the circuit toxicity at the outputs.
 	 *
-	 * @param netlist The netlist to assign.
+	 * @see Simulator#run(Collection)
 	 */
-	private static void assignToxicity(TMNetlist netlist) {
-		List<Double> toxicity = computeToxicity(netlist);
+	@Override
+	public void run(final Collection<TMNode> nodes) {
+		TMNetlist netlist = this.getTMNetlist();
+		netlist.recordGrowth();
+		int num = this.computeFanOutCone(netlist,nodes);
+		int[] cone = this.getCone();
+		for (int i = 0; i < num; i++) {
+			TMNode node = netlist.getVertexAtIdx(cone[i]);
+			if (isLogicNode(node)) {
+				netlist.record(node);
+				this.computeNodeToxicity(node);
+			}
+		}
+		computeToxicity(netlist);
+	}
 
+	/**
+	 * Initialize toxicity at the output nodes.
+	 */
+	public void initOutputToxicity() {
+		TMNetlist netlist = this.getTMNetlist();
+		double[] toxicity = netlist.getToxicityMatrix();
+		int rows = netlist.getNumRows();
 		List<TMNode> nodes = netlist.getOutputNodes();
 		for (TMNode node : nodes) {
-			node.setToxicity(toxicity);
+			int offset = node.getIdx() * rows;
+			netlist.record(node);
+			Arrays.fill(toxicity,offset,offset + rows,1.0);
 		}
 	}
 
 	/**
-	 * Find the minimum growth (highest toxicity) for a TMNode.
+	 * Assign toxicities for the TMNetlist assigned to this simulator.
 	 *
-	 * @param node The TMNode to measure.
-	 * @return The minimum growth.
+	 * @param changed The logic nodes whose toxicity must be recomputed.
 	 */
-	private static Double minGrowth(TMNode node) {
-		Double rtn = null;
-		List<Double> toxicity = node.getToxicity();
-		if (toxicity != null)
-			rtn = Collections.min(toxicity);
-		return rtn;
+	private void assignToxicity(List<TMNode> changed) {
+		TMNetlist netlist = this.getTMNetlist();
+		netlist.recordGrowth();
+		for (TMNode node : changed) {
+			netlist.record(node);
+			this.computeNodeToxicity(node);
+		}
+		resetLogGrowth(netlist);
+		computeToxicity(netlist);
 	}
 
 	/**
-	 * Find the minimum growth (highest toxicity) for a TMNetlist.
+	 * Find the minimum growth (highest toxicity) for a TMNetlist, as of
+	 * the last update of the circuit toxicity.
 	 *
 	 * @return The minimum growth of the netlist assigned to this simulator.
 	 */
 	public Double minGrowth() {
-		Double rtn = 1.0;
+		return this.getTMNetlist().getMinGrowth();
+	}
 
-		List<TMNode> nodes = this.getTMNetlist().getOutputNodes();
-		for (TMNode node : nodes) {
-			Double growth = minGrowth(node);
-			if (growth < rtn)
-				rtn = growth;
+	/**
+	 * Find the row of the truth table with the minimum growth.
+	 *
+	 * @return the row with the minimum growth of the netlist assigned to this simulator.
+	 */
+	public int argMinGrowth() {
+		int rtn = 0;
+		double min = Double.MAX_VALUE;
+
+		TMNetlist netlist = this.getTMNetlist();
+		double[] toxicity = netlist.getToxicityMatrix();
+		int rows = netlist.getNumRows();
+		for (int idx : netlist.getOutputIdx()) {
+			int offset = idx * rows;
+			for (int i = 0; i < rows; i++) {
+				if (toxicity[offset + i] < min) {
+					min = toxicity[offset + i];
+					rtn = i;
+				}
+			}
 		}
 		return rtn;
 	}
 
 	/**
-	 * Compute toxicities for a TMNetlist.
+	 * Compute the circuit toxicity of a TMNetlist from the toxicities of
+	 * its logic nodes and assign it to every output node.
 	 *
 	 * @param netlist The TMNetlist for which to compute toxicities.
 	 */
-	private static List<Double> computeToxicity(TMNetlist netlist) {
-		List<Double> rtn = new ArrayList<Double>();
-
-		// TechNode out = techMap.findTechNodeByName(TMUtils.getOutputNodes(netlist).get(0).getName());
-		List<TMNode> nodes = netlist.getLogicNodes();
-
-		List<List<Double>> nodeToxicities = new ArrayList<>();
-		for (TMNode node : nodes) {
-			List<Double> toxicity = computeNodeToxicity(node);
-			node.setToxicity(toxicity);
-			nodeToxicities.add(node.getToxicity());
+	private static void computeToxicity(TMNetlist netlist) {
+		for (int idx : netlist.getOutputIdx()) {
+			netlist.record(netlist.getVertexAtIdx(idx));
 		}
-		isRaggedListException(nodeToxicities);
-		for (int i = 0; i < nodeToxicities.get(0).size(); i++) {
-			Double colToxicity = 1.0;
-			List<Double> col = getColumn(nodeToxicities,i);
-			colToxicity = col.stream().reduce(1.0, (a, b) -> a * b);
-			if(colToxicity < MIN_TOXICITY) {
-				colToxicity = MIN_TOXICITY;
-			}
-			rtn.add(colToxicity);
-		}
-
-		// for (int i = 0; i < out.getToxicity().size(); i++) {
-		//		Double rowToxicity = 1.0;
-		//		for (NetlistNode node : nodes) {
-		//			TechNode tn = techMap.findTechNodeByName(node.getName());
-		//			List<Double> toxicity = computeNodeToxicity(tn,node,techMap);
-		//			tn.setToxicity(toxicity);
-		//			rowToxicity = rowToxicity * tn.getToxicity().get(i);
-		//			if(rowToxicity < MIN_TOXICITY) {
-		//			   rowToxicity = MIN_TOXICITY;
-		//		   }
-		//		}
-		//		outputToxicity.add(rowToxicity);
-		// }
-
-		return rtn;
+		netlist.recordGrowth();
+		netlist.setMinGrowth(computeToxicity(netlist,0,netlist.getNumRows()));
 	}
 
 	/**
-	 * Compute and assign toxicity for an individual TMNode.
+	 * Compute the circuit toxicity of a TMNetlist over a range of rows
+	 * from the running sums of the logs of toxicity, without recording
+	 * the output nodes in the journal.
 	 *
-	 * @param techNode The TMNode to which to assign toxicity.
+	 * @param netlist The TMNetlist for which to compute toxicities.
+	 * @param lo The first row.
+	 * @param hi The row after the last row.
+	 * @return The minimum growth over the range of rows.
 	 */
-	private static List<Double> computeNodeToxicity(final TMNode node) {
-		List<Double> rtn = new ArrayList<>();
-		List<Double> inputActivity = collectInputActivities(node);
-		if (node.getGate().getToxicity() == null) {
-			for (int i = 0; i < inputActivity.size(); ++i) {
-				rtn.add(1.0);
+	public static double computeToxicity(TMNetlist netlist, int lo, int hi) {
+		double[] toxicity = netlist.getToxicityMatrix();
+		long[] logGrowth = netlist.getLogGrowth();
+		int rows = netlist.getNumRows();
+		int[] outputs = netlist.getOutputIdx();
+		double rtn = 1.0;
+		if (outputs.length == 0)
+			return rtn;
+
+		// compute the first output, then copy to the others
+		int dst = outputs[0] * rows;
+		for (int i = lo; i < hi; i++) {
+			double growth = fromFixedLog(logGrowth[i]);
+			if (growth < MIN_TOXICITY) {
+				growth = MIN_TOXICITY;
 			}
-		} else {
-			Toxicity t = node.getGate().getToxicity();
-			int minIdx = t.argMinFirst();
-			int maxIdx = t.argMaxFirst();
-
-			for (int i = 0; i < inputActivity.size(); ++i) {
-				Double a = inputActivity.get(i);
-				Double score = 1.0;
-				if (a < t.getRow(minIdx).getFirst()) {
-					score = t.getRow(minIdx).getSecond();
-				} else if (a > t.getRow(maxIdx).getFirst()) {
-					score = t.getRow(maxIdx).getSecond();
-				} else {
-					// assume unsorted toxicity table
-					int supIdx = t.argSupremumFirst(a);
-
-					Double supActivity = Math.log10(t.getRow(supIdx).getFirst());
-					Double supToxicity = t.getRow(supIdx).getSecond();
-
-					int infIdx = t.argInfimumFirst(a);
-					Double infActivity = Math.log10(t.getRow(infIdx).getFirst());
-					Double infToxicity = t.getRow(infIdx).getSecond();
-
-					Double weight = (Math.log10(a) - infActivity) / (supActivity - infActivity);
-					Double weightedAvg = (infToxicity * (1 - weight)) + (supToxicity * weight);
-
-					score = weightedAvg;
-				}
-
-				if (score > MAX_TOXICITY)
-					score = MAX_TOXICITY;
-				if (score < MIN_TOXICITY)
-					score = MIN_TOXICITY;
-
-				rtn.add(score);
+			toxicity[dst + i] = growth;
+			if (growth < rtn) {
+				rtn = growth;
 			}
 		}
+		for (int j = 1; j < outputs.length; j++) {
+			System.arraycopy(toxicity,dst + lo,toxicity,outputs[j] * rows + lo,hi - lo);
+		}
 		return rtn;
 	}
 
 	/**
-	 * Collect the input activities for a TMNode.
+	 * Whether a node is a logic node, i.e. neither an input nor an output.
 	 *
-	 * @param node The TMNode from which to collect.
+	 * @param node The TMNode to check.
+	 * @return true if the node is a logic node.
 	 */
-	private static List<Double> collectInputActivities(final TMNode node) {
-		List<Double> rtn = new ArrayList<>();
-
-		List<List<Double>> activities = new ArrayList<>();
-		for (int i = 0; i < node.getNumInEdge(); i++) {
-			TMEdge e = node.getInEdgeAtIdx(i);
-			TMNode src = e.getSrc();
-			activities.add(src.getActivity());
-		}
-
-		isRaggedListException(activities);
+	private static boolean isLogicNode(final TMNode node) {
+		return node.getRole() == NodeRole.LOGIC;
+	}
 
-		for (int i = 0; i < activities.get(0).size(); i++) {
-			List<Double> col = getColumn(activities,i);
-			rtn.add(col.stream().mapToDouble(Double::doubleValue).sum());
-		}
-		return rtn;
+	/**
+	 * Compute and assign toxicity for an individual TMNode.
+	 *
+	 * @param node The TMNode to which to assign toxicity.
+	 */
+	private void computeNodeToxicity(final TMNode node) {
+		int rows = this.getTMNetlist().getNumRows();
+		computeNodeToxicity(this.getTMNetlist(),node,0,rows,this.getInputActivityBuffer(rows));
 	}
 
 	/**
-	 * Get a column from a matrix (List of Lists).
+	 * Compute and assign toxicity for an individual TMNode over a range
+	 * of rows, and update the running sums of the logs of toxicity of
+	 * the rows, without recording them in the journal.
 	 *
-	 * @param input The set of inputs.
-	 * @param i The column to select.
+	 * @param netlist The TMNetlist containing the node.
+	 * @param node The TMNode to which to assign toxicity.
+	 * @param lo The first row.
+	 * @param hi The row after the last row.
+	 * @param buffer Scratch space for at least hi - lo summed input activities.
 	 */
-	private static List<Double> getColumn(List<List<Double>> input, int i) {
-		List<Double> rtn = new ArrayList<>();
-		for (int j = 0; j < input.size(); j++) {
-			rtn.add(input.get(j).get(i));
+	public static void computeNodeToxicity(final TMNetlist netlist, final TMNode node, final int lo, final int hi, final double[] buffer) {
+		double[] toxicity = netlist.getToxicityMatrix();
+		long[] logGrowth = netlist.getLogGrowth();
+		int offset = node.getIdx() * netlist.getNumRows();
+		Toxicity t = node.getGate().getToxicity();
+		if (t == null) {
+			Arrays.fill(buffer,0,hi - lo,1.0);
+		} else {
+			ActivitySimulator.sumInputActivity(netlist,node,buffer,0,lo,hi);
+			t.getGrowth(buffer,0,buffer,0,hi - lo);
+		}
+		for (int i = 0; i < hi - lo; ++i) {
+			double growth = clampGrowth(buffer[i]);
+			double old = toxicity[offset + lo + i];
+			if (growth != old) {
+				logGrowth[lo + i] += toFixedLog(growth) - toFixedLog(old);
+				toxicity[offset + lo + i] = growth;
+			}
 		}
-		return rtn;
 	}
 
 	/**
-	 * Throw an exception if the toxicity list is ragged.
+	 * Get the scratch buffer for summed input activities, growing it if needed.
 	 *
-	 * @param input The set of inputs to check.
-	 * @return false If the inputs are not ragged.
+	 * @param rows The number of rows required.
+	 * @return the scratch buffer.
 	 */
-	private static boolean isRaggedListException(List<List<Double>> input) {
-		boolean rtn = false;
-		for (int i = 0; i < input.size(); i++) {
-			for (int j = i+1; j < input.size(); j++) {
-				if (input.get(i).size() != input.get(j).size()) {
-					throw new RuntimeException("Toxicity vectors must be of equal length.");
-				}
-			}
+	private double[] getInputActivityBuffer(int rows) {
+		if (inputActivity.length < rows) {
+			inputActivity = new double[rows];
 		}
-		return rtn;
+		return inputActivity;
 	}
 
+	private double[] inputActivity = new double[0];
+
 	/**
 	 * @return the netlist
 	 */
@@ -311,4 +380,8 @@ public class ToxicitySimulator extends Simulator{
 
 	private TMNetlist tmNetlist;
 
+	// 2^44, a log of toxicity is kept to about 3e-14 and the sum of the
+	// logs of more than 10^5 nodes fits in a long
+	private static final double LOG_SCALE = 0x1p44;
+
 }
@@ -21,15 +21,27 @@
 package org.cellocad.technologymapping.data;
 
 import java.util.function.DoubleFunction;
+import java.util.function.DoubleUnaryOperator;
 
 import org.cellocad.common.CObject;
 
 /**
+ * A real function of one variable. Subclasses implement the primitive
+ * applyAsDouble, apply boxes its result.
+ *
  * @author: Timothy Jones
  *
  * @date: Mar 9, 2018
  *
  */
-public abstract class Curve extends CObject implements DoubleFunction<Double>{
+public abstract class Curve extends CObject implements DoubleFunction<Double>, DoubleUnaryOperator{
+
+	@Override
+	public Double apply(double input) {
+		return this.applyAsDouble(input);
+	}
+
+	@Override
+	public abstract double applyAsDouble(double input);
 
 }
@@ -20,12 +20,21 @@
  */
 package org.cellocad.technologymapping.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.cellocad.common.CObject;
 
 /**
+ * Output distributions of a gate measured by cytometry at a set of input
+ * activities. The distribution between two measured inputs is
+ * interpolated linearly in log10(input), the distribution outside the
+ * measured range is that of the nearest endpoint. The inputs are
+ * compiled into a sorted array when the Cytometry is created.
+ *
  * @author: Timothy Jones
  *
  * @date: Mar 15, 2018
@@ -38,6 +47,26 @@ public class Cytometry extends CObject{
 	public Cytometry(Map<Double,Histogram> data) {
 		super();
 		this.setData(data);
+		this.compile();
+	}
+
+	/**
+	 * Sort the histograms by input and precompute log10 of the inputs.
+	 */
+	private void compile() {
+		int num = data.size();
+		this.inputs = new double[num];
+		this.logInputs = new double[num];
+		this.histograms = new Histogram[num];
+		int i = 0;
+		for (Double input : data.keySet()) {
+			inputs[i++] = input;
+		}
+		Arrays.sort(inputs);
+		for (i = 0; i < num; i++) {
+			logInputs[i] = Math.log10(inputs[i]);
+			histograms[i] = data.get(inputs[i]);
+		}
 	}
 
 	public Set<Double> getInputs() {
@@ -48,8 +77,113 @@ public class Cytometry extends CObject{
 		return this.getData().get(input);
 	}
 
+	/**
+	 * Get the output distribution at a given input activity. The
+	 * histograms of the two nearest measured inputs are interpolated
+	 * bin by bin, which assumes that they share their bins.
+	 *
+	 * @param input the input activity.
+	 * @return the interpolated histogram, or null if there is no data.
+	 */
 	public Histogram interpolate(Double input) {
 		Histogram rtn = null;
+		int num = inputs.length;
+		if (num == 0) {
+			return rtn;
+		}
+		int lo = this.getLowerIndex(input);
+		double weight = this.getWeight(input,lo);
+		if (weight == 0.0 || histograms[lo].size() != histograms[lo + 1].size()) {
+			rtn = histograms[weight < 0.5 ? lo : lo + 1];
+		} else {
+			List<Double> bins = new ArrayList<>();
+			List<Double> counts = new ArrayList<>();
+			for (int i = 0; i < histograms[lo].size(); i++) {
+				bins.add(histograms[lo].getBin(i));
+				counts.add(histograms[lo].getCount(i) * (1 - weight) + histograms[lo + 1].getCount(i) * weight);
+			}
+			rtn = new Histogram(bins,counts);
+		}
+		return rtn;
+	}
+
+	/**
+	 * Compile the table of output distributions on a grid. Row b of the
+	 * table is the normalized output distribution at the center of bin b,
+	 * rebinned onto the grid. The table is a new array on every call, so
+	 * that a caller can keep its own without sharing it between threads.
+	 *
+	 * @param grid the grid.
+	 * @return the table, numBins by numBins in row-major order, or null if there is no data.
+	 */
+	public double[] getTable(final LogBinGrid grid) {
+		double[] rtn = null;
+		if (inputs.length == 0) {
+			return rtn;
+		}
+		int nb = grid.getNumBins();
+		rtn = new double[nb * nb];
+		for (int b = 0; b < nb; b++) {
+			double input = grid.getCenter(b);
+			int lo = this.getLowerIndex(input);
+			double weight = this.getWeight(input,lo);
+			this.addToRow(rtn,b * nb,grid,histograms[lo],1 - weight);
+			if (weight > 0) {
+				this.addToRow(rtn,b * nb,grid,histograms[lo + 1],weight);
+			}
+			double total = 0.0;
+			for (int o = 0; o < nb; o++) {
+				total += rtn[b * nb + o];
+			}
+			if (total > 0) {
+				for (int o = 0; o < nb; o++) {
+					rtn[b * nb + o] /= total;
+				}
+			}
+		}
+		return rtn;
+	}
+
+	/**
+	 * Add the weighted counts of a histogram to a row of a table on a grid.
+	 */
+	private void addToRow(final double[] table, final int offset, final LogBinGrid grid,
+			final Histogram histogram, final double weight) {
+		for (int i = 0; i < histogram.size(); i++) {
+			table[offset + grid.getBin(histogram.getBin(i))] += histogram.getCount(i) * weight;
+		}
+	}
+
+	/**
+	 * @return the largest index with inputs[index] <= input, clamped so
+	 * that index + 1 is valid when there are two or more inputs
+	 */
+	private int getLowerIndex(final double input) {
+		int lo = 0;
+		int hi = inputs.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (inputs[mid] <= input) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return Math.min(lo,Math.max(inputs.length - 2,0));
+	}
+
+	/**
+	 * @return the weight of the histogram above lo, 0 outside the measured range
+	 */
+	private double getWeight(final double input, final int lo) {
+		double rtn = 0.0;
+		if (lo + 1 < inputs.length) {
+			if (input >= inputs[lo + 1]) {
+				rtn = 1.0;
+			} else if (input > inputs[lo]) {
+				rtn = (Math.log10(input) - logInputs[lo]) / (logInputs[lo + 1] - logInputs[lo]);
+			}
+		}
 		return rtn;
 	}
 
@@ -67,6 +201,10 @@ public class Cytometry extends CObject{
 		this.data = data;
 	}
 
+	private double[] inputs;
+	private double[] logInputs;
+	private Histogram[] histograms;
+
 	/*
 	 * HashCode
 	 */
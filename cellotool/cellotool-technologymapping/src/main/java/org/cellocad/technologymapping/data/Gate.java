@@ -45,6 +45,21 @@ public class Gate extends CObject{
 		init();
 	}
 
+	/**
+	 * Create a copy of a Gate that shares its parts and data.
+	 *
+	 * @param other the Gate to copy.
+	 */
+	public Gate(final Gate other) {
+		super(other);
+		this.setParts(other.getParts());
+		this.setResponseFunction(other.getResponseFunction());
+		this.setGroup(other.getGroup());
+		this.setPromoter(other.getPromoter());
+		this.setToxicity(other.getToxicity());
+		this.setCytometry(other.getCytometry());
+	}
+
 	private void init() {
 		parts = new CObjectCollection<Part>();
 		responseFunction = null;
@@ -32,9 +32,15 @@ public class HillFunction extends Curve {
 	private Double k;
 	private Double n;
 
+	// unboxed copies of the parameters for applyAsDouble
+	private double ymaxValue = Double.NaN;
+	private double yminValue = Double.NaN;
+	private double kValue = Double.NaN;
+	private double nValue = Double.NaN;
+
 	@Override
-	public Double apply(double input) {
-		return this.getYmin()+(this.getYmax()-this.getYmin())/(1.0 + Math.pow(input/this.getK(),this.getN()));
+	public double applyAsDouble(double input) {
+		return yminValue+(ymaxValue-yminValue)/(1.0 + Math.pow(input/kValue,nValue));
 	}
 
 	/**
@@ -49,6 +55,7 @@ public class HillFunction extends Curve {
 	 */
 	public void setYmax(Double ymax) {
 		this.ymax = ymax;
+		this.ymaxValue = (ymax == null) ? Double.NaN : ymax;
 	}
 
 	/**
@@ -63,6 +70,7 @@ public class HillFunction extends Curve {
 	 */
 	public void setYmin(Double ymin) {
 		this.ymin = ymin;
+		this.yminValue = (ymin == null) ? Double.NaN : ymin;
 	}
 
 	/**
@@ -77,6 +85,7 @@ public class HillFunction extends Curve {
 	 */
 	public void setK(Double k) {
 		this.k = k;
+		this.kValue = (k == null) ? Double.NaN : k;
 	}
 
 	/**
@@ -91,6 +100,7 @@ public class HillFunction extends Curve {
 	 */
 	public void setN(Double n) {
 		this.n = n;
+		this.nValue = (n == null) ? Double.NaN : n;
 	}
 
 }
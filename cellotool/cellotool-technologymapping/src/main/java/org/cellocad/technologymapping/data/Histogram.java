@@ -25,6 +25,10 @@ import java.util.List;
 import org.cellocad.technologymapping.common.PairTable;
 
 /**
+ * Distribution of output activity measured by cytometry, as counts over
+ * bins of activity. The table is compiled into primitive arrays when it
+ * is created.
+ *
  * @author: Timothy Jones
  *
  * @date: Mar 15, 2018
@@ -34,6 +38,31 @@ public class Histogram extends PairTable<Double,Double>{
 
 	public Histogram(final List<Double> bins, final List<Double> counts) {
 		super(bins,counts);
+		this.bins = new double[bins.size()];
+		this.counts = new double[counts.size()];
+		for (int i = 0; i < this.bins.length; i++) {
+			this.bins[i] = bins.get(i);
+			this.counts[i] = counts.get(i);
+		}
+	}
+
+	/**
+	 * @param i the index of the bin.
+	 * @return the activity of the bin
+	 */
+	public double getBin(final int i) {
+		return bins[i];
 	}
 
+	/**
+	 * @param i the index of the bin.
+	 * @return the count of the bin
+	 */
+	public double getCount(final int i) {
+		return counts[i];
+	}
+
+	private double[] bins;
+	private double[] counts;
+
 }
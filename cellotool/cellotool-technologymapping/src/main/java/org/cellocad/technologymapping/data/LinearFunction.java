@@ -30,6 +30,10 @@ public class LinearFunction extends Curve {
 	private Double slope;
 	private Double offset;
 
+	// unboxed copies of the parameters for applyAsDouble
+	private double slopeValue = Double.NaN;
+	private double offsetValue = Double.NaN;
+
 	public LinearFunction() {
 		this.setSlope(1.0);
 		this.setOffset(0.0);
@@ -41,8 +45,8 @@ public class LinearFunction extends Curve {
 	}
 
 	@Override
-	public Double apply(double input) {
-		return this.getSlope()*input + this.getOffset();
+	public double applyAsDouble(double input) {
+		return slopeValue*input + offsetValue;
 	}
 
 	/**
@@ -57,6 +61,7 @@ public class LinearFunction extends Curve {
 	 */
 	public void setSlope(Double slope) {
 		this.slope = slope;
+		this.slopeValue = (slope == null) ? Double.NaN : slope;
 	}
 
 	/**
@@ -71,6 +76,7 @@ public class LinearFunction extends Curve {
 	 */
 	public void setOffset(Double offset) {
 		this.offset = offset;
+		this.offsetValue = (offset == null) ? Double.NaN : offset;
 	}
 
 }
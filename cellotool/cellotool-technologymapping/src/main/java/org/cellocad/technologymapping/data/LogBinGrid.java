@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.data;
+
+import org.cellocad.common.CObject;
+
+/**
+ * Bins spaced evenly in log10 of activity, identified by their centers.
+ * A value belongs to the bin with the nearest center in log space, and
+ * values outside the grid belong to the first or last bin.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class LogBinGrid extends CObject{
+
+	/**
+	 * Create a new LogBinGrid.
+	 *
+	 * @param min the center of the first bin.
+	 * @param max the center of the last bin.
+	 * @param numBins the number of bins.
+	 */
+	public LogBinGrid(final double min, final double max, final int numBins) {
+		super();
+		if (!(min > 0) || !(max > min) || numBins < 2) {
+			throw new RuntimeException("Invalid log bin grid.");
+		}
+		this.numBins = numBins;
+		this.logMin = Math.log10(min);
+		this.logStep = (Math.log10(max) - this.logMin) / (numBins - 1);
+		this.centers = new double[numBins];
+		for (int b = 0; b < numBins; b++) {
+			centers[b] = Math.pow(10,logMin + b * logStep);
+		}
+	}
+
+	/**
+	 * @param value the activity.
+	 * @return the index of the bin of the activity
+	 */
+	public int getBin(final double value) {
+		if (!(value > 0)) {
+			return 0;
+		}
+		long rtn = Math.round((Math.log10(value) - logMin) / logStep);
+		return (int) Math.max(0,Math.min(numBins - 1,rtn));
+	}
+
+	/**
+	 * @param b the index of the bin.
+	 * @return the activity at the center of the bin
+	 */
+	public double getCenter(final int b) {
+		return centers[b];
+	}
+
+	/**
+	 * @return the number of bins
+	 */
+	public int getNumBins() {
+		return numBins;
+	}
+
+	private int numBins;
+	private double logMin;
+	private double logStep;
+	private double[] centers;
+
+}
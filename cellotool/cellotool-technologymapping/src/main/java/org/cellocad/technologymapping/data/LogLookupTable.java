@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.data;
+
+import org.cellocad.common.Utils;
+
+/**
+ * A Curve tabulated at log-spaced inputs and linearly interpolated in
+ * log10(input). The table is refined until the relative error at the
+ * midpoints of every interval is within a tolerance, or until it
+ * reaches MAX_POINTS points, in which case getError() exceeds the
+ * tolerance. Inputs outside the table fall back to the tabulated Curve.
+ * Every lookup takes one log10 of its input, so the table only pays off
+ * for curves that are more expensive than a logarithm, such as a Hill
+ * function, whose Math.pow costs a logarithm and an exponential.
+ *
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class LogLookupTable extends Curve {
+
+	public static final double MIN_INPUT = 1e-6;
+	public static final double MAX_INPUT = 1e4;
+	public static final int MAX_POINTS = 1 << 16;
+
+	/**
+	 * Tabulate a Curve over [MIN_INPUT,MAX_INPUT].
+	 *
+	 * @param curve the Curve to tabulate.
+	 * @param tolerance the maximum relative error.
+	 */
+	public LogLookupTable(final Curve curve, final double tolerance) {
+		this(curve,tolerance,MIN_INPUT,MAX_INPUT);
+	}
+
+	/**
+	 * Tabulate a Curve over [minInput,maxInput].
+	 *
+	 * @param curve the Curve to tabulate.
+	 * @param tolerance the maximum relative error.
+	 * @param minInput the smallest tabulated input, greater than 0.
+	 * @param maxInput the largest tabulated input.
+	 */
+	public LogLookupTable(final Curve curve, final double tolerance, final double minInput, final double maxInput) {
+		super();
+		Utils.isNullRuntimeException(curve, "curve");
+		if (!(tolerance > 0)) {
+			throw new RuntimeException("Invalid lookup table tolerance.");
+		}
+		if (!(minInput > 0) || !(maxInput > minInput)) {
+			throw new RuntimeException("Invalid lookup table range.");
+		}
+		this.curve = curve;
+		this.logMin = Math.log10(minInput);
+		this.logMax = Math.log10(maxInput);
+		int num = 65;
+		this.build(num);
+		this.error = this.getMaxError();
+		while (this.error > tolerance && num < MAX_POINTS) {
+			num = 2 * (num - 1) + 1;
+			this.build(num);
+			this.error = this.getMaxError();
+		}
+	}
+
+	/**
+	 * Tabulate the Curve at num log-spaced points.
+	 *
+	 * @param num the number of points.
+	 */
+	private void build(final int num) {
+		this.values = new double[num];
+		this.step = (logMax - logMin) / (num - 1);
+		this.invStep = 1.0 / this.step;
+		for (int i = 0; i < num; i++) {
+			this.values[i] = curve.applyAsDouble(Math.pow(10.0, logMin + i * step));
+		}
+	}
+
+	/**
+	 * @return the largest relative error at the midpoints of the table intervals
+	 */
+	private double getMaxError() {
+		double rtn = 0.0;
+		for (int i = 0; i < values.length - 1; i++) {
+			double x = Math.pow(10.0, logMin + (i + 0.5) * step);
+			double exact = curve.applyAsDouble(x);
+			double error = Math.abs(this.applyAsDouble(x) - exact) / Math.max(Math.abs(exact),Double.MIN_NORMAL);
+			if (!(error <= rtn)) {
+				rtn = error;
+			}
+		}
+		return rtn;
+	}
+
+	@Override
+	public double applyAsDouble(double input) {
+		double u = (Math.log10(input) - logMin) * invStep;
+		if (!(u >= 0) || u >= values.length - 1) {
+			return curve.applyAsDouble(input);
+		}
+		int i = (int) u;
+		double w = u - i;
+		return values[i] + w * (values[i + 1] - values[i]);
+	}
+
+	/**
+	 * @return the tabulated Curve
+	 */
+	public Curve getCurve() {
+		return curve;
+	}
+
+	/**
+	 * @return the number of points in the table
+	 */
+	public int getNumPoints() {
+		return values.length;
+	}
+
+	/**
+	 * @return the largest relative error at the midpoints of the table intervals
+	 */
+	public double getError() {
+		return error;
+	}
+
+	private Curve curve;
+	private double logMin;
+	private double logMax;
+	private double step;
+	private double invStep;
+	private double[] values;
+	private double error;
+
+}
@@ -21,6 +21,7 @@
 package org.cellocad.technologymapping.data;
 
 import java.util.function.DoubleFunction;
+import java.util.function.DoubleUnaryOperator;
 
 import org.cellocad.common.CObject;
 
@@ -30,18 +31,62 @@ import org.cellocad.common.CObject;
  * @date: Mar 9, 2018
  *
  */
-public class ResponseFunction<T extends Curve> extends CObject implements DoubleFunction<Double>{
+public class ResponseFunction<T extends Curve> extends CObject implements DoubleFunction<Double>, DoubleUnaryOperator{
 	private Double offThreshold;
 	private Double onThreshold;
 	private T curve;
+	private Curve kernel;
 
 	public ResponseFunction() {
 		super();
 	}
 
+	/**
+	 * Create a copy of a ResponseFunction that shares its curve.
+	 *
+	 * @param other the ResponseFunction to copy.
+	 */
+	public ResponseFunction(final ResponseFunction<T> other) {
+		super(other);
+		this.setOnThreshold(other.getOnThreshold());
+		this.setOffThreshold(other.getOffThreshold());
+		this.setCurve(other.getCurve());
+		this.kernel = other.getKernel();
+	}
+
 	@Override
 	public Double apply(double value) {
-		return this.getCurve().apply(value);
+		return this.applyAsDouble(value);
+	}
+
+	@Override
+	public double applyAsDouble(double value) {
+		return this.getKernel().applyAsDouble(value);
+	}
+
+	/**
+	 * Get a copy of this response function that is evaluated through a
+	 * log-spaced lookup table of its curve instead of the curve itself.
+	 * This response function is unchanged.
+	 *
+	 * @param tolerance the maximum relative error of the table, 0 to evaluate the curve exactly.
+	 * @return the tabulated copy.
+	 */
+	public ResponseFunction<T> tabulate(final double tolerance) {
+		ResponseFunction<T> rtn = new ResponseFunction<>(this);
+		if (tolerance > 0) {
+			rtn.kernel = new LogLookupTable(this.getCurve(),tolerance);
+		} else {
+			rtn.kernel = this.getCurve();
+		}
+		return rtn;
+	}
+
+	/**
+	 * @return the Curve evaluated by applyAsDouble, either the curve or a lookup table of it
+	 */
+	public Curve getKernel() {
+		return kernel;
 	}
 
 	/**
@@ -84,6 +129,7 @@ public class ResponseFunction<T extends Curve> extends CObject implements Double
 	 */
 	public void setCurve(T curve) {
 		this.curve = curve;
+		this.kernel = curve;
 	}
 
 }
@@ -20,11 +20,19 @@
  */
 package org.cellocad.technologymapping.data;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import org.cellocad.technologymapping.common.PairTable;
 
 /**
+ * Growth of cells expressing a gate as a function of the gate's input
+ * activity. Growth between two measured inputs is interpolated
+ * linearly in log10(input), growth outside the measured range is that
+ * of the nearest endpoint. The table is compiled into primitive arrays
+ * sorted by input when it is created.
+ *
  * @author: Timothy Jones
  *
  * @date: Mar 15, 2018
@@ -34,6 +42,81 @@ public class Toxicity extends PairTable<Double,Double>{
 
 	public Toxicity(final List<Double> input, final List<Double> growth) {
 		super(input,growth);
+		this.compile(input,growth);
+	}
+
+	/**
+	 * Sort the table by input and precompute log10 of the inputs.
+	 *
+	 * @param input the vector of inputs.
+	 * @param growth the vector of growth values.
+	 */
+	private void compile(final List<Double> input, final List<Double> growth) {
+		int num = input.size();
+		Integer[] order = new Integer[num];
+		for (int i = 0; i < num; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order,Comparator.comparingDouble(i -> input.get(i)));
+		this.inputs = new double[num];
+		this.logInputs = new double[num];
+		this.growths = new double[num];
+		for (int i = 0; i < num; i++) {
+			this.inputs[i] = input.get(order[i]);
+			this.logInputs[i] = Math.log10(this.inputs[i]);
+			this.growths[i] = growth.get(order[i]);
+		}
+	}
+
+	/**
+	 * Get the growth at a given input activity.
+	 *
+	 * @param activity the input activity.
+	 * @return the growth.
+	 */
+	public double getGrowth(final double activity) {
+		int num = inputs.length;
+		if (activity < inputs[0]) {
+			return growths[0];
+		}
+		if (activity > inputs[num - 1]) {
+			return growths[num - 1];
+		}
+		// largest i with inputs[i] <= activity
+		int lo = 0;
+		int hi = num - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (inputs[mid] <= activity) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		if (inputs[lo] == activity) {
+			return growths[lo];
+		}
+		double weight = (Math.log10(activity) - logInputs[lo]) / (logInputs[lo + 1] - logInputs[lo]);
+		return (growths[lo] * (1 - weight)) + (growths[lo + 1] * weight);
+	}
+
+	/**
+	 * Get the growth at a row of input activities.
+	 *
+	 * @param activity the input activities.
+	 * @param activityOffset the offset of the first input activity.
+	 * @param growth the array in which to store the growth values.
+	 * @param growthOffset the offset at which to store the first growth value.
+	 * @param length the number of input activities.
+	 */
+	public void getGrowth(final double[] activity, final int activityOffset, final double[] growth, final int growthOffset, final int length) {
+		for (int i = 0; i < length; i++) {
+			growth[growthOffset + i] = this.getGrowth(activity[activityOffset + i]);
+		}
 	}
 
+	private double[] inputs;
+	private double[] logInputs;
+	private double[] growths;
+
 }
@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.common.runtime.environment.RuntimeEnv;
+import org.cellocad.common.target.data.TargetData;
+import org.cellocad.technologymapping.common.TargetDataReader;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.RoadblockChecker;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class AssignerTest{
+
+	private static final double TOXICITY_THRESHOLD = 0.75;
+
+	private String tempDir;
+	private RuntimeEnv runEnv;
+	private TargetData td;
+	private CObjectCollection<Gate> gates;
+
+	@Before
+	public void setUp() {
+		this.tempDir = TestUtils.createTempDirectory().toString();
+		this.runEnv = TestUtils.getRuntimeEnv(this.tempDir);
+		this.td = TestUtils.getTargetData(this.runEnv);
+		this.gates = TargetDataReader.getGates(this.td);
+	}
+
+	@After
+	public void tearDown() {
+		Utils.deleteDirectory(new File(this.tempDir));
+	}
+
+	/**
+	 * The greedy and randomized greedy assignments use at most one gate
+	 * of each group, cause no roadblock and keep the growth above the
+	 * threshold, whatever the seed and the width of the candidate list.
+	 */
+	@Test
+	public void testGreedyAssignment() {
+		double[] alphas = {0.0,0.5,1.0};
+		for (double alpha : alphas) {
+			for (long seed = 0; seed < 10; seed++) {
+				TMNetlist netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(this.runEnv),this.td);
+				Assigner assigner = new Assigner(netlist);
+				assigner.setGateLibrary(this.gates);
+				assigner.setRandom(new Random(seed));
+				assigner.doGreedyAssignment(this.getRoadblockChecker(),TOXICITY_THRESHOLD,alpha);
+
+				Set<String> groups = new HashSet<>();
+				for (TMNode node : netlist.getLogicNodes()) {
+					assertNotNull(node.getName() + " has no gate",node.getGate());
+					assertTrue("two gates of group " + node.getGate().getGroup(),groups.add(node.getGate().getGroup()));
+				}
+
+				ObjectiveEvaluator evaluator = new ObjectiveEvaluator(netlist);
+				evaluator.setCheckToxicity(true);
+				evaluator.setToxicityThreshold(TOXICITY_THRESHOLD);
+				evaluator.setCheckRoadblocks(true);
+				evaluator.getRoadblockChecker().setInputRoadblocks(TargetDataReader.getInputRoadblocks(this.td));
+				evaluator.getRoadblockChecker().setLogicRoadblocks(TargetDataReader.getLogicRoadblocks(this.td));
+				evaluator.simulate();
+				assertEquals(0,evaluator.evaluate().getRoadblocks());
+				assertTrue(evaluator.isValid(evaluator.evaluate()));
+			}
+		}
+	}
+
+	/**
+	 * The pure greedy assignment does not depend on the seed when the
+	 * best gate of every node is unique.
+	 */
+	@Test
+	public void testGreedyIsDeterministic() {
+		String expected = null;
+		for (long seed = 0; seed < 5; seed++) {
+			TMNetlist netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(this.runEnv),this.td);
+			Assigner assigner = new Assigner(netlist);
+			assigner.setGateLibrary(this.gates);
+			assigner.setRandom(new Random(seed));
+			assigner.doGreedyAssignment(this.getRoadblockChecker(),null,0.0);
+			StringBuilder actual = new StringBuilder();
+			for (TMNode node : netlist.getLogicNodes()) {
+				actual.append(node.getGate().getName()).append(' ');
+			}
+			if (expected == null) {
+				expected = actual.toString();
+			}
+			assertEquals(expected,actual.toString());
+		}
+	}
+
+	/**
+	 * @return a RoadblockChecker with the roadblocks of the target data
+	 */
+	private RoadblockChecker getRoadblockChecker() {
+		RoadblockChecker rtn = new RoadblockChecker();
+		rtn.setGateLibrary(this.gates);
+		rtn.setInputRoadblocks(TargetDataReader.getInputRoadblocks(this.td));
+		rtn.setLogicRoadblocks(TargetDataReader.getLogicRoadblocks(this.td));
+		return rtn;
+	}
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.common.runtime.environment.RuntimeEnv;
+import org.cellocad.common.target.data.TargetData;
+import org.cellocad.technologymapping.common.TargetDataReader;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.BatchEvaluator;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class BatchEvaluatorTest{
+
+	private static final int NUM_CANDIDATES = 100;
+
+	private String tempDir;
+	private TargetData td;
+	private TMNetlist netlist;
+	private CObjectCollection<Gate> gates;
+
+	@Before
+	public void setUp() {
+		this.tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(this.tempDir);
+		this.td = TestUtils.getTargetData(runEnv);
+		this.netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(runEnv),td);
+		this.gates = TargetDataReader.getGates(td);
+	}
+
+	@After
+	public void tearDown() {
+		Utils.deleteDirectory(new File(this.tempDir));
+	}
+
+	/**
+	 * A batch of candidates has the objectives that an ObjectiveEvaluator
+	 * with the same settings gives each of them when it simulates the
+	 * whole netlist.
+	 */
+	@Test
+	public void testSameAsObjectiveEvaluator() {
+		BatchEvaluator batch = new BatchEvaluator(this.netlist,this.gates);
+		batch.setCheckToxicity(true);
+		batch.setCheckRoadblocks(true);
+		batch.getRoadblockChecker().setInputRoadblocks(TargetDataReader.getInputRoadblocks(this.td));
+		batch.getRoadblockChecker().setLogicRoadblocks(TargetDataReader.getLogicRoadblocks(this.td));
+
+		TMNetlist copy = new TMNetlist(this.netlist);
+		Assigner assigner = TestUtils.getAssigner(copy,this.gates,3);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(copy);
+		evaluator.setCheckToxicity(true);
+		evaluator.setCheckRoadblocks(true);
+		evaluator.getRoadblockChecker().setInputRoadblocks(TargetDataReader.getInputRoadblocks(this.td));
+		evaluator.getRoadblockChecker().setLogicRoadblocks(TargetDataReader.getLogicRoadblocks(this.td));
+
+		int[] logicIdx = copy.getLogicIdx();
+		int[][] candidates = new int[NUM_CANDIDATES][logicIdx.length];
+		Objective[] expected = new Objective[NUM_CANDIDATES];
+		for (int c = 0; c < NUM_CANDIDATES; c++) {
+			assigner.assignRandomGate();
+			for (int p = 0; p < logicIdx.length; p++) {
+				candidates[c][p] = this.gates.indexOf(copy.getVertexAtIdx(logicIdx[p]).getGate());
+			}
+			evaluator.simulate();
+			expected[c] = evaluator.evaluate();
+		}
+
+		Objective[] actual = batch.evaluate(candidates,NUM_CANDIDATES);
+		for (int c = 0; c < NUM_CANDIDATES; c++) {
+			assertEquals(expected[c].getScore(),actual[c].getScore(),0.0);
+			assertEquals(expected[c].getGrowth(),actual[c].getGrowth(),0.0);
+			assertEquals(expected[c].getRoadblocks(),actual[c].getRoadblocks());
+		}
+	}
+
+}
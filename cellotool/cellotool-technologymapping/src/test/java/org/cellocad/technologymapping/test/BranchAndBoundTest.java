@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.common.runtime.environment.RuntimeEnv;
+import org.cellocad.common.target.data.TargetData;
+import org.cellocad.technologymapping.algorithm.BranchAndBound.BranchAndBound;
+import org.cellocad.technologymapping.common.TargetDataReader;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class BranchAndBoundTest{
+
+	/**
+	 * The score of the assignment found by branch and bound is the best
+	 * score of any valid assignment, found by enumerating them all.
+	 */
+	@Test
+	public void testOptimal() {
+		String parameters = "[{\"name\": \"threads\", \"type\": \"int\", \"value\": 4}]";
+		TMNetlist result = TestUtils.execute(new BranchAndBound(),parameters);
+
+		String tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(tempDir);
+		TargetData td = TestUtils.getTargetData(runEnv);
+		TMNetlist netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(runEnv),td);
+		CObjectCollection<Gate> gates = TargetDataReader.getGates(td);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(netlist);
+		evaluator.setCheckToxicity(true);
+		evaluator.setToxicityThreshold(0.75);
+		evaluator.setCheckRoadblocks(true);
+		evaluator.getRoadblockChecker().setInputRoadblocks(TargetDataReader.getInputRoadblocks(td));
+		evaluator.getRoadblockChecker().setLogicRoadblocks(TargetDataReader.getLogicRoadblocks(td));
+		double best = this.enumerate(netlist,gates,evaluator,0,new HashSet<>());
+		Utils.deleteDirectory(new File(tempDir));
+
+		ObjectiveEvaluator check = new ObjectiveEvaluator(new TMNetlist(result));
+		check.simulate();
+		assertEquals(best,check.evaluate().getScore(),0.0);
+	}
+
+	/**
+	 * Enumerate the assignments of the logic nodes from the given one on,
+	 * with at most one gate of each group.
+	 *
+	 * @return the best score of a valid assignment.
+	 */
+	private double enumerate(final TMNetlist netlist, final CObjectCollection<Gate> gates,
+			final ObjectiveEvaluator evaluator, final int n, final Set<String> groups) {
+		int[] logic = netlist.getLogicIdx();
+		if (n == logic.length) {
+			evaluator.simulate();
+			Objective objective = evaluator.evaluate();
+			return evaluator.isValid(objective) ? objective.getScore() : Double.NEGATIVE_INFINITY;
+		}
+		double rtn = Double.NEGATIVE_INFINITY;
+		for (int g = 0; g < gates.size(); g++) {
+			Gate gate = gates.get(g);
+			String group = gate.getGroup() == null ? "\0" + g : gate.getGroup();
+			if (!groups.add(group)) {
+				continue;
+			}
+			netlist.getVertexAtIdx(logic[n]).setGate(gate);
+			rtn = Math.max(rtn,this.enumerate(netlist,gates,evaluator,n + 1,groups));
+			groups.remove(group);
+		}
+		return rtn;
+	}
+
+}
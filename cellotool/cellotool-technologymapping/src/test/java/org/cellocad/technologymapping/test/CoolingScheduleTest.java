@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.CoolingSchedule;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class CoolingScheduleTest{
+
+	/**
+	 * The temperature falls log-linearly from the maximum to the minimum,
+	 * and is 0 past the end of the schedule.
+	 */
+	@Test
+	public void testTemperature() {
+		CoolingSchedule schedule = new CoolingSchedule(100.0,0.01,4);
+		assertEquals(100.0,schedule.getTemperature(0),1e-9);
+		assertEquals(1.0,schedule.getTemperature(2),1e-9);
+		assertEquals(0.1,schedule.getTemperature(3),1e-9);
+		assertEquals(0.0,schedule.getTemperature(4),0.0);
+	}
+
+	/**
+	 * A schedule is stagnant once it has gone patience steps without
+	 * improving and almost every move is rejected.
+	 */
+	@Test
+	public void testStagnant() {
+		CoolingSchedule schedule = new CoolingSchedule(100.0,0.01,1000);
+		for (int i = 0; i < 50; i++) {
+			schedule.update(false,false);
+		}
+		// the acceptance rate has not decayed yet
+		assertFalse(schedule.isStagnant(50));
+		for (int i = 0; i < 100; i++) {
+			schedule.update(false,false);
+		}
+		assertTrue(schedule.isStagnant(150));
+		assertFalse(schedule.isStagnant(151));
+		schedule.update(true,true);
+		assertFalse(schedule.isStagnant(1));
+	}
+
+	/**
+	 * A reheat moves the schedule back to half of its progress and resets
+	 * the stagnation tracking.
+	 */
+	@Test
+	public void testReheat() {
+		CoolingSchedule schedule = new CoolingSchedule(100.0,0.01,1000);
+		for (int i = 0; i < 200; i++) {
+			schedule.update(false,false);
+		}
+		assertTrue(schedule.isStagnant(200));
+		double before = schedule.getTemperature(800);
+		schedule.reheat(800);
+		assertEquals(1,schedule.getNumReheats());
+		assertEquals(new CoolingSchedule(100.0,0.01,1000).getTemperature(400),schedule.getTemperature(800),1e-9);
+		assertTrue(schedule.getTemperature(800) > before);
+		assertFalse(schedule.isStagnant(1));
+	}
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.common.runtime.environment.RuntimeEnv;
+import org.cellocad.common.target.data.TargetData;
+import org.cellocad.technologymapping.common.TargetDataReader;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.Move;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.common.simulation.CytometrySimulator;
+import org.cellocad.technologymapping.data.Cytometry;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.data.Histogram;
+import org.cellocad.technologymapping.data.LogBinGrid;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class CytometryTest{
+
+	private static final double[] BINS = {0.1, 1.0, 10.0, 100.0};
+	private static final double[] LOW = {8.0, 2.0, 0.0, 0.0};
+	private static final double[] HIGH = {0.0, 0.0, 4.0, 6.0};
+
+	/**
+	 * @param counts the counts of the bins.
+	 * @return a Histogram on BINS
+	 */
+	private static Histogram getHistogram(final double[] counts) {
+		Double[] bins = new Double[BINS.length];
+		Double[] c = new Double[counts.length];
+		for (int i = 0; i < BINS.length; i++) {
+			bins[i] = BINS[i];
+			c[i] = counts[i];
+		}
+		return new Histogram(Arrays.asList(bins),Arrays.asList(c));
+	}
+
+	/**
+	 * @return a Cytometry measured at the inputs 1 and 100
+	 */
+	private static Cytometry getCytometry() {
+		Map<Double,Histogram> data = new HashMap<>();
+		data.put(100.0,getHistogram(HIGH));
+		data.put(1.0,getHistogram(LOW));
+		return new Cytometry(data);
+	}
+
+	/**
+	 * @param expected the expected counts.
+	 * @param actual the histogram.
+	 */
+	private static void assertCounts(final double[] expected, final Histogram actual) {
+		assertEquals(expected.length,actual.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(BINS[i],actual.getBin(i),0.0);
+			assertEquals(expected[i],actual.getCount(i),1e-12);
+		}
+	}
+
+	/**
+	 * At a measured input the distribution is the measured one, between
+	 * two inputs it is blended linearly in log10(input), and outside the
+	 * measured range it is that of the nearest endpoint.
+	 */
+	@Test
+	public void testInterpolate() {
+		Cytometry cytometry = getCytometry();
+		assertCounts(LOW,cytometry.interpolate(1.0));
+		assertCounts(HIGH,cytometry.interpolate(100.0));
+		assertCounts(LOW,cytometry.interpolate(0.01));
+		assertCounts(HIGH,cytometry.interpolate(1000.0));
+
+		// log10(10) is halfway between log10(1) and log10(100)
+		double[] half = new double[BINS.length];
+		for (int i = 0; i < BINS.length; i++) {
+			half[i] = 0.5 * LOW[i] + 0.5 * HIGH[i];
+		}
+		assertCounts(half,cytometry.interpolate(10.0));
+
+		// a quarter of the way in log space
+		double input = Math.pow(10,0.5);
+		double[] quarter = new double[BINS.length];
+		for (int i = 0; i < BINS.length; i++) {
+			quarter[i] = 0.75 * LOW[i] + 0.25 * HIGH[i];
+		}
+		assertCounts(quarter,cytometry.interpolate(input));
+	}
+
+	/**
+	 * Every row of the table is a normalized distribution, and the rows
+	 * at measured inputs are the measured distributions.
+	 */
+	@Test
+	public void testTable() {
+		LogBinGrid grid = new LogBinGrid(0.1,100.0,4);
+		double[] table = getCytometry().getTable(grid);
+		int nb = grid.getNumBins();
+		assertEquals(nb * nb,table.length);
+		for (int b = 0; b < nb; b++) {
+			double total = 0.0;
+			for (int o = 0; o < nb; o++) {
+				total += table[b * nb + o];
+			}
+			assertEquals(1.0,total,1e-12);
+		}
+		// the centers of the grid are the bins, so rows 1 and 3 are measured
+		for (int o = 0; o < nb; o++) {
+			assertEquals(LOW[o] / 10.0,table[1 * nb + o],1e-12);
+			assertEquals(HIGH[o] / 10.0,table[3 * nb + o],1e-12);
+			assertEquals((LOW[o] + HIGH[o]) / 20.0,table[2 * nb + o],1e-12);
+		}
+		// each call returns a table of its own
+		Cytometry cytometry = getCytometry();
+		assertNotSame(cytometry.getTable(grid),cytometry.getTable(grid));
+	}
+
+	/**
+	 * Without data there is no distribution and no table.
+	 */
+	@Test
+	public void testNoData() {
+		Cytometry cytometry = new Cytometry(new HashMap<Double,Histogram>());
+		assertNull(cytometry.interpolate(1.0));
+		assertNull(cytometry.getTable(new LogBinGrid(0.1,100.0,4)));
+	}
+
+	/**
+	 * The distribution of every node in every row of the test netlist is
+	 * normalized, and a partial simulation after a change of gate gives
+	 * the same distributions as a simulation from scratch.
+	 */
+	@Test
+	public void testCytometrySimulator() {
+		String tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(tempDir);
+		TargetData td = TestUtils.getTargetData(runEnv);
+		TMNetlist netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(runEnv),td);
+		CObjectCollection<Gate> gates = TargetDataReader.getGates(td);
+		Utils.deleteDirectory(new File(tempDir));
+
+		Assigner assigner = TestUtils.getAssigner(netlist,gates,4);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(netlist);
+		evaluator.simulate();
+		LogBinGrid grid = new LogBinGrid(1e-3,1e2,40);
+		CytometrySimulator simulator = new CytometrySimulator(netlist,grid);
+		simulator.run();
+
+		double[] distribution = simulator.getDistribution();
+		int nb = grid.getNumBins();
+		for (int idx = 0; idx < netlist.getNumVertex(); idx++) {
+			for (int i = 0; i < netlist.getNumRows(); i++) {
+				int offset = simulator.getOffset(idx,i);
+				double total = 0.0;
+				for (int b = 0; b < nb; b++) {
+					total += distribution[offset + b];
+				}
+				assertEquals(netlist.getVertexAtIdx(idx).getName(),1.0,total,1e-9);
+			}
+		}
+
+		for (int i = 0; i < 20; i++) {
+			Move move = assigner.assignRandomGate();
+			evaluator.simulate(move.getNodes());
+			simulator.run(move.getNodes());
+			CytometrySimulator reference = new CytometrySimulator(netlist,grid);
+			reference.run();
+			assertArrayEquals(reference.getDistribution(),simulator.getDistribution(),0.0);
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.cellocad.technologymapping.algorithm.Genetic.Genetic;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class GeneticTest{
+
+	// a small population without constraints, so that fitness is the score
+	private static final String PARAMETERS = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 17},"
+			+ "{\"name\": \"population\", \"type\": \"int\", \"value\": 6},"
+			+ "{\"name\": \"generations\", \"type\": \"int\", \"value\": %d},"
+			+ "{\"name\": \"elitism\", \"type\": \"int\", \"value\": %d},"
+			+ "{\"name\": \"mutation_rate\", \"type\": \"double\", \"value\": %s},"
+			+ "{\"name\": \"check_roadblock\", \"type\": \"boolean\", \"value\": false},"
+			+ "{\"name\": \"check_toxicity\", \"type\": \"boolean\", \"value\": false}]";
+
+	/**
+	 * The result of a seed does not depend on the number of threads that
+	 * evaluate the population.
+	 */
+	@Test
+	public void testSeedIsIndependentOfThreads() {
+		String parameters = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 13},"
+				+ "{\"name\": \"population\", \"type\": \"int\", \"value\": 40},"
+				+ "{\"name\": \"generations\", \"type\": \"int\", \"value\": 20},"
+				+ "{\"name\": \"cache_size\", \"type\": \"int\", \"value\": 16},"
+				+ "{\"name\": \"threads\", \"type\": \"int\", \"value\": %d}]";
+		TMNetlist serial = TestUtils.execute(new Genetic(),String.format(parameters,1));
+		TMNetlist parallel = TestUtils.execute(new Genetic(),String.format(parameters,4));
+		TestUtils.assertSameAssignment(serial,parallel);
+	}
+
+	/**
+	 * @param algo the algorithm.
+	 * @param genes the genes.
+	 */
+	private static void assertGroupsUnique(final Genetic algo, final int[] genes) {
+		Set<String> groups = new HashSet<>();
+		for (TMNode node : algo.createTMNetlist(genes).getLogicNodes()) {
+			String group = node.getGate().getGroup();
+			assertTrue("group " + group + " is used twice in " + Arrays.toString(genes),groups.add(group));
+		}
+	}
+
+	/**
+	 * Crossover and mutation never put two gates of the same group in a
+	 * vector of genes.
+	 */
+	@Test
+	public void testGroupsStayUnique() {
+		Genetic algo = new Genetic();
+		TestUtils.execute(algo,String.format(PARAMETERS,2,1,0.5));
+		Random random = new Random(1);
+		for (int i = 0; i < 1000; i++) {
+			int[] a = algo.createRandomIndividual(random).getGenes();
+			int[] b = algo.createRandomIndividual(random).getGenes();
+			assertGroupsUnique(algo,a);
+			assertGroupsUnique(algo,b);
+			int[] child = algo.crossover(a,b,random);
+			assertGroupsUnique(algo,child);
+			algo.mutate(child,random);
+			assertGroupsUnique(algo,child);
+		}
+	}
+
+	/**
+	 * With elitism, the fittest individual survives into the next
+	 * generation, so the score of the result never drops with the number
+	 * of generations.
+	 */
+	@Test
+	public void testElitesSurvive() {
+		double previous = Double.NEGATIVE_INFINITY;
+		for (int generations = 0; generations <= 8; generations++) {
+			Genetic algo = new Genetic();
+			TMNetlist result = TestUtils.execute(algo,String.format(PARAMETERS,generations,1,0.5));
+			ObjectiveEvaluator evaluator = new ObjectiveEvaluator(new TMNetlist(result));
+			evaluator.simulate();
+			double score = evaluator.evaluate().getScore();
+			assertTrue("generation " + generations + ": " + score + " < " + previous,score >= previous);
+			previous = score;
+		}
+	}
+
+}
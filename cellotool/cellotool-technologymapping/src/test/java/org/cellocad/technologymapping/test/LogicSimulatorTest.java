@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.cellocad.common.netlist.Netlist;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.simulation.LogicSimulator;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class LogicSimulatorTest{
+
+	private static final String[][] GATES = new String[][] {
+		{"g0","AND","in0","in1"},
+		{"g1","NAND","in2","in3"},
+		{"g2","OR","g0","g1"},
+		{"g3","NOR","in4","in5"},
+		{"g4","XOR","g2","g3"},
+		{"g5","XNOR","g4","in6"},
+		{"g6","NOT","g5"},
+	};
+
+	/**
+	 * Build a netlist that uses every gate type, with the given number of
+	 * inputs. Inputs past the last one are replaced by inputs modulo num.
+	 *
+	 * @param num the number of inputs.
+	 * @return the netlist.
+	 */
+	private static TMNetlist getNetlist(final int num) {
+		StringBuilder nodes = new StringBuilder();
+		StringBuilder edges = new StringBuilder();
+		for (int i = 0; i < num; i++) {
+			nodes.append("{\"name\": \"in" + i + "\", \"nodeType\": \"TopInput\", \"vertexType\": \"SOURCE\", \"partitionID\": -1},");
+		}
+		int e = 0;
+		for (String[] gate : GATES) {
+			nodes.append("{\"name\": \"" + gate[0] + "\", \"nodeType\": \"" + gate[1] + "\", \"vertexType\": \"NONE\", \"partitionID\": -1},");
+			for (int j = 2; j < gate.length; j++) {
+				String src = gate[j];
+				if (src.startsWith("in")) {
+					src = "in" + (Integer.valueOf(src.substring(2)) % num);
+				}
+				edges.append("{\"name\": \"e" + (e++) + "\", \"src\": \"" + src + "\", \"dst\": \"" + gate[0] + "\"},");
+			}
+		}
+		nodes.append("{\"name\": \"out0\", \"nodeType\": \"TopOutput\", \"vertexType\": \"SINK\", \"partitionID\": -1},");
+		nodes.append("{\"name\": \"out1\", \"nodeType\": \"TopOutput\", \"vertexType\": \"SINK\", \"partitionID\": -1}");
+		edges.append("{\"name\": \"e" + (e++) + "\", \"src\": \"g6\", \"dst\": \"out0\"},");
+		edges.append("{\"name\": \"e" + (e++) + "\", \"src\": \"g1\", \"dst\": \"out1\"},");
+		edges.append("{\"name\": \"e" + (e++) + "\", \"src\": \"g3\", \"dst\": \"out1\"}");
+		String json = "{\"name\": \"LS\", \"nodes\": [" + nodes + "], \"edges\": [" + edges + "]}";
+		JsonObject jObj = new JsonParser().parse(json).getAsJsonObject();
+		Netlist netlist = new Netlist(jObj);
+		for (int i = 0; i < netlist.getNumVertex(); i++) {
+			netlist.getVertexAtIdx(i).setIdx(i);
+		}
+		return new TMNetlist(netlist);
+	}
+
+	/**
+	 * Evaluate a node one row at a time, as the boolean logic was
+	 * evaluated before it was packed: input i is bit i of the row, and
+	 * outputs are the OR of their inputs.
+	 *
+	 * @param netlist the netlist.
+	 * @param node the node.
+	 * @param row the row of the full truth table.
+	 * @return the value of the node in the row.
+	 */
+	private static boolean evaluate(final TMNetlist netlist, final TMNode node, final int row) {
+		if (node.getNodeType().equals("TopInput")) {
+			return ((row >>> netlist.getInputNodes().indexOf(node)) & 1) != 0;
+		}
+		boolean[] in = new boolean[node.getNumInEdge()];
+		for (int i = 0; i < in.length; i++) {
+			in[i] = evaluate(netlist,node.getInEdgeAtIdx(i).getSrc(),row);
+		}
+		switch (node.getNodeType()) {
+		case "NOT":
+			return !in[0];
+		case "AND":
+			return in[0] && in[1];
+		case "NAND":
+			return !(in[0] && in[1]);
+		case "OR":
+			return in[0] || in[1];
+		case "NOR":
+			return !(in[0] || in[1]);
+		case "XOR":
+			return in[0] ^ in[1];
+		case "XNOR":
+			return !(in[0] ^ in[1]);
+		default:
+			boolean rtn = false;
+			for (boolean b : in) {
+				rtn |= b;
+			}
+			return rtn;
+		}
+	}
+
+	/**
+	 * Check the packed and unpacked logic of every node against the
+	 * row by row evaluation.
+	 *
+	 * @param netlist the simulated netlist.
+	 * @param rows the rows of the full truth table that were simulated.
+	 */
+	private static void assertLogic(final TMNetlist netlist, final int[] rows) {
+		for (int i = 0; i < netlist.getNumVertex(); i++) {
+			TMNode node = netlist.getVertexAtIdx(i);
+			List<Boolean> logic = node.getLogic();
+			assertEquals(rows.length,logic.size());
+			for (int r = 0; r < rows.length; r++) {
+				boolean expected = evaluate(netlist,node,rows[r]);
+				String msg = node.getName() + " row " + rows[r];
+				assertEquals(msg,expected,LogicSimulator.getLogicBit(node.getLogicMask(),r));
+				assertEquals(msg,expected,logic.get(r));
+			}
+			// rows past the end of the truth table stay clear
+			long[] mask = node.getLogicMask();
+			assertEquals(LogicSimulator.getNumWords(rows.length),mask.length);
+			for (int r = rows.length; r < mask.length * 64; r++) {
+				assertEquals(false,LogicSimulator.getLogicBit(mask,r));
+			}
+		}
+	}
+
+	private static int[] getAllRows(final int num) {
+		int[] rtn = new int[1 << num];
+		for (int i = 0; i < rtn.length; i++) {
+			rtn[i] = i;
+		}
+		return rtn;
+	}
+
+	/**
+	 * The packed logic of a truth table within one word matches the row
+	 * by row evaluation.
+	 */
+	@Test
+	public void testSingleWord() {
+		TMNetlist netlist = getNetlist(3);
+		new LogicSimulator(netlist).run();
+		assertLogic(netlist,getAllRows(3));
+	}
+
+	/**
+	 * The packed logic of a truth table over several words matches the
+	 * row by row evaluation.
+	 */
+	@Test
+	public void testMultipleWords() {
+		TMNetlist netlist = getNetlist(8);
+		new LogicSimulator(netlist).run();
+		assertLogic(netlist,getAllRows(8));
+	}
+
+	/**
+	 * The packed logic of a sample of rows matches the row by row
+	 * evaluation of the sampled rows.
+	 */
+	@Test
+	public void testSampledRows() {
+		int[] rows = new int[] {0, 5, 77, 255, 64, 3, 128, 200, 63};
+		TMNetlist netlist = getNetlist(8);
+		LogicSimulator ls = new LogicSimulator(netlist);
+		ls.setRows(rows);
+		ls.run();
+		assertLogic(netlist,rows);
+	}
+
+}
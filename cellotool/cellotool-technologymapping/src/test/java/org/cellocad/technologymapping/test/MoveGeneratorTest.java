@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.common.runtime.environment.RuntimeEnv;
+import org.cellocad.common.target.data.TargetData;
+import org.cellocad.technologymapping.common.TargetDataReader;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.GateUsage;
+import org.cellocad.technologymapping.common.assignment.Move;
+import org.cellocad.technologymapping.common.assignment.MoveGenerator;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class MoveGeneratorTest{
+
+	private static final int NUM_SAMPLES = 20000;
+
+	/**
+	 * Whether a gate can replace the gate of a node: it is in the same
+	 * group, it is assigned elsewhere, or its group is unused.
+	 */
+	private static boolean isAssignable(final TMNetlist netlist, final Gate a, final Gate b) {
+		return !a.getName().equals(b.getName())
+				&& (a.getGroup().equals(b.getGroup())
+						|| netlist.hasGate(b)
+						|| !netlist.hasGatesOfGroup(b.getGroup()));
+	}
+
+	/**
+	 * Draw partners for every logic node and check that they are legal
+	 * and drawn in proportion to their weights.
+	 */
+	private static void assertProposals(final TMNetlist netlist, final CObjectCollection<Gate> gates, final double[] weights) {
+		MoveGenerator generator = new MoveGenerator(gates,weights);
+		Random random = new Random(3);
+		for (TMNode node : netlist.getLogicNodes()) {
+			Gate a = node.getGate();
+			Map<String,Integer> counts = new HashMap<>();
+			for (int k = 0; k < NUM_SAMPLES; k++) {
+				Gate b = generator.getAssignableGate(netlist,a,random);
+				assertTrue(b.getName() + " cannot replace " + a.getName(),isAssignable(netlist,a,b));
+				counts.merge(b.getName(),1,Integer::sum);
+			}
+			double total = 0.0;
+			for (int i = 0; i < gates.size(); i++) {
+				if (isAssignable(netlist,a,gates.get(i))) {
+					total += (weights == null) ? 1.0 : weights[i];
+				}
+			}
+			for (int i = 0; i < gates.size(); i++) {
+				Gate b = gates.get(i);
+				double expected = 0.0;
+				if (isAssignable(netlist,a,b)) {
+					expected = NUM_SAMPLES * ((weights == null) ? 1.0 : weights[i]) / total;
+				}
+				int count = counts.getOrDefault(b.getName(),0);
+				assertEquals(b.getName() + " in place of " + a.getName(),expected,count,5 * Math.sqrt(expected) + 1e-9);
+			}
+		}
+	}
+
+	/**
+	 * Partners are drawn uniformly from the legal gates.
+	 */
+	@Test
+	public void testUniform() {
+		String tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(tempDir);
+		TargetData td = TestUtils.getTargetData(runEnv);
+		CObjectCollection<Gate> gates = TargetDataReader.getGates(td);
+		for (long seed = 0; seed < 5; seed++) {
+			TMNetlist netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(runEnv),td);
+			Assigner assigner = TestUtils.getAssigner(netlist,gates,seed);
+			assertProposals(assigner.getTMNetlist(),gates,null);
+		}
+		Utils.deleteDirectory(new File(tempDir));
+	}
+
+	/**
+	 * Partners are drawn from the legal gates in proportion to their
+	 * weights, and gates without weight are never drawn.
+	 */
+	@Test
+	public void testWeighted() {
+		String tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(tempDir);
+		TargetData td = TestUtils.getTargetData(runEnv);
+		CObjectCollection<Gate> gates = TargetDataReader.getGates(td);
+		double[] weights = new double[gates.size()];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = i % 4;
+		}
+		for (long seed = 0; seed < 5; seed++) {
+			TMNetlist netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(runEnv),td);
+			Assigner assigner = TestUtils.getAssigner(netlist,gates,seed);
+			assertProposals(assigner.getTMNetlist(),gates,weights);
+		}
+		Utils.deleteDirectory(new File(tempDir));
+	}
+
+	/**
+	 * The usage of the gate library kept by the Assigner over moves and
+	 * undone moves is the usage computed from scratch.
+	 */
+	@Test
+	public void testGateUsage() {
+		String tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(tempDir);
+		TargetData td = TestUtils.getTargetData(runEnv);
+		CObjectCollection<Gate> gates = TargetDataReader.getGates(td);
+		TMNetlist netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(runEnv),td);
+		Assigner assigner = TestUtils.getAssigner(netlist,gates,7);
+		for (int k = 0; k < 1000; k++) {
+			Move move = assigner.assignRandomGate();
+			if (k % 3 == 0) {
+				assigner.undo(move);
+			}
+			GateUsage expected = new GateUsage(assigner.getMoveGenerator(),netlist);
+			GateUsage actual = assigner.getGateUsage();
+			for (int i = 0; i < gates.size(); i++) {
+				assertEquals(expected.getAssigned().get(i),actual.getAssigned().get(i),0.0);
+			}
+			assertEquals(expected.getAssigned().getTotal(),actual.getAssigned().getTotal(),0.0);
+			assertEquals(expected.getUnused().getTotal(),actual.getUnused().getTotal(),0.0);
+		}
+		Utils.deleteDirectory(new File(tempDir));
+	}
+
+}
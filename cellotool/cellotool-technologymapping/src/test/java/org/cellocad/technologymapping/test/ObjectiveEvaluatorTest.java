@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.common.runtime.environment.RuntimeEnv;
+import org.cellocad.common.target.data.TargetData;
+import org.cellocad.technologymapping.common.TargetDataReader;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.Move;
+import org.cellocad.technologymapping.common.netlist.TMJournal;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class ObjectiveEvaluatorTest{
+
+	private static final int NUM_MOVES = 200;
+
+	private String tempDir;
+	private TMNetlist netlist;
+	private CObjectCollection<Gate> gates;
+
+	@Before
+	public void setUp() {
+		this.tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(this.tempDir);
+		TargetData td = TestUtils.getTargetData(runEnv);
+		this.netlist = TestUtils.getTMNetlist(TestUtils.getNetlist(runEnv),td);
+		this.gates = TargetDataReader.getGates(td);
+	}
+
+	@After
+	public void tearDown() {
+		Utils.deleteDirectory(new File(this.tempDir));
+	}
+
+	/**
+	 * Check the state of a netlist against a simulation from scratch of a
+	 * copy. The objective of an assignment does not depend on the moves
+	 * that led to it, so the state must be identical.
+	 *
+	 * @param netlist the netlist.
+	 * @param objective the objective of the netlist.
+	 */
+	private static void assertSimulated(final TMNetlist netlist, final Objective objective) {
+		TMNetlist copy = new TMNetlist(netlist);
+		copy.setJournal(null);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(copy);
+		evaluator.simulate();
+		assertArrayEquals(copy.getActivityMatrix(),netlist.getActivityMatrix(),0.0);
+		assertArrayEquals(copy.getToxicityMatrix(),netlist.getToxicityMatrix(),0.0);
+		assertEquals(copy.getMinGrowth(),netlist.getMinGrowth(),0.0);
+		assertEquals(evaluator.evaluate().getScore(),objective.getScore(),0.0);
+	}
+
+	/**
+	 * A rejected move that is undone and rolled back restores the state
+	 * of the netlist before the move.
+	 */
+	@Test
+	public void testRollback() {
+		Assigner assigner = TestUtils.getAssigner(this.netlist,this.gates,1);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(this.netlist);
+		evaluator.simulate();
+		this.netlist.setJournal(new TMJournal(this.netlist));
+		Objective current = evaluator.evaluate();
+
+		for (int i = 0; i < NUM_MOVES; i++) {
+			Move move = assigner.assignRandomGate();
+			evaluator.simulate(move.getNodes());
+			Objective candidate = evaluator.evaluate();
+			// accept every other move, so that rollbacks follow commits
+			if (i % 2 == 0) {
+				evaluator.commit();
+				current = candidate;
+			} else {
+				assigner.undo(move);
+				evaluator.rollback(move.getNodes());
+			}
+			assertSimulated(this.netlist,current);
+		}
+	}
+
+	/**
+	 * Simulating only the fan-out cone of the nodes changed by a move
+	 * gives the same state as simulating the whole netlist.
+	 */
+	@Test
+	public void testIncrementalSimulation() {
+		Assigner assigner = TestUtils.getAssigner(this.netlist,this.gates,2);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(this.netlist);
+		evaluator.simulate();
+		this.netlist.setJournal(new TMJournal(this.netlist));
+
+		for (int i = 0; i < NUM_MOVES; i++) {
+			Move move = assigner.assignRandomGate();
+			evaluator.simulate(move.getNodes());
+			assertSimulated(this.netlist,evaluator.evaluate());
+			evaluator.commit();
+		}
+	}
+
+	/**
+	 * Simulating the rows in parallel, split down to single rows, gives
+	 * the same state and objectives as simulating them serially, for
+	 * full and incremental simulation and for rollbacks.
+	 */
+	@Test
+	public void testRowParallel() {
+		TMNetlist parallel = new TMNetlist(this.netlist);
+		Assigner serialAssigner = TestUtils.getAssigner(this.netlist,this.gates,5);
+		Assigner parallelAssigner = TestUtils.getAssigner(parallel,this.gates,5);
+		ObjectiveEvaluator serialEvaluator = new ObjectiveEvaluator(this.netlist);
+		serialEvaluator.setCheckToxicity(true);
+		ObjectiveEvaluator parallelEvaluator = new ObjectiveEvaluator(parallel);
+		parallelEvaluator.setCheckToxicity(true);
+		parallelEvaluator.setRowParallelThreshold(1);
+		parallelEvaluator.setRowsPerTask(1);
+		serialEvaluator.simulate();
+		parallelEvaluator.simulate();
+		assertSameState(this.netlist,serialEvaluator.evaluate(),parallel,parallelEvaluator.evaluate());
+		this.netlist.setJournal(new TMJournal(this.netlist));
+		parallel.setJournal(new TMJournal(parallel));
+
+		for (int i = 0; i < NUM_MOVES; i++) {
+			Move serialMove = serialAssigner.assignRandomGate();
+			Move parallelMove = parallelAssigner.assignRandomGate();
+			if (i % 10 == 9) {
+				serialEvaluator.simulate();
+				parallelEvaluator.simulate();
+			} else {
+				serialEvaluator.simulate(serialMove.getNodes());
+				parallelEvaluator.simulate(parallelMove.getNodes());
+			}
+			assertSameState(this.netlist,serialEvaluator.evaluate(),parallel,parallelEvaluator.evaluate());
+			if (i % 2 == 0) {
+				serialEvaluator.commit();
+				parallelEvaluator.commit();
+			} else {
+				serialAssigner.undo(serialMove);
+				serialEvaluator.rollback(serialMove.getNodes());
+				parallelAssigner.undo(parallelMove);
+				parallelEvaluator.rollback(parallelMove.getNodes());
+				assertSameState(this.netlist,serialEvaluator.evaluate(),parallel,parallelEvaluator.evaluate());
+			}
+		}
+	}
+
+	/**
+	 * Check that two netlists have the same simulated state and objective.
+	 *
+	 * @param expected the expected netlist.
+	 * @param expectedObjective the objective of the expected netlist.
+	 * @param actual the actual netlist.
+	 * @param actualObjective the objective of the actual netlist.
+	 */
+	private static void assertSameState(final TMNetlist expected, final Objective expectedObjective,
+			final TMNetlist actual, final Objective actualObjective) {
+		assertArrayEquals(expected.getActivityMatrix(),actual.getActivityMatrix(),0.0);
+		assertArrayEquals(expected.getToxicityMatrix(),actual.getToxicityMatrix(),0.0);
+		assertEquals(expected.getMinGrowth(),actual.getMinGrowth(),0.0);
+		assertEquals(expectedObjective.getScore(),actualObjective.getScore(),0.0);
+		assertEquals(expectedObjective.getGrowth(),actualObjective.getGrowth(),0.0);
+	}
+
+	/**
+	 * The circuit toxicity kept as running sums of fixed point logs over
+	 * incremental moves matches the product of the toxicity of the logic
+	 * nodes.
+	 */
+	@Test
+	public void testLogGrowth() {
+		Assigner assigner = TestUtils.getAssigner(this.netlist,this.gates,4);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(this.netlist);
+		evaluator.simulate();
+		this.netlist.setJournal(new TMJournal(this.netlist));
+
+		int rows = this.netlist.getNumRows();
+		double[] toxicity = this.netlist.getToxicityMatrix();
+		for (int i = 0; i < NUM_MOVES; i++) {
+			Move move = assigner.assignRandomGate();
+			evaluator.simulate(move.getNodes());
+			evaluator.commit();
+			for (int j = 0; j < rows; j++) {
+				double product = 1.0;
+				for (int idx : this.netlist.getLogicIdx()) {
+					product *= toxicity[idx * rows + j];
+				}
+				product = Math.max(product,ToxicitySimulator.MIN_TOXICITY);
+				for (int idx : this.netlist.getOutputIdx()) {
+					assertEquals(product,toxicity[idx * rows + j],product * 1e-12);
+				}
+			}
+		}
+	}
+
+}
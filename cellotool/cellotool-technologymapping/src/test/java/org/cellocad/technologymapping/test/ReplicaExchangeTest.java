@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.cellocad.technologymapping.algorithm.ReplicaExchange.Replica;
+import org.cellocad.technologymapping.algorithm.ReplicaExchange.ReplicaExchange;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.Objective;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class ReplicaExchangeTest{
+
+	private static final String PARAMETERS = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 11},"
+			+ "{\"name\": \"replicas\", \"type\": \"int\", \"value\": 4},"
+			+ "{\"name\": \"steps\", \"type\": \"int\", \"value\": 300},"
+			+ "{\"name\": \"t0steps\", \"type\": \"int\", \"value\": 50},"
+			+ "{\"name\": \"exchange_interval\", \"type\": \"int\", \"value\": 10}]";
+
+	/**
+	 * The result of a seed does not depend on the number of threads that
+	 * run the replicas.
+	 */
+	@Test
+	public void testSeedIsIndependentOfThreads() {
+		String parameters = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 11},"
+				+ "{\"name\": \"replicas\", \"type\": \"int\", \"value\": 6},"
+				+ "{\"name\": \"steps\", \"type\": \"int\", \"value\": 300},"
+				+ "{\"name\": \"t0steps\", \"type\": \"int\", \"value\": 50},"
+				+ "{\"name\": \"check_roadblock\", \"type\": \"boolean\", \"value\": true},"
+				+ "{\"name\": \"threads\", \"type\": \"int\", \"value\": %d}]";
+		TMNetlist serial = TestUtils.execute(new ReplicaExchange(),String.format(parameters,1));
+		TMNetlist parallel = TestUtils.execute(new ReplicaExchange(),String.format(parameters,4));
+		TestUtils.assertSameAssignment(serial,parallel);
+	}
+
+	/**
+	 * Replicas exchange temperatures during a run, and the result is a
+	 * valid assignment.
+	 */
+	@Test
+	public void testExchanges() {
+		ReplicaExchange algo = new ReplicaExchange();
+		TMNetlist result = TestUtils.execute(algo,PARAMETERS);
+		assertTrue(algo.getNumExchanges() > 0);
+		TestUtils.assertValidAssignment(algo,result);
+	}
+
+	/**
+	 * Replicas exchange if the hot one ranks above the cold one on the
+	 * constraints, never if it ranks below, and otherwise with the
+	 * Metropolis criterion on the scores.
+	 */
+	@Test
+	public void testExchangeRule() {
+		ReplicaExchange algo = new ReplicaExchange();
+		TestUtils.execute(algo,PARAMETERS);
+		Random random = new Random(1);
+
+		// fewer roadblocks, whatever the score
+		assertTrue(algo.exchange(getReplica(10.0,1.0,1.0,0),getReplica(1.0,100.0,1.0,1),random));
+		assertFalse(algo.exchange(getReplica(10.0,100.0,1.0,1),getReplica(1.0,1.0,1.0,0),random));
+		// growth above the toxicity threshold, then higher growth below it
+		assertTrue(algo.exchange(getReplica(10.0,1.0,1.0,0),getReplica(1.0,100.0,0.5,0),random));
+		assertFalse(algo.exchange(getReplica(10.0,100.0,0.5,0),getReplica(1.0,1.0,1.0,0),random));
+		assertTrue(algo.exchange(getReplica(10.0,1.0,0.5,0),getReplica(1.0,100.0,0.3,0),random));
+		assertFalse(algo.exchange(getReplica(10.0,100.0,0.3,0),getReplica(1.0,1.0,0.5,0),random));
+		// a better hot replica always moves down
+		assertTrue(algo.exchange(getReplica(10.0,2.0,1.0,0),getReplica(1.0,1.0,1.0,0),random));
+
+		// a worse hot replica moves down with probability e^((1/T_cold - 1/T_hot) * (S_hot - S_cold))
+		double p = Math.exp((1.0 / 1.0 - 1.0 / 10.0) * (1.0 - 2.0));
+		Random expected = new Random(2);
+		random = new Random(2);
+		int num = 0;
+		for (int i = 0; i < 1000; i++) {
+			boolean exchanged = algo.exchange(getReplica(10.0,1.0,1.0,0),getReplica(1.0,2.0,1.0,0),random);
+			assertEquals(expected.nextDouble() < p,exchanged);
+			num += exchanged ? 1 : 0;
+		}
+		assertTrue(num > 0 && num < 1000);
+	}
+
+	/**
+	 * @param temperature the temperature of the replica.
+	 * @param score the score of its current assignment.
+	 * @param growth the growth of its current assignment.
+	 * @param roadblocks the number of roadblocks of its current assignment.
+	 * @return a replica with only a temperature and a current Objective
+	 */
+	private static Replica getReplica(final double temperature, final double score, final double growth,
+			final int roadblocks) {
+		Replica rtn = new Replica(null,null,null);
+		rtn.setTemperature(temperature);
+		rtn.setCurrent(new Objective(score,growth,roadblocks));
+		return rtn;
+	}
+
+}
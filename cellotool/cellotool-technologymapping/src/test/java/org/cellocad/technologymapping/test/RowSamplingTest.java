@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.RowSampling;
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.SimulatedAnnealing;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.score.ObjectiveEvaluator;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class RowSamplingTest{
+
+	// the truth table of the test netlist
+	private static final int NUM_ROWS = 4;
+
+	private static final String PARAMETERS = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 9},"
+			+ "{\"name\": \"trajectories\", \"type\": \"int\", \"value\": 2},"
+			+ "{\"name\": \"steps\", \"type\": \"int\", \"value\": 500},"
+			+ "{\"name\": \"t0steps\", \"type\": \"int\", \"value\": 100},"
+			+ "{\"name\": \"row_sample\", \"type\": \"int\", \"value\": 1},"
+			+ "{\"name\": \"sample_interval\", \"type\": \"int\", \"value\": 10},"
+			+ "{\"name\": \"sample_top_k\", \"type\": \"int\", \"value\": 3}]";
+
+	/**
+	 * @param netlist a simulated netlist.
+	 * @return the score of a copy of the netlist simulated from scratch
+	 */
+	private static double getExactScore(final TMNetlist netlist) {
+		TMNetlist copy = new TMNetlist(netlist);
+		copy.setJournal(null);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(copy);
+		evaluator.simulate();
+		assertArrayEquals(copy.getActivityMatrix(),netlist.getActivityMatrix(),0.0);
+		assertArrayEquals(copy.getToxicityMatrix(),netlist.getToxicityMatrix(),0.0);
+		return evaluator.evaluate().getScore();
+	}
+
+	/**
+	 * A trajectory scored over a sample of the rows returns an assignment
+	 * simulated exactly over the full truth table.
+	 */
+	@Test
+	public void testResultIsExact() {
+		SimulatedAnnealing algo = new SimulatedAnnealing();
+		TMNetlist result = TestUtils.execute(algo,PARAMETERS);
+		assertEquals(NUM_ROWS,result.getNumRows());
+		getExactScore(result);
+	}
+
+	/**
+	 * When the best kept assignment depends on rows missing from the
+	 * sample, the check adds them and grows the sample, and the kept
+	 * assignments are scored exactly at the end.
+	 */
+	@Test
+	public void testGrowAndRecheck() {
+		SimulatedAnnealing algo = new SimulatedAnnealing();
+		TMNetlist result = TestUtils.execute(algo,PARAMETERS);
+		double exact = getExactScore(result);
+
+		// the sample of one row misses a row that is on or off in every output
+		RowSampling sampling = new RowSampling(algo,1,2,new Random(1));
+		TMNetlist netlist = new TMNetlist(result);
+		sampling.init(netlist);
+		ObjectiveEvaluator evaluator = new ObjectiveEvaluator(netlist);
+		evaluator.simulate();
+		assertEquals(1,netlist.getNumRows());
+		assertTrue(sampling.offer(1L,netlist,evaluator.evaluate().getScore()));
+
+		assertTrue(sampling.update());
+		assertTrue(sampling.getSample().size() >= 2);
+		evaluator = new ObjectiveEvaluator(new TMNetlist(result));
+		evaluator.simulate();
+		int[] rows = sampling.getSample().getRows();
+		for (int row : evaluator.getWorstRows()) {
+			assertTrue("row " + row + " is not sampled",Arrays.binarySearch(rows,row) >= 0);
+		}
+		// the best has been checked against the new sample
+		assertFalse(sampling.update());
+
+		TMNetlist best = sampling.getBest();
+		assertNotNull(best);
+		assertEquals(NUM_ROWS,best.getNumRows());
+		assertEquals(exact,getExactScore(best),0.0);
+	}
+
+}
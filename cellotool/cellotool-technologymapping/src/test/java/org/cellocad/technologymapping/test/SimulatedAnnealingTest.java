@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2018 Boston University (BU)
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.cellocad.technologymapping.test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.SimulatedAnnealing;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.test.common.TestUtils;
+import org.junit.Test;
+
+/**
+ * @author: agent
+ *
+ * @date: Oct 18, 2026
+ *
+ */
+public class SimulatedAnnealingTest{
+
+	/**
+	 * The result of a seed does not depend on the number of threads that
+	 * run the trajectories.
+	 */
+	@Test
+	public void testSeedIsIndependentOfThreads() {
+		String parameters = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 7},"
+				+ "{\"name\": \"trajectories\", \"type\": \"int\", \"value\": 8},"
+				+ "{\"name\": \"steps\", \"type\": \"int\", \"value\": 500},"
+				+ "{\"name\": \"t0steps\", \"type\": \"int\", \"value\": 100},"
+				+ "{\"name\": \"threads\", \"type\": \"int\", \"value\": %d}]";
+		TMNetlist serial = TestUtils.execute(new SimulatedAnnealing(),String.format(parameters,1));
+		TMNetlist parallel = TestUtils.execute(new SimulatedAnnealing(),String.format(parameters,4));
+		TestUtils.assertSameAssignment(serial,parallel);
+	}
+
+	/**
+	 * With a time budget, a run far too long for the budget stops at the
+	 * deadline and returns the best assignment found so far.
+	 */
+	@Test
+	public void testTimeBudget() {
+		String parameters = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 3},"
+				+ "{\"name\": \"trajectories\", \"type\": \"int\", \"value\": 4},"
+				+ "{\"name\": \"steps\", \"type\": \"int\", \"value\": 100000000},"
+				+ "{\"name\": \"t0steps\", \"type\": \"int\", \"value\": 1000},"
+				+ "{\"name\": \"threads\", \"type\": \"int\", \"value\": 2},"
+				+ "{\"name\": \"time_budget_ms\", \"type\": \"long\", \"value\": 500}]";
+		SimulatedAnnealing algo = new SimulatedAnnealing();
+		long start = System.nanoTime();
+		TMNetlist result = TestUtils.execute(algo,parameters);
+		long elapsed = (System.nanoTime() - start) / 1000000L;
+
+		// the budget covers the search, reading the inputs takes the rest
+		assertTrue("ran for " + elapsed + " ms",elapsed < 500 + 5000);
+		assertTrue(algo.getNumStepsRun() > 0);
+		assertTrue(algo.getNumStepsRun() < 4L * (100000000 + 1000));
+		for (TMNode node : result.getLogicNodes()) {
+			assertNotNull(node.getName() + " has no gate",node.getGate());
+		}
+	}
+
+	/**
+	 * In adaptive mode, trajectories that freeze without improving are
+	 * reheated and then stopped before the end of their schedule.
+	 */
+	@Test
+	public void testAdaptiveStopsEarly() {
+		String parameters = "[{\"name\": \"seed\", \"type\": \"long\", \"value\": 5},"
+				+ "{\"name\": \"trajectories\", \"type\": \"int\", \"value\": 4},"
+				+ "{\"name\": \"steps\", \"type\": \"int\", \"value\": 200000},"
+				+ "{\"name\": \"t0steps\", \"type\": \"int\", \"value\": 100},"
+				+ "{\"name\": \"adaptive\", \"type\": \"boolean\", \"value\": true},"
+				+ "{\"name\": \"patience\", \"type\": \"int\", \"value\": 200},"
+				+ "{\"name\": \"max_reheats\", \"type\": \"int\", \"value\": 1}]";
+		SimulatedAnnealing algo = new SimulatedAnnealing();
+		TMNetlist result = TestUtils.execute(algo,parameters);
+
+		assertTrue(algo.getNumStepsRun() > 0);
+		assertTrue(algo.getNumStepsRun() < 4L * (200000 + 100));
+		for (TMNode node : result.getLogicNodes()) {
+			assertNotNull(node.getName() + " has no gate",node.getGate());
+		}
+	}
+
+}
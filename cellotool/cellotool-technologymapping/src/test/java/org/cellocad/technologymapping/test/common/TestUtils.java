@@ -20,8 +20,42 @@
  */
 package org.cellocad.technologymapping.test.common;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.cellocad.common.CObjectCollection;
+import org.cellocad.common.Utils;
+import org.cellocad.common.netlist.Netlist;
+import org.cellocad.common.netlist.NetlistNode;
+import org.cellocad.common.netlist.NetlistUtils;
+import org.cellocad.common.profile.AlgorithmProfile;
+import org.cellocad.common.runtime.environment.RuntimeEnv;
+import org.cellocad.common.target.data.TargetData;
+import org.cellocad.common.target.data.TargetDataUtils;
+import org.cellocad.technologymapping.algorithm.SimulatedAnnealing.SimulatedAnnealing;
+import org.cellocad.technologymapping.common.TargetDataReader;
+import org.cellocad.technologymapping.common.assignment.Assigner;
+import org.cellocad.technologymapping.common.assignment.MoveGenerator;
+import org.cellocad.technologymapping.common.assignment.RoadblockChecker;
+import org.cellocad.technologymapping.common.netlist.TMNetlist;
+import org.cellocad.technologymapping.common.netlist.TMNode;
+import org.cellocad.technologymapping.common.simulation.ActivitySimulator;
+import org.cellocad.technologymapping.common.simulation.LogicSimulator;
+import org.cellocad.technologymapping.common.simulation.ToxicitySimulator;
+import org.cellocad.technologymapping.data.Gate;
+import org.cellocad.technologymapping.runtime.environment.TMArgString;
+import org.cellocad.technologymapping.runtime.environment.TMRuntimeEnv;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 /**
  * @author: Vincent Mirian
@@ -55,4 +89,134 @@ public class TestUtils {
 		return file;
 	}
 
+	static public RuntimeEnv getRuntimeEnv(final String outputDir){
+		String resourcesFilepath = TestUtils.getResourcesFilepath() + Utils.getFileSeparator();
+		String[] args = new String[] {
+			"-inputNetlist",resourcesFilepath + Utils.getFileSeparator() + "logicsynthesis_netlist.json",
+			"-outputNetlist",outputDir + Utils.getFileSeparator() + "technologymapping_netlist.json",
+			"-targetDataDir",resourcesFilepath,
+			"-targetDataFile","Eco1C1G1T0-synbiohub.UCF.json",
+			"-configFile",resourcesFilepath + Utils.getFileSeparator() + "technologymapping.json",
+			"-outputDir",outputDir
+		};
+		RuntimeEnv rtn = new TMRuntimeEnv(args);
+		rtn.setName("TechnologyMapping");
+		return rtn;
+	}
+
+	static public Netlist getNetlist(final RuntimeEnv runEnv){
+		return NetlistUtils.getNetlist(runEnv, TMArgString.INPUTNETLIST);
+	}
+
+	static public TargetData getTargetData(final RuntimeEnv runEnv){
+		return TargetDataUtils.getTargetTargetData(runEnv, TMArgString.TARGETDATAFILE, TMArgString.TARGETDATADIR);
+	}
+
+	/**
+	 * @param type the name of the algorithm.
+	 * @param parameters the parameters as a JSON array.
+	 * @return the profile of the algorithm with the parameters.
+	 */
+	static public AlgorithmProfile getAlgorithmProfile(final String type, final String parameters){
+		String json = "{\"name\": \"AProfile0\", \"type\": \"" + type + "\", \"parameters\": " + parameters + "}";
+		JsonObject jObj = new JsonParser().parse(json).getAsJsonObject();
+		return new AlgorithmProfile(jObj);
+	}
+
+	/**
+	 * Build a TMNetlist with its logic simulated, its input and output
+	 * gates assigned and its input activities and output toxicity
+	 * initialized, as in the preprocessing of the algorithms.
+	 *
+	 * @param netlist the netlist.
+	 * @param td the target data.
+	 * @return the TMNetlist.
+	 */
+	static public TMNetlist getTMNetlist(final Netlist netlist, final TargetData td){
+		for (int i = 0; i < netlist.getNumVertex(); i++) {
+			NetlistNode node = netlist.getVertexAtIdx(i);
+			node.setIdx(i);
+		}
+		TMNetlist rtn = new TMNetlist(netlist);
+		new LogicSimulator(rtn).run();
+		Assigner assigner = new Assigner(rtn);
+		assigner.assignInputSensors(TargetDataReader.getInputSensors(td));
+		assigner.assignOutputReporters(TargetDataReader.getOutputReporters(td));
+		new ActivitySimulator(rtn).initInputActivities(TargetDataReader.getInputPromoterActivities(td));
+		new ToxicitySimulator(rtn).initOutputToxicity();
+		return rtn;
+	}
+
+	/**
+	 * @param netlist the TMNetlist.
+	 * @param gates the gate library.
+	 * @param seed the seed of the random number generator.
+	 * @return an Assigner of the TMNetlist, after a random assignment.
+	 */
+	static public Assigner getAssigner(final TMNetlist netlist, final CObjectCollection<Gate> gates, final long seed){
+		Assigner rtn = new Assigner(netlist);
+		rtn.setGateLibrary(gates);
+		rtn.setRandom(new Random(seed));
+		rtn.setMoveGenerator(new MoveGenerator(gates));
+		rtn.doRandomAssignment();
+		return rtn;
+	}
+
+	/**
+	 * Run an algorithm on the test netlist.
+	 *
+	 * @param algo the algorithm.
+	 * @param parameters the parameters as a JSON array.
+	 * @return the TMNetlist of the result.
+	 */
+	static public TMNetlist execute(final SimulatedAnnealing algo, final String parameters){
+		String tempDir = TestUtils.createTempDirectory().toString();
+		RuntimeEnv runEnv = TestUtils.getRuntimeEnv(tempDir);
+		algo.execute(TestUtils.getNetlist(runEnv),
+				TestUtils.getTargetData(runEnv),
+				TestUtils.getAlgorithmProfile(algo.getClass().getSimpleName(),parameters),
+				runEnv);
+		Utils.deleteDirectory(new File(tempDir));
+		return algo.getTMNetlist();
+	}
+
+	/**
+	 * Check that two TMNetlists have the same assignment and simulation state.
+	 *
+	 * @param expected the expected TMNetlist.
+	 * @param actual the actual TMNetlist.
+	 */
+	static public void assertSameAssignment(final TMNetlist expected, final TMNetlist actual){
+		assertEquals(expected.getNumVertex(),actual.getNumVertex());
+		for (int i = 0; i < expected.getNumVertex(); i++) {
+			TMNode a = expected.getVertexAtIdx(i);
+			TMNode b = actual.getVertexAtIdx(i);
+			assertEquals(a.getName(),b.getName());
+			assertEquals(a.getGate() == null ? null : a.getGate().getName(),
+					b.getGate() == null ? null : b.getGate().getName());
+		}
+		assertArrayEquals(expected.getActivityMatrix(),actual.getActivityMatrix(),0.0);
+		assertArrayEquals(expected.getToxicityMatrix(),actual.getToxicityMatrix(),0.0);
+	}
+
+	/**
+	 * Check that a TMNetlist is a valid assignment: every logic node has
+	 * a gate, no two gates are of the same group and there is no
+	 * roadblock.
+	 *
+	 * @param algo the algorithm that made the assignment.
+	 * @param netlist the TMNetlist.
+	 */
+	static public void assertValidAssignment(final SimulatedAnnealing algo, final TMNetlist netlist){
+		Set<String> groups = new HashSet<>();
+		for (TMNode node : netlist.getLogicNodes()) {
+			assertNotNull(node.getName() + " has no gate",node.getGate());
+			assertTrue("group " + node.getGate().getGroup() + " is used twice",groups.add(node.getGate().getGroup()));
+		}
+		RoadblockChecker checker = new RoadblockChecker(netlist);
+		checker.setInputRoadblocks(algo.getInputRoadblocks());
+		checker.setLogicRoadblocks(algo.getLogicRoadblocks());
+		assertEquals(Integer.valueOf(0),checker.getNumRoadblocks());
+	}
+
 }